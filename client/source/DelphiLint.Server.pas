@@ -636,6 +636,20 @@ function TLintServer.StartExtServer(
   WorkingDir: string;
   ShowConsole: Boolean): Integer;
 
+  function GetClassDataSharingOptions: string;
+  var
+    ArchivePath: string;
+  begin
+    Result := '';
+
+    // The archive is created by the installer for the installed jar and JVM. If the JVM has changed since, it is
+    // ignored by the JVM with a warning.
+    ArchivePath := ChangeFileExt(Jar, '.jsa');
+    if LintContext.Settings.ServerUseClassDataSharing and FileExists(ArchivePath) then begin
+      Result := Format(' -XX:SharedArchiveFile="%s"', [ArchivePath]);
+    end;
+  end;
+
   function StartServerJar(PortFile: string): THandle;
   const
     CTitle = 'DelphiLint Server';
@@ -646,7 +660,9 @@ function TLintServer.StartExtServer(
     CreationFlags: Cardinal;
     ErrorCode: Integer;
   begin
-    CommandLine := Format(' %s -jar "%s" "%s"', [LintContext.Settings.ServerJvmOptions, Jar, PortFile]);
+    CommandLine := Format(
+      ' %s%s -jar "%s" "%s"',
+      [LintContext.Settings.ServerJvmOptions, GetClassDataSharingOptions, Jar, PortFile]);
     Log.Info('Starting external server with command: %s%s', [JavaExe, CommandLine]);
 
     ZeroMemory(@StartupInfo, SizeOf(TStartupInfo));
@@ -68,6 +68,7 @@ type
     property ServerJvmOptions: string index 8 read GetValueStr write SetValueStr;
     property StandaloneUseDefaultRules: Boolean index 9 read GetValueBool write SetValueBool;
     property StandaloneDisabledRules: string index 10 read GetValueStr write SetValueStr;
+    property ServerUseClassDataSharing: Boolean index 11 read GetValueBool write SetValueBool;
 
     property ServerJar: string index 0 read GetServerJar;
     property JavaExe: string index 1 read GetJavaExe;
@@ -135,7 +136,9 @@ begin
     // 9
     TBoolPropField.Create('Standalone',  'UseDefaultRules', True),
     // 10
-    TLongStringPropField.Create('Standalone',  'DisabledRules', '')
+    TLongStringPropField.Create('Standalone',  'DisabledRules', ''),
+    // 11
+    TBoolPropField.Create('Server', 'UseClassDataSharing', True)
   ];
 end;
 
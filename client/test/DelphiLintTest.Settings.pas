@@ -71,6 +71,8 @@ type
     [Test]
     procedure TestDefaultServerJvmOptionsUseSystemVm;
     [Test]
+    procedure TestServerUseClassDataSharing;
+    [Test]
     procedure TestSaveAndLoad;
   end;
 
@@ -305,6 +307,24 @@ end;
 
 //______________________________________________________________________________________________________________________
 
+procedure TSettingsTest.TestServerUseClassDataSharing;
+const
+  CCategory = 'Server';
+  CName = 'UseClassDataSharing';
+begin
+  Assert.AreEqual(FSettings.ServerUseClassDataSharing, True);
+
+  SetSetting(CCategory, CName, '0');
+  FSettings.Load;
+  Assert.AreEqual(FSettings.ServerUseClassDataSharing, False);
+
+  FSettings.ServerUseClassDataSharing := True;
+  FSettings.Save;
+  Assert.AreEqual('1', GetSetting(CCategory, CName));
+end;
+
+//______________________________________________________________________________________________________________________
+
 procedure TSettingsTest.TestSettingsDir;
 begin
   Assert.AreEqual(TPath.GetDirectoryName(FTempSettingsPath), FSettings.SettingsDirectory);
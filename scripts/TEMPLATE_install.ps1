@@ -36,6 +36,50 @@ function Copy-BuildArtifacts {
   Write-Host "Copied resources."
 }
 
+function New-ClassDataArchive {
+  if (-not $env:JAVA_HOME) {
+    Write-Host "JAVA_HOME is not set, skipping server startup optimization."
+    return
+  }
+
+  # Archives are only valid for the JVM that created them and the jar at the path it was created with,
+  # so they are created on install rather than at build time
+  $JavaExe = Join-Path $env:JAVA_HOME "bin\java.exe"
+  $ServerJar = Join-Path $DelphiLintFolder "delphilint-server-$Version.jar"
+  $Archive = Join-Path $DelphiLintFolder "delphilint-server-$Version.jsa"
+  $ClassList = Join-Path $DelphiLintFolder "delphilint-server-$Version.classlist"
+
+  $BdsPath = (Get-ItemProperty -Path "HKLM:\SOFTWARE\WOW6432Node\Embarcadero\BDS\$RegistryVersion" -ErrorAction Ignore).RootDir
+  if (-not $BdsPath) {
+    $BdsPath = "C:\Program Files (x86)\Embarcadero\Studio\$RegistryVersion"
+  }
+
+  # The training run keeps its settings in a temporary directory, and writes its logs to the working directory
+  $TrainingFolder = Join-Path ([System.IO.Path]::GetTempPath()) "DelphiLintTraining-$Version"
+  New-Item -ItemType Directory $TrainingFolder -Force | Out-Null
+  Push-Location $TrainingFolder
+  try {
+    & $JavaExe "-XX:DumpLoadedClassList=$ClassList" -cp $ServerJar `
+      au.com.integradev.delphilint.maintenance.TrainingRun $BdsPath $CompilerVersion `
+      | Out-Null
+    if ($LASTEXITCODE -eq 0) {
+      & $JavaExe -Xshare:dump "-XX:SharedClassListFile=$ClassList" "-XX:SharedArchiveFile=$Archive" -cp $ServerJar `
+        | Out-Null
+    }
+
+    if ($LASTEXITCODE -eq 0) {
+      Write-Host "Created server class data sharing archive."
+    } else {
+      Remove-Item $Archive -Force -ErrorAction Ignore
+      Write-Host -ForegroundColor Yellow "Could not create server class data sharing archive, skipping."
+    }
+  } finally {
+    Remove-Item $ClassList -Force -ErrorAction Ignore
+    Pop-Location
+    Remove-Item $TrainingFolder -Recurse -Force -ErrorAction Ignore
+  }
+}
+
 function Get-WebView2 {
   $TempFolder = (Join-Path $DelphiLintFolder "tmp")
   New-Item -ItemType Directory $TempFolder -Force -ErrorAction Ignore | Out-Null
@@ -75,6 +119,7 @@ Write-Host "Setting up DelphiLint $Version."
 New-AppDataPath
 Clear-RegistryEntry
 Copy-BuildArtifacts
+New-ClassDataArchive
 Get-WebView2
 Add-RegistryEntry
 Write-Host -ForegroundColor Green "Install completed for DelphiLint $Version."
\ No newline at end of file
@@ -0,0 +1,82 @@
+#!/usr/bin/env -S powershell -File
+
+<#
+.SYNOPSIS
+  Measures how long the DelphiLint server takes to start, with and without class data sharing.
+.DESCRIPTION
+  Starts the server repeatedly and measures the time until it has written its port file, which is
+  the point at which the client can connect. Each run alternates between starting without and with
+  the class data sharing archive next to the server jar (see install.ps1 or the server's cds
+  Maven profile).
+.PARAMETER ServerJar
+  The server jar to start. Defaults to the installed jar for the current version.
+.PARAMETER Iterations
+  The number of times to start the server in each mode.
+.EXAMPLE
+  benchmark-startup.ps1 -Iterations 20
+#>
+
+param(
+  [string]$ServerJar,
+  [int]$Iterations = 10
+)
+
+$ErrorActionPreference = "Stop"
+Import-Module "$PSScriptRoot/common" -Force
+
+if (-not $ServerJar) {
+  $ServerJar = Join-Path $env:APPDATA "DelphiLint\delphilint-server-$(Get-Version).jar"
+}
+$Archive = [System.IO.Path]::ChangeExtension($ServerJar, ".jsa")
+$JavaExe = Join-Path $env:JAVA_HOME "bin\java.exe"
+
+if (-not (Test-Path $Archive)) {
+  Write-Problem "No class data sharing archive found at $Archive."
+  Exit
+}
+
+function Measure-Startup([string[]]$JvmOptions) {
+  $PortFile = New-TemporaryFile
+  try {
+    $Stopwatch = [System.Diagnostics.Stopwatch]::StartNew()
+    $Process = Start-Process -FilePath $JavaExe `
+      -ArgumentList ($JvmOptions + @("-jar", "`"$ServerJar`"", "`"$PortFile`"")) `
+      -WorkingDirectory (Split-Path $ServerJar) `
+      -WindowStyle Hidden `
+      -PassThru
+
+    while ((Get-Item $PortFile).Length -eq 0) {
+      if ($Process.HasExited) {
+        throw "Server exited with code $($Process.ExitCode)"
+      }
+      Start-Sleep -Milliseconds 10
+    }
+    $Stopwatch.Stop()
+
+    Stop-Process -Id $Process.Id -Force
+    $Process.WaitForExit()
+    return $Stopwatch.Elapsed.TotalMilliseconds
+  } finally {
+    Remove-Item $PortFile -Force -ErrorAction Ignore
+  }
+}
+
+#-----------------------------------------------------------------------------------------------------------------------
+
+Write-Title "Benchmarking DelphiLint server startup"
+
+$WithoutArchive = @()
+$WithArchive = @()
+for ($i = 1; $i -le $Iterations; $i++) {
+  $WithoutArchive += Measure-Startup @("-Xshare:auto")
+  $WithArchive += Measure-Startup @("-XX:SharedArchiveFile=`"$Archive`"")
+  Write-Host "Run ${i}: $([int]$WithoutArchive[-1]) ms without archive, $([int]$WithArchive[-1]) ms with archive"
+}
+
+$AverageWithout = ($WithoutArchive | Measure-Object -Average).Average
+$AverageWith = ($WithArchive | Measure-Object -Average).Average
+
+Write-Header "Results"
+Write-Host "Without archive: $([int]$AverageWithout) ms average"
+Write-Host "With archive:    $([int]$AverageWith) ms average"
+Write-Success "Class data sharing saves $([int](100 * (1 - $AverageWith / $AverageWithout)))% of startup time."
@@ -35,8 +35,8 @@ $ErrorActionPreference = "Stop"
 Import-Module "$PSScriptRoot/common" -Force
 
 $Global:DelphiVersionMap = @{
-  "280" = [DelphiVersion]::new("11", "Alexandria", "280", "22.0")
-  "290" = [DelphiVersion]::new("12", "Athens", "290", "23.0")
+  "280" = [DelphiVersion]::new("11", "Alexandria", "280", "22.0", "VER350")
+  "290" = [DelphiVersion]::new("12", "Athens", "290", "23.0", "VER360")
 }
 
 class DelphiVersion {
@@ -44,12 +44,20 @@ class DelphiVersion {
   [string]$Name
   [string]$PackageVersion
   [string]$RegistryVersion
-
-  DelphiVersion([string]$ProductVersion, [string]$Name, [string]$PackageVersion, [string]$RegistryVersion) {
+  [string]$CompilerVersion
+
+  DelphiVersion(
+    [string]$ProductVersion,
+    [string]$Name,
+    [string]$PackageVersion,
+    [string]$RegistryVersion,
+    [string]$CompilerVersion
+  ) {
     $this.ProductVersion = $ProductVersion
     $this.Name = $Name
     $this.PackageVersion = $PackageVersion
     $this.RegistryVersion = $RegistryVersion
+    $this.CompilerVersion = $CompilerVersion
   }
 }
 
@@ -215,7 +223,7 @@ function New-BatchScript([string]$Path, [string]$PSScriptPath) {
 }
 
 function New-SetupScript([string]$Path, [PackagingConfig]$Config) {
-  $MacroContents = "`$Version = '$($Config.Version)'`n`$VersionName = '$($Config.Delphi.Version.Name)'`n`$RegistryVersion = '$($Config.Delphi.Version.RegistryVersion)'`n"
+  $MacroContents = "`$Version = '$($Config.Version)'`n`$VersionName = '$($Config.Delphi.Version.Name)'`n`$RegistryVersion = '$($Config.Delphi.Version.RegistryVersion)'`n`$CompilerVersion = '$($Config.Delphi.Version.CompilerVersion)'`n"
 
   Copy-Item (Join-Path $PSScriptRoot TEMPLATE_install.ps1) $Path
   $Content = Get-Content -Raw $Path
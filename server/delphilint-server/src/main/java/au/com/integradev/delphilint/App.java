@@ -17,8 +17,15 @@
  */
 package au.com.integradev.delphilint;
 
+import au.com.integradev.delphilint.analysis.AnalysisCache;
+import au.com.integradev.delphilint.analysis.EngineStartupConfigurationStore;
 import au.com.integradev.delphilint.maintenance.LogCleaner;
+import au.com.integradev.delphilint.remote.sonarqube.HttpClientRegistry;
+import au.com.integradev.delphilint.remote.sonarqube.SonarMetadataCache;
 import au.com.integradev.delphilint.server.AnalysisServer;
+import au.com.integradev.delphilint.server.BlockingTlvConnection;
+import au.com.integradev.delphilint.server.MemoryPolicy;
+import au.com.integradev.delphilint.server.NioTlvConnection;
 import au.com.integradev.delphilint.server.TlvConnection;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -30,18 +37,43 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class App {
+  /** Overrides the settings directory, which is {@code %APPDATA%\DelphiLint} by default. */
+  public static final String SETTINGS_PATH_PROPERTY = "delphilint.settingsPath";
+
   private static final int DEFAULT_PORT = 14000;
+  private static final String MULTI_CLIENT_PROPERTY = "delphilint.multiClient";
+  private static final String TRANSPORT_PROPERTY = "delphilint.transport";
+  private static final String IDLE_COLLECTION_DELAY_PROPERTY = "delphilint.idleGcDelaySeconds";
+  private static final long DEFAULT_IDLE_COLLECTION_DELAY_SECONDS = 60;
+  private static final String ANALYSIS_CACHE_PROPERTY = "delphilint.analysisCache";
+  private static final String ANALYSIS_THREADS_PROPERTY = "delphilint.analysisThreads";
+  private static final String MAX_ENGINES_PROPERTY = "delphilint.maxEngines";
+  private static final int DEFAULT_MAX_ENGINES = 2;
+  private static final String HTTP_CONNECT_TIMEOUT_PROPERTY =
+      "delphilint.httpConnectTimeoutSeconds";
+  private static final String HTTP_REQUEST_TIMEOUT_PROPERTY =
+      "delphilint.httpRequestTimeoutSeconds";
+  private static final String HTTP_MAX_CONCURRENT_REQUESTS_PROPERTY =
+      "delphilint.httpMaxConcurrentRequests";
+  private static final String SONAR_METADATA_TTL_PROPERTY = "delphilint.sonarMetadataTtlSeconds";
   private static final Logger LOG = LogManager.getLogger(App.class);
   private static final Duration LOG_CUTOFF_DURATION = Duration.ofDays(7);
+  private static final Duration CACHE_CUTOFF_DURATION = Duration.ofDays(30);
 
   public static void main(String[] args) {
     try {
-      var settingsPath = Path.of(System.getenv("APPDATA"), "DelphiLint");
+      String settingsPathOverride = System.getProperty(SETTINGS_PATH_PROPERTY);
+      var settingsPath =
+          settingsPathOverride == null
+              ? Path.of(System.getenv("APPDATA"), "DelphiLint")
+              : Path.of(settingsPathOverride);
       var pluginsPath = settingsPath.resolve("plugins");
       var logPath = settingsPath.resolve("logs");
+      var cachePath = settingsPath.resolve("cache");
+      var engineConfigPath = settingsPath.resolve("engine.json");
 
       if (!Files.exists(pluginsPath)) {
-        Files.createDirectory(pluginsPath);
+        Files.createDirectories(pluginsPath);
       }
 
       if (Files.exists(logPath)) {
@@ -49,10 +81,33 @@ public class App {
       }
 
       TlvConnection connection;
-      AnalysisServer server = new AnalysisServer(pluginsPath);
+      var memoryPolicy =
+          new MemoryPolicy(
+              Duration.ofSeconds(
+                  Long.getLong(
+                      IDLE_COLLECTION_DELAY_PROPERTY, DEFAULT_IDLE_COLLECTION_DELAY_SECONDS)));
+      AnalysisCache analysisCache = null;
+      if (Boolean.parseBoolean(System.getProperty(ANALYSIS_CACHE_PROPERTY, "true"))) {
+        analysisCache = new AnalysisCache(cachePath);
+        cleanCache(analysisCache);
+      }
+
+      AnalysisServer server =
+          new AnalysisServer(
+              pluginsPath,
+              memoryPolicy,
+              analysisCache,
+              Integer.getInteger(ANALYSIS_THREADS_PROPERTY, 1),
+              new EngineStartupConfigurationStore(engineConfigPath),
+              Integer.getInteger(MAX_ENGINES_PROPERTY, DEFAULT_MAX_ENGINES),
+              createHttpClientRegistry(),
+              createSonarMetadataCache());
+      warmUp(server);
+      boolean multiClient = Boolean.getBoolean(MULTI_CLIENT_PROPERTY);
+      boolean nio = "nio".equalsIgnoreCase(System.getProperty(TRANSPORT_PROPERTY));
 
       if (args.length > 0) {
-        connection = new TlvConnection(server);
+        connection = createConnection(server, 0, multiClient, nio);
 
         var portFile = Path.of(args[0]);
         if (Files.exists(portFile)) {
@@ -61,10 +116,10 @@ public class App {
           LOG.info("Server port written to port file at {}", portFile);
         } else {
           LOG.info("Port file at {} does not exist", portFile);
-          connection = new TlvConnection(server, DEFAULT_PORT);
+          connection = createConnection(server, DEFAULT_PORT, multiClient, nio);
         }
       } else {
-        connection = new TlvConnection(server, DEFAULT_PORT);
+        connection = createConnection(server, DEFAULT_PORT, multiClient, nio);
       }
 
       connection.run();
@@ -75,6 +130,46 @@ public class App {
     }
   }
 
+  private static TlvConnection createConnection(
+      AnalysisServer server, int port, boolean multiClient, boolean nio) throws IOException {
+    if (nio) {
+      return new NioTlvConnection(server, port, multiClient);
+    } else {
+      return new BlockingTlvConnection(server, port, multiClient);
+    }
+  }
+
+  private static HttpClientRegistry createHttpClientRegistry() {
+    return new HttpClientRegistry(
+        Duration.ofSeconds(
+            Long.getLong(
+                HTTP_CONNECT_TIMEOUT_PROPERTY,
+                HttpClientRegistry.DEFAULT_CONNECT_TIMEOUT.toSeconds())),
+        Duration.ofSeconds(
+            Long.getLong(
+                HTTP_REQUEST_TIMEOUT_PROPERTY,
+                HttpClientRegistry.DEFAULT_REQUEST_TIMEOUT.toSeconds())),
+        Integer.getInteger(
+            HTTP_MAX_CONCURRENT_REQUESTS_PROPERTY,
+            HttpClientRegistry.DEFAULT_MAX_CONCURRENT_REQUESTS));
+  }
+
+  private static SonarMetadataCache createSonarMetadataCache() {
+    long timeToLive =
+        Long.getLong(
+            SONAR_METADATA_TTL_PROPERTY, SonarMetadataCache.DEFAULT_TIME_TO_LIVE.toSeconds());
+    if (timeToLive <= 0) {
+      return null;
+    }
+    return new SonarMetadataCache(Duration.ofSeconds(timeToLive));
+  }
+
+  private static void warmUp(AnalysisServer server) {
+    var warmUpThread = new Thread(server::warmUp, "delphilint-warm-up");
+    warmUpThread.setDaemon(true);
+    warmUpThread.start();
+  }
+
   private static void cleanLogs(Path logPath) {
     try {
       new LogCleaner(Instant.now().minus(LOG_CUTOFF_DURATION)).clean(logPath);
@@ -82,4 +177,12 @@ public class App {
       LOG.error("Could not clean logs", e);
     }
   }
+
+  private static void cleanCache(AnalysisCache analysisCache) {
+    try {
+      analysisCache.clean(Instant.now().minus(CACHE_CUTOFF_DURATION));
+    } catch (IOException e) {
+      LOG.error("Could not clean analysis cache", e);
+    }
+  }
 }
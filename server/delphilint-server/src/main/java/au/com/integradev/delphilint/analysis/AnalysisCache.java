@@ -0,0 +1,147 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An on-disk store of raw analysis issues, keyed by a hash of everything that the issues depend on.
+ *
+ * <p>Each entry is stored in its own file, so the cache can be shared between server processes.
+ * Because keys are derived from the cached content, entries are never updated in place - stale
+ * entries are simply no longer looked up, and are removed by {@link #clean(Instant)}.
+ */
+public class AnalysisCache {
+  private static final Logger LOG = LogManager.getLogger(AnalysisCache.class);
+  private static final String ENTRY_SUFFIX = ".json";
+  private static final TypeReference<List<CachedIssue>> ENTRY_TYPE = new TypeReference<>() {};
+  private final Path cacheDir;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  public AnalysisCache(Path cacheDir) {
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * @param key the key of the entry.
+   * @return the cached issues, or an empty optional if there is no readable entry for the key.
+   */
+  public Optional<List<CachedIssue>> get(String key) {
+    Path entryPath = getEntryPath(key);
+    List<CachedIssue> issues;
+    try (InputStream inputStream = Files.newInputStream(entryPath)) {
+      issues = mapper.readValue(inputStream, ENTRY_TYPE);
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      LOG.warn("Could not read analysis cache entry {}", entryPath, e);
+      return Optional.empty();
+    }
+
+    try {
+      // Entries are cleaned by last use, not by creation
+      Files.setLastModifiedTime(entryPath, FileTime.from(Instant.now()));
+    } catch (IOException e) {
+      LOG.debug(e);
+    }
+    return Optional.of(issues);
+  }
+
+  public void put(String key, List<CachedIssue> issues) {
+    Path entryPath = getEntryPath(key);
+    try {
+      Files.createDirectories(cacheDir);
+      Path tempPath = Files.createTempFile(cacheDir, key, ".tmp");
+      try {
+        mapper.writeValue(tempPath.toFile(), issues);
+        moveIntoPlace(tempPath, entryPath);
+      } finally {
+        Files.deleteIfExists(tempPath);
+      }
+    } catch (IOException e) {
+      LOG.warn("Could not write analysis cache entry {}", entryPath, e);
+    }
+  }
+
+  private static void moveIntoPlace(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Deletes all entries that have not been used since the cutoff.
+   *
+   * @param cutoff the time before which unused entries are deleted.
+   */
+  public void clean(Instant cutoff) throws IOException {
+    if (!Files.isDirectory(cacheDir)) {
+      return;
+    }
+
+    List<Path> oldEntries;
+    try (Stream<Path> entryStream = Files.list(cacheDir)) {
+      oldEntries =
+          entryStream
+              .filter(path -> isLastModifiedBefore(path, cutoff))
+              .collect(Collectors.toList());
+    }
+
+    var deletedEntries = 0;
+    for (Path entry : oldEntries) {
+      try {
+        Files.delete(entry);
+        deletedEntries++;
+      } catch (IOException e) {
+        LOG.warn(e);
+      }
+    }
+    LOG.info("{} unused analysis cache entries deleted", deletedEntries);
+  }
+
+  private static boolean isLastModifiedBefore(Path path, Instant cutoff) {
+    try {
+      return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+    } catch (IOException e) {
+      LOG.debug(e);
+      return false;
+    }
+  }
+
+  private Path getEntryPath(String key) {
+    return cacheDir.resolve(key + ENTRY_SUFFIX);
+  }
+}
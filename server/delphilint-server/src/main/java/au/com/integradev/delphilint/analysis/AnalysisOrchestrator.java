@@ -17,27 +17,48 @@
  */
 package au.com.integradev.delphilint.analysis;
 
+import au.com.integradev.delphilint.remote.IssuePostProcessor;
 import au.com.integradev.delphilint.remote.RemoteActiveRule;
 import au.com.integradev.delphilint.remote.SonarHost;
 import au.com.integradev.delphilint.remote.SonarHostException;
-import au.com.integradev.delphilint.remote.SonarServerUtils;
+import au.com.integradev.delphilint.remote.standalone.PluginRules;
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 import org.sonarsource.sonarlint.core.analysis.api.ActiveRule;
 import org.sonarsource.sonarlint.core.analysis.api.AnalysisConfiguration;
 import org.sonarsource.sonarlint.core.analysis.api.AnalysisEngineConfiguration;
+import org.sonarsource.sonarlint.core.analysis.api.ClientModuleFileEvent;
+import org.sonarsource.sonarlint.core.analysis.api.ClientModuleInfo;
 import org.sonarsource.sonarlint.core.analysis.api.Issue;
 import org.sonarsource.sonarlint.core.analysis.container.global.GlobalAnalysisContainer;
+import org.sonarsource.sonarlint.core.analysis.container.global.ModuleRegistry;
 import org.sonarsource.sonarlint.core.analysis.container.module.ModuleContainer;
+import org.sonarsource.sonarlint.core.analysis.container.module.ModuleFileEventNotifier;
 import org.sonarsource.sonarlint.core.commons.Language;
-import org.sonarsource.sonarlint.core.commons.progress.ClientProgressMonitor;
+import org.sonarsource.sonarlint.core.commons.progress.CanceledException;
 import org.sonarsource.sonarlint.core.commons.progress.ProgressMonitor;
 import org.sonarsource.sonarlint.core.plugin.commons.LoadedPlugins;
 import org.sonarsource.sonarlint.core.plugin.commons.PluginsLoadResult;
@@ -46,10 +67,46 @@ import org.springframework.util.StringUtils;
 
 public class AnalysisOrchestrator implements AutoCloseable {
   private static final Logger LOG = LogManager.getLogger(AnalysisOrchestrator.class);
+  private static final String CACHE_FORMAT_VERSION = "1";
+  private static final int MAX_MODULES = 8;
+  private static final int MIN_FILES_PER_WORKER = 25;
   private final GlobalAnalysisContainer globalContainer;
   private final LoadedPlugins loadedPlugins;
+  private final PluginRules pluginRules;
+  private final AnalysisCache analysisCache;
+  private final String engineHash;
+  private final int analysisThreads;
+  private final String bdsPath;
+  // Guards the module and index caches below, which are access ordered, so even a lookup modifies
+  // them. The server only runs one analysis at a time, but the caches do not rely on it.
+  private final Object moduleLock = new Object();
+  private final Map<Path, DelphiLintModuleFileSystem> moduleFileSystems =
+      new LinkedHashMap<>(MAX_MODULES, 0.75f, true);
+  private final Map<Path, SourceFileIndex> sourceFileIndexes =
+      new LinkedHashMap<>(MAX_MODULES, 0.75f, true);
+  private SourceFileIndex standardLibraryIndex;
+  private boolean standardLibraryIndexed;
 
   public AnalysisOrchestrator(EngineStartupConfiguration startupConfig) {
+    this(startupConfig, null, 1);
+  }
+
+  /**
+   * @param startupConfig the configuration to start the analysis engine with.
+   * @param analysisCache the cache to serve the issues of unchanged files from, or null if every
+   *     file should be analyzed.
+   * @param analysisThreads the maximum number of threads to split a large analysis across. An
+   *     analysis that is split across threads does not use the long-lived module container of its
+   *     base directory.
+   */
+  public AnalysisOrchestrator(
+      EngineStartupConfiguration startupConfig,
+      @Nullable AnalysisCache analysisCache,
+      int analysisThreads) {
+    this.analysisCache = analysisCache;
+    this.analysisThreads = Math.max(1, analysisThreads);
+    this.bdsPath = startupConfig.getBdsPath();
+
     var engineConfig =
         AnalysisEngineConfiguration.builder()
             .setWorkDir(Path.of(System.getProperty("java.io.tmpdir")))
@@ -60,47 +117,93 @@ public class AnalysisOrchestrator implements AutoCloseable {
         new PluginsLoader.Configuration(startupConfig.getPluginPaths(), Set.of(Language.DELPHI));
     PluginsLoadResult pluginsLoadResult = new PluginsLoader().load(pluginsConfig);
     loadedPlugins = pluginsLoadResult.getLoadedPlugins();
+    pluginRules = new PluginRules(loadedPlugins);
+    engineHash = hashEngine(startupConfig, pluginsLoadResult);
 
     globalContainer = new GlobalAnalysisContainer(engineConfig, loadedPlugins);
     globalContainer.startComponents();
     LOG.info("Analysis engine started");
   }
 
-  private static AnalysisConfiguration buildConfiguration(
-      Path baseDir, Set<Path> inputFiles, SonarHost connection, Map<String, String> properties)
-      throws SonarHostException {
+  private static String hashEngine(
+      EngineStartupConfiguration startupConfig, PluginsLoadResult pluginsLoadResult) {
+    List<String> values = new ArrayList<>();
+    values.add(CACHE_FORMAT_VERSION);
+    new TreeMap<>(startupConfig.getBaseProperties())
+        .forEach((key, value) -> values.add(key + "=" + value));
+    new TreeMap<>(pluginsLoadResult.getPluginCheckResultByKeys())
+        .forEach(
+            (key, result) -> {
+              if (!result.isSkipped()) {
+                values.add(key + ":" + result.getPlugin().getVersion());
+              }
+            });
+    return IncrementalAnalysis.hash(values.toArray(String[]::new));
+  }
+
+  private String hashConfiguration(
+      Path baseDir, Map<String, String> properties, Set<ActiveRule> activeRules) {
+    List<String> values = new ArrayList<>();
+    values.add(engineHash);
+    values.add(baseDir.toString());
+    new TreeMap<>(properties).forEach((key, value) -> values.add(key + "=" + value));
+    activeRules.stream()
+        .sorted(Comparator.comparing(ActiveRule::getRuleKey))
+        .forEach(
+            rule -> {
+              values.add(rule.getRuleKey() + ":" + rule.getTemplateRuleKey());
+              new TreeMap<>(rule.getParams())
+                  .forEach((key, value) -> values.add(key + "=" + value));
+            });
+    return IncrementalAnalysis.hash(values.toArray(String[]::new));
+  }
+
+  private static List<DelphiLintInputFile> getInputFiles(
+      Path baseDir,
+      Set<Path> inputFiles,
+      Map<String, String> properties,
+      AnalysisProgressMonitor progressMonitor) {
     var charsetDetector = new DelphiCharsetDetector(getConfiguredCharset(properties));
 
+    return inputFiles.stream()
+        .map(
+            possiblyAbsolutePath -> {
+              if (possiblyAbsolutePath.isAbsolute()) {
+                return baseDir.relativize(possiblyAbsolutePath);
+              } else {
+                return possiblyAbsolutePath;
+              }
+            })
+        .map(
+            relativePath ->
+                new DelphiLintInputFile(
+                    baseDir,
+                    relativePath,
+                    charsetDetector.detectCharset(baseDir.resolve(relativePath)),
+                    progressMonitor::fileRead))
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  private static Set<ActiveRule> getActiveRules(SonarHost connection) throws SonarHostException {
+    return connection.getActiveRules().stream()
+        .filter(rule -> !RuleUtils.isIncompatible(rule.getRuleKey()))
+        .map(RemoteActiveRule::toSonarLintActiveRule)
+        .collect(Collectors.toSet());
+  }
+
+  private static AnalysisConfiguration buildConfiguration(
+      Path baseDir,
+      List<DelphiLintInputFile> inputFiles,
+      Set<ActiveRule> activeRules,
+      Map<String, String> properties) {
     var configBuilder =
         AnalysisConfiguration.builder()
             .setBaseDir(baseDir)
             .putAllExtraProperties(properties)
-            .addInputFiles(
-                inputFiles.stream()
-                    .map(
-                        possiblyAbsolutePath -> {
-                          if (possiblyAbsolutePath.isAbsolute()) {
-                            return baseDir.relativize(possiblyAbsolutePath);
-                          } else {
-                            return possiblyAbsolutePath;
-                          }
-                        })
-                    .map(
-                        relativePath ->
-                            new DelphiLintInputFile(
-                                baseDir,
-                                relativePath,
-                                charsetDetector.detectCharset(baseDir.resolve(relativePath))))
-                    .collect(Collectors.toUnmodifiableList()));
+            .addInputFiles(inputFiles)
+            .addActiveRules(activeRules);
 
     LOG.info("Added {} extra properties", properties.size());
-
-    Set<ActiveRule> activeRules =
-        connection.getActiveRules().stream()
-            .filter(rule -> !RuleUtils.isIncompatible(rule.getRuleKey()))
-            .map(RemoteActiveRule::toSonarLintActiveRule)
-            .collect(Collectors.toSet());
-    configBuilder.addActiveRules(activeRules);
     LOG.info("Added {} active rules", activeRules.size());
 
     return configBuilder.build();
@@ -131,31 +234,78 @@ public class AnalysisOrchestrator implements AutoCloseable {
   public Set<DelphiIssue> runAnalysis(
       Path baseDir,
       Set<Path> inputFiles,
-      ClientProgressMonitor progressMonitor,
+      @Nullable AnalysisProgressMonitor progressMonitor,
       SonarHost host,
       Map<String, String> properties)
       throws SonarHostException {
-    LOG.info("About to analyze {} files", inputFiles.size());
-    AnalysisConfiguration config = buildConfiguration(baseDir, inputFiles, host, properties);
+    return runAnalysis(baseDir, inputFiles, progressMonitor, host, properties, null);
+  }
 
-    Set<Issue> issues = new HashSet<>();
+  /**
+   * Runs an analysis, optionally passing on the issues for each file as soon as the analysis has
+   * moved on from it.
+   *
+   * <p>If the progress monitor is cancelled, the analysis stops at the next opportunity by throwing
+   * a {@link CanceledException}.
+   *
+   * <p>Analyses of the same base directory share a long-lived module container, which is kept until
+   * the orchestrator is closed or eight other base directories have been analyzed more recently. An
+   * analysis that is split across several threads instead runs each thread in a transient module
+   * container, so it neither reuses nor updates the long-lived one. A later single threaded
+   * analysis of the same base directory notifies the long-lived container of every change since it
+   * was last used.
+   *
+   * @param progressMonitor the monitor to report progress to and poll for cancellation, or null.
+   * @param partialResultConsumer a callback to receive post-processed issues while the analysis is
+   *     in progress, or null if all issues should be returned at the end of the analysis.
+   * @return the post-processed issues that were not passed to the partial result consumer.
+   * @throws SonarHostException if an error occurs during communication with the host.
+   */
+  public Set<DelphiIssue> runAnalysis(
+      Path baseDir,
+      Set<Path> inputFiles,
+      @Nullable AnalysisProgressMonitor progressMonitor,
+      SonarHost host,
+      Map<String, String> properties,
+      @Nullable Consumer<Set<DelphiIssue>> partialResultConsumer)
+      throws SonarHostException {
+    if (progressMonitor == null) {
+      progressMonitor = new AnalysisProgressMonitor();
+    }
 
-    ModuleContainer moduleContainer =
-        globalContainer.getModuleRegistry().createTransientContainer(config.inputFiles());
-    try {
-      LOG.info("Starting analysis");
-      moduleContainer.analyze(config, issues::add, new ProgressMonitor(progressMonitor));
-    } finally {
-      moduleContainer.stopComponents();
+    var monitor = new ProgressMonitor(progressMonitor);
+    monitor.checkCancel();
+
+    LOG.info("About to analyze {} files", inputFiles.size());
+    progressMonitor.startPhase(AnalysisPhase.CONFIGURING);
+    List<DelphiLintInputFile> allInputFiles =
+        getInputFiles(baseDir, inputFiles, properties, progressMonitor);
+    Set<ActiveRule> activeRules = getActiveRules(host);
+
+    IncrementalAnalysis incrementalAnalysis = null;
+    List<DelphiLintInputFile> filesToAnalyze = allInputFiles;
+    if (analysisCache != null) {
+      incrementalAnalysis =
+          new IncrementalAnalysis(
+              analysisCache,
+              hashConfiguration(baseDir, properties, activeRules),
+              allInputFiles,
+              getDependencyHasher(baseDir, properties, allInputFiles));
+      filesToAnalyze =
+          incrementalAnalysis.isEngineRequired()
+              ? incrementalAnalysis.getFilesToAnalyze()
+              : Collections.emptyList();
+      LOG.info(
+          "Issues for {} unchanged files were found in the analysis cache",
+          incrementalAnalysis.getCachedFileCount());
     }
 
-    LOG.info("Analysis finished");
+    progressMonitor.setTotalFiles(filesToAnalyze.size());
+    AnalysisConfiguration config =
+        buildConfiguration(baseDir, filesToAnalyze, activeRules, properties);
 
-    Set<String> fileRelativePaths = new HashSet<>();
-    config
-        .inputFiles()
-        .iterator()
-        .forEachRemaining(file -> fileRelativePaths.add(file.relativePath()));
+    Set<String> fileRelativePaths =
+        allInputFiles.stream().map(DelphiLintInputFile::relativePath).collect(Collectors.toSet());
 
     Set<String> testFileRelativePaths;
     if (properties.containsKey("sonar.tests")) {
@@ -167,17 +317,353 @@ public class AnalysisOrchestrator implements AutoCloseable {
       testFileRelativePaths = null;
     }
 
-    return SonarServerUtils.postProcessIssues(
-        fileRelativePaths, testFileRelativePaths, issues, host);
+    var issueCollector =
+        new IssueCollector(
+            new IssuePostProcessor(fileRelativePaths, testFileRelativePaths, host),
+            monitor,
+            partialResultConsumer);
+
+    Consumer<Issue> issueListener = issueCollector;
+    if (incrementalAnalysis != null) {
+      incrementalAnalysis.getCachedIssues().forEach(issueCollector);
+      issueListener = incrementalAnalysis.recordingTo(issueCollector);
+    }
+
+    monitor.checkCancel();
+
+    if (filesToAnalyze.isEmpty()) {
+      LOG.info("No files need to be analyzed");
+    } else {
+      List<List<DelphiLintInputFile>> partitions = partition(filesToAnalyze, analysisThreads);
+      progressMonitor.startPhase(AnalysisPhase.ANALYZING);
+      if (partitions.size() == 1) {
+        LOG.info("Starting analysis");
+        getModuleContainer(baseDir, filesToAnalyze).analyze(config, issueListener, monitor);
+      } else {
+        LOG.info("Starting analysis on {} threads", partitions.size());
+        analyzeInParallel(baseDir, partitions, activeRules, properties, issueListener, monitor);
+      }
+
+      LOG.info("Analysis finished");
+      monitor.checkCancel();
+
+      if (incrementalAnalysis != null) {
+        incrementalAnalysis.store();
+      }
+    }
+
+    try {
+      return issueCollector.finish(progressMonitor);
+    } finally {
+      progressMonitor.finish();
+    }
+  }
+
+  /**
+   * Splits the files to analyze into one partition per worker thread, balanced by file size. Files
+   * other than Delphi source files (such as project files) configure the analysis as a whole, so
+   * they are included in every partition.
+   */
+  static List<List<DelphiLintInputFile>> partition(
+      List<DelphiLintInputFile> inputFiles, int analysisThreads) {
+    List<DelphiLintInputFile> sourceFiles = new ArrayList<>();
+    List<DelphiLintInputFile> otherFiles = new ArrayList<>();
+    for (DelphiLintInputFile inputFile : inputFiles) {
+      (inputFile.isSourceFile() ? sourceFiles : otherFiles).add(inputFile);
+    }
+
+    int workers = Math.min(analysisThreads, sourceFiles.size() / MIN_FILES_PER_WORKER);
+    if (workers <= 1) {
+      return List.of(inputFiles);
+    }
+
+    Map<DelphiLintInputFile, Long> sizes = new HashMap<>();
+    sourceFiles.forEach(file -> sizes.put(file, getSize(file)));
+    sourceFiles.sort(Comparator.comparing(sizes::get).reversed());
+
+    List<List<DelphiLintInputFile>> partitions = new ArrayList<>();
+    long[] partitionSizes = new long[workers];
+    for (int i = 0; i < workers; i++) {
+      partitions.add(new ArrayList<>(otherFiles));
+    }
+
+    for (DelphiLintInputFile sourceFile : sourceFiles) {
+      int smallest = 0;
+      for (int i = 1; i < workers; i++) {
+        if (partitionSizes[i] < partitionSizes[smallest]) {
+          smallest = i;
+        }
+      }
+      partitions.get(smallest).add(sourceFile);
+      partitionSizes[smallest] += sizes.get(sourceFile);
+    }
+
+    return partitions;
+  }
+
+  private static long getSize(DelphiLintInputFile inputFile) {
+    try {
+      return Files.size(Path.of(inputFile.uri()));
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Analyzes each partition in its own transient module container on its own thread. Each engine
+   * run builds its own symbol table, so no analysis state is shared between the threads.
+   *
+   * <p>The issues for a file are passed on together, so the issue listener sees the same file by
+   * file sequence as it does in a single threaded analysis. Every partition includes the files
+   * other than Delphi source files, so the issues on them and on the project as a whole are only
+   * passed on from the first partition.
+   */
+  private void analyzeInParallel(
+      Path baseDir,
+      List<List<DelphiLintInputFile>> partitions,
+      Set<ActiveRule> activeRules,
+      Map<String, String> properties,
+      Consumer<Issue> issueListener,
+      ProgressMonitor monitor) {
+    ModuleRegistry moduleRegistry = globalContainer.getModuleRegistry();
+    List<ModuleContainer> moduleContainers = new ArrayList<>();
+    List<Future<?>> futures = new ArrayList<>();
+    var workerCount = new AtomicInteger();
+    // Worker threads are created by this thread as tasks are submitted, so they inherit its
+    // SonarLint log target
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            partitions.size(),
+            runnable -> {
+              var thread =
+                  new Thread(runnable, "delphilint-analysis-" + workerCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    try {
+      for (int i = 0; i < partitions.size(); i++) {
+        List<DelphiLintInputFile> partition = partitions.get(i);
+        AnalysisConfiguration config =
+            buildConfiguration(baseDir, partition, activeRules, properties);
+        // Containers are created and stopped on this thread, as the parent container's list of
+        // children is not thread safe
+        ModuleContainer moduleContainer =
+            moduleRegistry.createTransientContainer(config.inputFiles());
+        moduleContainers.add(moduleContainer);
+
+        var fileBatcher = new FileBatchingIssueListener(issueListener, i == 0);
+        futures.add(
+            executor.submit(
+                () -> {
+                  moduleContainer.analyze(config, fileBatcher, monitor);
+                  fileBatcher.flush();
+                }));
+      }
+
+      awaitAll(futures);
+    } finally {
+      executor.shutdownNow();
+      moduleContainers.forEach(ModuleContainer::stopComponents);
+    }
+  }
+
+  private static void awaitAll(List<Future<?>> futures) {
+    RuntimeException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure =
+              e.getCause() instanceof RuntimeException
+                  ? (RuntimeException) e.getCause()
+                  : new IllegalStateException(e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CanceledException();
+      }
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Builds a dependency hasher from the source file index of the base directory, which is kept
+   * between analyses of the same project and refreshed on each analysis, and from the index of the
+   * standard library, which is built once per engine.
+   */
+  private DependencyHasher getDependencyHasher(
+      Path baseDir, Map<String, String> properties, List<DelphiLintInputFile> inputFiles) {
+    synchronized (moduleLock) {
+      SourceFileIndex sourceFiles = sourceFileIndexes.get(baseDir);
+      if (sourceFiles == null) {
+        if (sourceFileIndexes.size() >= MAX_MODULES) {
+          sourceFileIndexes.remove(sourceFileIndexes.keySet().iterator().next());
+        }
+        sourceFiles = new SourceFileIndex(baseDir);
+        sourceFileIndexes.put(baseDir, sourceFiles);
+      }
+      sourceFiles.refresh();
+
+      if (!standardLibraryIndexed) {
+        standardLibraryIndex = indexStandardLibrary();
+        standardLibraryIndexed = true;
+      }
+
+      return new DependencyHasher(
+          baseDir,
+          sourceFiles,
+          DelphiSearchPath.of(baseDir, properties, inputFiles, bdsPath),
+          standardLibraryIndex);
+    }
+  }
+
+  @Nullable
+  private SourceFileIndex indexStandardLibrary() {
+    try {
+      Path standardLibraryPath = Path.of(bdsPath, "source");
+      if (!bdsPath.isEmpty() && Files.isDirectory(standardLibraryPath)) {
+        LOG.info("Indexing standard library in {}", standardLibraryPath);
+        var index = new SourceFileIndex(standardLibraryPath);
+        index.refresh();
+        return index;
+      }
+    } catch (InvalidPathException e) {
+      LOG.debug(e);
+    }
+
+    LOG.warn("Standard library not found, dependencies will not be checked for resolution");
+    return null;
+  }
+
+  /**
+   * Gets the long-lived module container for a base directory, so that module level state is kept
+   * between analyses of the same project. The module is notified of any files that have been
+   * created, modified or deleted since its last analysis.
+   */
+  private ModuleContainer getModuleContainer(Path baseDir, List<DelphiLintInputFile> inputFiles) {
+    synchronized (moduleLock) {
+      return doGetModuleContainer(baseDir, inputFiles);
+    }
+  }
+
+  private ModuleContainer doGetModuleContainer(Path baseDir, List<DelphiLintInputFile> inputFiles) {
+    ModuleRegistry moduleRegistry = globalContainer.getModuleRegistry();
+    DelphiLintModuleFileSystem fileSystem = moduleFileSystems.get(baseDir);
+
+    if (fileSystem == null) {
+      if (moduleFileSystems.size() >= MAX_MODULES) {
+        Path eldest = moduleFileSystems.keySet().iterator().next();
+        moduleFileSystems.remove(eldest);
+        moduleRegistry.unregisterModule(eldest);
+        LOG.info("Stopped analysis module for {}", eldest);
+      }
+
+      fileSystem = new DelphiLintModuleFileSystem(baseDir);
+      fileSystem.update(inputFiles);
+      moduleFileSystems.put(baseDir, fileSystem);
+      LOG.info("Starting analysis module for {}", baseDir);
+      return moduleRegistry.registerModule(new ClientModuleInfo(baseDir, fileSystem));
+    }
+
+    ModuleContainer moduleContainer = moduleRegistry.getContainerFor(baseDir);
+    List<ClientModuleFileEvent> events = fileSystem.update(inputFiles);
+    if (!events.isEmpty()) {
+      LOG.info("Notifying analysis module of {} file changes", events.size());
+      var notifier = moduleContainer.getComponentByType(ModuleFileEventNotifier.class);
+      events.forEach(notifier::fireModuleFileEvent);
+    }
+    return moduleContainer;
   }
 
   public LoadedPlugins getLoadedPlugins() {
     return loadedPlugins;
   }
 
+  /**
+   * @return the rules defined by the engine's plugins, which are extracted on first use and shared
+   *     by all standalone hosts for this engine.
+   */
+  public PluginRules getPluginRules() {
+    return pluginRules;
+  }
+
   @Override
   public void close() {
     globalContainer.stopComponents();
+    try {
+      // Releases the plugin class loaders, and with them the plugin jars
+      loadedPlugins.close();
+    } catch (IOException e) {
+      LOG.warn("Could not close plugins", e);
+    }
     LOG.info("Analysis engine closed");
   }
+
+  /**
+   * Collects raw issues from the analysis engine. If there is a partial result consumer, the issues
+   * for a file are post-processed and passed on as soon as the engine raises an issue on a
+   * different file.
+   *
+   * <p>Exceptions thrown from an issue listener are swallowed by the engine as sensor errors, so a
+   * host error while streaming stops streaming and is rethrown once the analysis has finished.
+   */
+  private static class IssueCollector implements Consumer<Issue> {
+    private final IssuePostProcessor postProcessor;
+    private final ProgressMonitor progressMonitor;
+    private final Consumer<Set<DelphiIssue>> partialResultConsumer;
+    private final List<Issue> pendingIssues = new ArrayList<>();
+    private String pendingFile;
+    private SonarHostException streamingError;
+
+    public IssueCollector(
+        IssuePostProcessor postProcessor,
+        ProgressMonitor progressMonitor,
+        @Nullable Consumer<Set<DelphiIssue>> partialResultConsumer) {
+      this.postProcessor = postProcessor;
+      this.progressMonitor = progressMonitor;
+      this.partialResultConsumer = partialResultConsumer;
+    }
+
+    @Override
+    public void accept(Issue issue) {
+      if (partialResultConsumer != null
+          && streamingError == null
+          && !progressMonitor.isCanceled()) {
+        String file = issue.getInputFile() == null ? "" : issue.getInputFile().relativePath();
+        if (!pendingIssues.isEmpty() && !file.equals(pendingFile)) {
+          flushPendingIssues();
+        }
+        pendingFile = file;
+      }
+
+      pendingIssues.add(issue);
+    }
+
+    private void flushPendingIssues() {
+      try {
+        partialResultConsumer.accept(postProcessor.process(pendingIssues));
+        pendingIssues.clear();
+      } catch (SonarHostException e) {
+        LOG.warn("Could not post process partial result, no further results will be streamed", e);
+        streamingError = e;
+      }
+    }
+
+    public Set<DelphiIssue> finish(AnalysisProgressMonitor analysisProgressMonitor)
+        throws SonarHostException {
+      if (streamingError != null) {
+        throw streamingError;
+      }
+
+      analysisProgressMonitor.startPhase(AnalysisPhase.FETCHING_REMOTE_ISSUES);
+      postProcessor.retrieveHostData();
+      analysisProgressMonitor.startPhase(AnalysisPhase.TRACKING);
+      return postProcessor.process(pendingIssues);
+    }
+  }
 }
@@ -0,0 +1,50 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+/** A snapshot of the progress of an analysis. */
+public class AnalysisProgress {
+  private final AnalysisPhase phase;
+  private final int filesParsed;
+  private final int totalFiles;
+  private final long elapsedMillis;
+
+  public AnalysisProgress(
+      AnalysisPhase phase, int filesParsed, int totalFiles, long elapsedMillis) {
+    this.phase = phase;
+    this.filesParsed = filesParsed;
+    this.totalFiles = totalFiles;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public AnalysisPhase getPhase() {
+    return phase;
+  }
+
+  public int getFilesParsed() {
+    return filesParsed;
+  }
+
+  public int getFilesRemaining() {
+    return Math.max(0, totalFiles - filesParsed);
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+import org.sonarsource.sonarlint.core.commons.progress.ClientProgressMonitor;
+
+/**
+ * A progress monitor for a single analysis that can be cancelled from another thread, and that
+ * reports the progress of the analysis to an optional listener.
+ *
+ * <p>Cancellation is cooperative - the analysis engine polls {@link #isCanceled()} between sensors
+ * (and sensors may poll it themselves), and the orchestrator polls it between its own phases.
+ *
+ * <p>The analysis engine does not report its own progress, so a file is counted as parsed once the
+ * engine first reads its contents. Progress within a phase is reported at most once every {@value
+ * #MIN_REPORT_INTERVAL_MILLIS} ms, while phase changes are always reported.
+ */
+public class AnalysisProgressMonitor implements ClientProgressMonitor {
+  private static final Logger LOG = LogManager.getLogger(AnalysisProgressMonitor.class);
+  private static final long MIN_REPORT_INTERVAL_MILLIS = 250;
+  private final Consumer<AnalysisProgress> progressListener;
+  private final Set<String> parsedFiles = ConcurrentHashMap.newKeySet();
+  private volatile boolean canceled;
+  private long startNanos;
+  private long phaseStartNanos;
+  private long lastReportNanos;
+  private AnalysisPhase phase;
+  private int totalFiles;
+
+  public AnalysisProgressMonitor() {
+    this(null);
+  }
+
+  public AnalysisProgressMonitor(@Nullable Consumer<AnalysisProgress> progressListener) {
+    this.progressListener = progressListener;
+    startNanos = System.nanoTime();
+  }
+
+  /** Requests that the analysis stop at the next opportunity. */
+  public void cancel() {
+    canceled = true;
+  }
+
+  @Override
+  public boolean isCanceled() {
+    return canceled;
+  }
+
+  public synchronized void startPhase(AnalysisPhase newPhase) {
+    long now = System.nanoTime();
+    logPhaseDuration(now);
+
+    if (phase == null) {
+      startNanos = now;
+    }
+
+    phase = newPhase;
+    phaseStartNanos = now;
+    report(now);
+  }
+
+  public synchronized void setTotalFiles(int totalFiles) {
+    this.totalFiles = totalFiles;
+  }
+
+  public void fileRead(DelphiLintInputFile file) {
+    if (parsedFiles.add(file.relativePath())) {
+      synchronized (this) {
+        long now = System.nanoTime();
+        if (now - lastReportNanos >= TimeUnit.MILLISECONDS.toNanos(MIN_REPORT_INTERVAL_MILLIS)) {
+          report(now);
+        }
+      }
+    }
+  }
+
+  /** Marks the end of the final phase of the analysis. */
+  public synchronized void finish() {
+    logPhaseDuration(System.nanoTime());
+    phase = null;
+  }
+
+  private void logPhaseDuration(long now) {
+    if (phase != null) {
+      LOG.info(
+          "Analysis phase {} took {} ms",
+          phase,
+          TimeUnit.NANOSECONDS.toMillis(now - phaseStartNanos));
+    }
+  }
+
+  private void report(long now) {
+    lastReportNanos = now;
+    if (phase != null) {
+      publish(
+          new AnalysisProgress(
+              phase,
+              parsedFiles.size(),
+              totalFiles,
+              TimeUnit.NANOSECONDS.toMillis(now - startNanos)));
+    }
+  }
+
+  /**
+   * Passes progress to the listener of this monitor. This allows progress that is tracked by
+   * another monitor to be reported through this one.
+   *
+   * @param progress the progress to report.
+   */
+  public void publish(AnalysisProgress progress) {
+    if (progressListener != null) {
+      progressListener.accept(progress);
+    }
+  }
+
+  @Override
+  public void setMessage(String message) {
+    // Engine progress messages are not reported
+  }
+
+  @Override
+  public void setFraction(float fraction) {
+    // Engine progress fractions are not reported
+  }
+
+  @Override
+  public void setIndeterminate(boolean indeterminate) {
+    // Engine progress fractions are not reported
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.sonarsource.sonarlint.core.analysis.api.ClientInputFile;
+import org.sonarsource.sonarlint.core.analysis.api.ClientInputFileEdit;
+import org.sonarsource.sonarlint.core.analysis.api.Issue;
+import org.sonarsource.sonarlint.core.analysis.api.QuickFix;
+import org.sonarsource.sonarlint.core.analysis.api.TextEdit;
+import org.sonarsource.sonarlint.core.commons.ImpactSeverity;
+import org.sonarsource.sonarlint.core.commons.SoftwareQuality;
+
+/**
+ * A serializable copy of a raw issue raised by the analysis engine, before any post processing.
+ *
+ * <p>Issue flows are not retained, as they are not used by DelphiLint.
+ */
+public class CachedIssue {
+  @JsonProperty private String ruleKey;
+  @JsonProperty private String message;
+  @JsonProperty private TextRange range;
+  @JsonProperty private Map<SoftwareQuality, ImpactSeverity> overriddenImpacts;
+  @JsonProperty private List<CachedQuickFix> quickFixes;
+  @JsonProperty private String ruleDescriptionContextKey;
+
+  private CachedIssue() {
+    // Deserialization constructor
+  }
+
+  public CachedIssue(Issue issue) {
+    ruleKey = issue.getRuleKey();
+    message = issue.getMessage();
+    range = issue.getTextRange() == null ? null : new TextRange(issue.getTextRange());
+    overriddenImpacts = issue.getOverriddenImpacts();
+    quickFixes = issue.quickFixes().stream().map(CachedQuickFix::new).collect(Collectors.toList());
+    ruleDescriptionContextKey = issue.getRuleDescriptionContextKey().orElse(null);
+  }
+
+  public String getRuleKey() {
+    return ruleKey;
+  }
+
+  /**
+   * Recreates the raw issue on an input file.
+   *
+   * @param inputFile the file the issue was raised on, or null for a project level issue.
+   * @return the raw issue.
+   */
+  public Issue toIssue(ClientInputFile inputFile) {
+    return new Issue(
+        ruleKey,
+        message,
+        overriddenImpacts == null ? Collections.emptyMap() : overriddenImpacts,
+        toSonarLintTextRange(range),
+        inputFile,
+        Collections.emptyList(),
+        quickFixes == null
+            ? Collections.emptyList()
+            : quickFixes.stream()
+                .map(quickFix -> quickFix.toQuickFix(inputFile))
+                .collect(Collectors.toList()),
+        Optional.ofNullable(ruleDescriptionContextKey));
+  }
+
+  private static org.sonarsource.sonarlint.core.commons.TextRange toSonarLintTextRange(
+      TextRange textRange) {
+    if (textRange == null) {
+      return null;
+    }
+
+    return new org.sonarsource.sonarlint.core.commons.TextRange(
+        textRange.getStartLine(),
+        textRange.getStartOffset(),
+        textRange.getEndLine(),
+        textRange.getEndOffset());
+  }
+
+  private static class CachedQuickFix {
+    @JsonProperty private String message;
+    @JsonProperty private List<CachedTextEdit> textEdits;
+
+    private CachedQuickFix() {
+      // Deserialization constructor
+    }
+
+    public CachedQuickFix(QuickFix quickFix) {
+      message = quickFix.message();
+      textEdits =
+          quickFix.inputFileEdits().stream()
+              .flatMap(fileEdit -> fileEdit.textEdits().stream())
+              .map(CachedTextEdit::new)
+              .collect(Collectors.toList());
+    }
+
+    public QuickFix toQuickFix(ClientInputFile inputFile) {
+      List<TextEdit> edits =
+          textEdits.stream().map(CachedTextEdit::toTextEdit).collect(Collectors.toList());
+      return new QuickFix(List.of(new ClientInputFileEdit(inputFile, edits)), message);
+    }
+  }
+
+  private static class CachedTextEdit {
+    @JsonProperty private TextRange range;
+    @JsonProperty private String newText;
+
+    private CachedTextEdit() {
+      // Deserialization constructor
+    }
+
+    public CachedTextEdit(TextEdit textEdit) {
+      range = new TextRange(textEdit.range());
+      newText = textEdit.newText();
+    }
+
+    public TextEdit toTextEdit() {
+      return new TextEdit(toSonarLintTextRange(range), newText);
+    }
+  }
+}
@@ -24,20 +24,38 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BOMInputStream;
+import org.jetbrains.annotations.Nullable;
 import org.sonarsource.sonarlint.core.analysis.api.ClientInputFile;
 
 public class DelphiLintInputFile implements ClientInputFile {
+  private static final Set<String> SOURCE_FILE_EXTENSIONS = Set.of("pas", "dpr", "dpk");
   private final Path baseDir;
   private final Path relativePath;
   private final Charset charset;
+  private final Consumer<DelphiLintInputFile> readListener;
 
   public DelphiLintInputFile(Path baseDir, Path relativePath, Charset charset) {
+    this(baseDir, relativePath, charset, null);
+  }
+
+  /**
+   * @param readListener a callback that is notified each time the contents of the file are read.
+   */
+  public DelphiLintInputFile(
+      Path baseDir,
+      Path relativePath,
+      Charset charset,
+      @Nullable Consumer<DelphiLintInputFile> readListener) {
     this.baseDir = baseDir;
     this.relativePath = relativePath;
     this.charset = charset;
+    this.readListener = readListener;
   }
 
   /**
@@ -69,6 +87,10 @@ public class DelphiLintInputFile implements ClientInputFile {
 
   @Override
   public InputStream inputStream() throws IOException {
+    if (readListener != null) {
+      readListener.accept(this);
+    }
+
     return new BOMInputStream(
         new FileInputStream(baseDir.resolve(relativePath).toString()),
         ByteOrderMark.UTF_8,
@@ -90,6 +112,15 @@ public class DelphiLintInputFile implements ClientInputFile {
     return relativePath.toString().replace(FileSystems.getDefault().getSeparator(), "/");
   }
 
+  /**
+   * @return true if this is a Delphi source file, rather than (for example) a project file.
+   */
+  public boolean isSourceFile() {
+    String path = relativePath();
+    String extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    return SOURCE_FILE_EXTENSIONS.contains(extension);
+  }
+
   @Override
   public URI uri() {
     return baseDir.resolve(relativePath).toUri();
@@ -0,0 +1,166 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.analysis.api.ClientInputFile;
+import org.sonarsource.sonarlint.core.analysis.api.ClientModuleFileEvent;
+import org.sonarsource.sonarlint.core.analysis.api.ClientModuleFileSystem;
+import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileEvent;
+
+/**
+ * The file system of a long-lived analysis module, made up of every file that has been analyzed in
+ * its base directory.
+ *
+ * <p>The file system does not watch for changes itself. Instead, it is updated with the input files
+ * of each analysis, and reports which files have been created, modified or deleted since the last
+ * update so that the module can be notified.
+ */
+class DelphiLintModuleFileSystem implements ClientModuleFileSystem {
+  private final Path baseDir;
+  private final Map<String, TrackedFile> files = new ConcurrentHashMap<>();
+
+  public DelphiLintModuleFileSystem(Path baseDir) {
+    this.baseDir = baseDir;
+  }
+
+  @Override
+  public Stream<ClientInputFile> files(String suffix, InputFile.Type type) {
+    return files()
+        .filter(file -> file.relativePath().endsWith(suffix))
+        .filter(file -> file.isTest() == (type == InputFile.Type.TEST));
+  }
+
+  @Override
+  public Stream<ClientInputFile> files() {
+    return files.values().stream().map(TrackedFile::getInputFile);
+  }
+
+  /**
+   * Adds the input files of an analysis to the file system, and checks every known file for
+   * changes.
+   *
+   * @param inputFiles the input files of the analysis.
+   * @return the changes to the file system since the last update.
+   */
+  public List<ClientModuleFileEvent> update(Collection<DelphiLintInputFile> inputFiles) {
+    List<ClientModuleFileEvent> events = new ArrayList<>();
+
+    Iterator<TrackedFile> iterator = files.values().iterator();
+    while (iterator.hasNext()) {
+      TrackedFile file = iterator.next();
+      FileStamp stamp = FileStamp.of(file.getPath());
+      if (stamp == null) {
+        iterator.remove();
+        events.add(ClientModuleFileEvent.of(file.getInputFile(), ModuleFileEvent.Type.DELETED));
+      } else if (!stamp.equals(file.getStamp())) {
+        file.setStamp(stamp);
+        events.add(ClientModuleFileEvent.of(file.getInputFile(), ModuleFileEvent.Type.MODIFIED));
+      }
+    }
+
+    for (DelphiLintInputFile inputFile : inputFiles) {
+      if (!files.containsKey(inputFile.relativePath())) {
+        // A copy without the read listener, which belongs to a single analysis
+        var trackedFile =
+            new TrackedFile(
+                new DelphiLintInputFile(
+                    baseDir, Path.of(inputFile.relativePath()), inputFile.getCharset()));
+        files.put(inputFile.relativePath(), trackedFile);
+        events.add(
+            ClientModuleFileEvent.of(trackedFile.getInputFile(), ModuleFileEvent.Type.CREATED));
+      }
+    }
+
+    return events;
+  }
+
+  private static class TrackedFile {
+    private final DelphiLintInputFile inputFile;
+    private FileStamp stamp;
+
+    public TrackedFile(DelphiLintInputFile inputFile) {
+      this.inputFile = inputFile;
+      this.stamp = FileStamp.of(getPath());
+    }
+
+    public DelphiLintInputFile getInputFile() {
+      return inputFile;
+    }
+
+    public Path getPath() {
+      return Path.of(inputFile.uri());
+    }
+
+    public FileStamp getStamp() {
+      return stamp;
+    }
+
+    public void setStamp(FileStamp stamp) {
+      this.stamp = stamp;
+    }
+  }
+
+  private static class FileStamp {
+    private final long lastModified;
+    private final long size;
+
+    private FileStamp(long lastModified, long size) {
+      this.lastModified = lastModified;
+      this.size = size;
+    }
+
+    public static FileStamp of(Path path) {
+      try {
+        var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new FileStamp(attributes.lastModifiedTime().toMillis(), attributes.size());
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      FileStamp fileStamp = (FileStamp) o;
+      return lastModified == fileStamp.lastModified && size == fileStamp.size;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(lastModified, size);
+    }
+  }
+}
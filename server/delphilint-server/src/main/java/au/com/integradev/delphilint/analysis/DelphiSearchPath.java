@@ -0,0 +1,123 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The directories that an analysis resolves units in, in addition to the directory of the using
+ * file and the standard library.
+ *
+ * <p>The search path is made up of the directories in the {@code sonar.delphi.search.path}
+ * property, followed by the unit search paths of any Delphi project files in the analysis. Project
+ * search path entries that refer to build variables other than {@code $(BDS)} cannot be resolved,
+ * and are left out.
+ */
+final class DelphiSearchPath {
+  private static final Logger LOG = LogManager.getLogger(DelphiSearchPath.class);
+  private static final String SEARCH_PATH_PROPERTY = "sonar.delphi.search.path";
+  private static final Pattern UNIT_SEARCH_PATH =
+      Pattern.compile("<DCC_UnitSearchPath>([^<]*)</DCC_UnitSearchPath>");
+  private static final Pattern BDS_VARIABLE =
+      Pattern.compile(Pattern.quote("$(BDS)"), Pattern.CASE_INSENSITIVE);
+
+  private DelphiSearchPath() {
+    // Utility class
+  }
+
+  /**
+   * @param baseDir the base directory of the analysis.
+   * @param properties the properties of the analysis.
+   * @param inputFiles the input files of the analysis.
+   * @param bdsPath the Delphi installation path, or an empty string if it is unknown.
+   * @return the existing directories on the search path, in search order.
+   */
+  public static List<Path> of(
+      Path baseDir,
+      Map<String, String> properties,
+      Collection<DelphiLintInputFile> inputFiles,
+      String bdsPath) {
+    Set<Path> directories = new LinkedHashSet<>();
+
+    String searchPath = properties.getOrDefault(SEARCH_PATH_PROPERTY, "");
+    for (String entry : searchPath.split(",")) {
+      addDirectory(baseDir, entry, directories);
+    }
+
+    for (DelphiLintInputFile inputFile : inputFiles) {
+      if (inputFile.relativePath().toLowerCase(Locale.ROOT).endsWith(".dproj")) {
+        Path projectFile = Path.of(inputFile.uri());
+        for (String entry : readUnitSearchPath(projectFile)) {
+          if (!bdsPath.isEmpty()) {
+            entry = BDS_VARIABLE.matcher(entry).replaceAll(Matcher.quoteReplacement(bdsPath));
+          }
+          if (!entry.contains("$(")) {
+            addDirectory(projectFile.getParent(), entry, directories);
+          }
+        }
+      }
+    }
+
+    return new ArrayList<>(directories);
+  }
+
+  private static List<String> readUnitSearchPath(Path projectFile) {
+    List<String> entries = new ArrayList<>();
+    try {
+      Matcher matcher =
+          UNIT_SEARCH_PATH.matcher(Files.readString(projectFile, StandardCharsets.UTF_8));
+      while (matcher.find()) {
+        entries.addAll(List.of(matcher.group(1).split(";")));
+      }
+    } catch (IOException e) {
+      LOG.debug("Could not read the unit search path of {}", projectFile, e);
+    }
+    return entries;
+  }
+
+  private static void addDirectory(Path parent, String entry, Set<Path> directories) {
+    String trimmed = entry.trim();
+    if (trimmed.isEmpty()) {
+      return;
+    }
+
+    try {
+      Path directory = parent.resolve(trimmed.replace('\\', '/')).normalize();
+      if (Files.isDirectory(directory)) {
+        directories.add(directory);
+      }
+    } catch (InvalidPathException e) {
+      LOG.debug("Ignoring invalid search path entry {}", trimmed, e);
+    }
+  }
+}
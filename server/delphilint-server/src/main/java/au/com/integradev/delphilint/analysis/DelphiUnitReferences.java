@@ -0,0 +1,275 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The units and include files that a Delphi source file refers to, found by a lightweight scan of
+ * its uses clauses and include directives.
+ *
+ * <p>The scan does not evaluate conditional compilation directives, so a unit that is only used
+ * under some conditions is always treated as a dependency.
+ *
+ * <p>The contains clause of a package lists units in the same way as a uses clause. As {@code
+ * contains} is not a reserved word, it is only treated as a clause in a package file whose first
+ * token is {@code package}, so that members named {@code Contains} in other files are not mistaken
+ * for one.
+ */
+class DelphiUnitReferences {
+  private static final Pattern INCLUDE_DIRECTIVE =
+      Pattern.compile("^\\{\\$(?:I|INCLUDE)\\s+'?([^'}]+?)'?\\s*}$", Pattern.CASE_INSENSITIVE);
+
+  private enum Section {
+    HEADER,
+    INTERFACE,
+    IMPLEMENTATION
+  }
+
+  private final String text;
+  private final boolean packageFile;
+  private int position;
+  private Section section = Section.HEADER;
+  private int interfaceStart = -1;
+  private int interfaceEnd = -1;
+  private final List<UnitReference> interfaceUnits = new ArrayList<>();
+  private final List<UnitReference> implementationUnits = new ArrayList<>();
+  private final List<String> interfaceIncludes = new ArrayList<>();
+  private final List<String> implementationIncludes = new ArrayList<>();
+
+  private DelphiUnitReferences(String text, boolean packageFile) {
+    this.text = text;
+    this.packageFile = packageFile;
+  }
+
+  public static DelphiUnitReferences scan(String text) {
+    return scan(text, false);
+  }
+
+  /**
+   * @param text the text of the file.
+   * @param packageFile whether the file is a package (.dpk), which may have a contains clause.
+   */
+  public static DelphiUnitReferences scan(String text, boolean packageFile) {
+    var references = new DelphiUnitReferences(text, packageFile);
+    references.scan();
+    return references;
+  }
+
+  /**
+   * @return the text of the interface section, or an empty string if the file is not a unit.
+   */
+  public String getInterfaceText() {
+    if (interfaceStart < 0) {
+      return "";
+    }
+    return text.substring(interfaceStart, interfaceEnd < 0 ? text.length() : interfaceEnd);
+  }
+
+  /**
+   * @return the units used by the interface section, which are visible to units that use this one.
+   */
+  public List<UnitReference> getInterfaceUnits() {
+    return Collections.unmodifiableList(interfaceUnits);
+  }
+
+  /**
+   * @return the units used outside of the interface section.
+   */
+  public List<UnitReference> getImplementationUnits() {
+    return Collections.unmodifiableList(implementationUnits);
+  }
+
+  public List<String> getInterfaceIncludes() {
+    return Collections.unmodifiableList(interfaceIncludes);
+  }
+
+  public List<String> getImplementationIncludes() {
+    return Collections.unmodifiableList(implementationIncludes);
+  }
+
+  private void scan() {
+    String token = nextToken();
+    boolean isPackage = packageFile && token != null && token.equalsIgnoreCase("package");
+
+    for (; token != null; token = nextToken()) {
+      switch (token.toLowerCase(Locale.ROOT)) {
+        case "interface":
+          if (section == Section.HEADER) {
+            section = Section.INTERFACE;
+            interfaceStart = position;
+          }
+          break;
+        case "implementation":
+          if (section != Section.IMPLEMENTATION) {
+            interfaceEnd = position - token.length();
+            section = Section.IMPLEMENTATION;
+          }
+          break;
+        case "uses":
+          scanUsesClause();
+          break;
+        case "contains":
+          if (isPackage) {
+            scanUsesClause();
+          }
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private void scanUsesClause() {
+    List<UnitReference> units = section == Section.INTERFACE ? interfaceUnits : implementationUnits;
+
+    String name = null;
+    String token;
+    while ((token = nextToken()) != null) {
+      if (token.equals(";") || token.equals(",")) {
+        if (name != null) {
+          units.add(new UnitReference(name, null));
+          name = null;
+        }
+        if (token.equals(";")) {
+          return;
+        }
+      } else if (token.equalsIgnoreCase("in") && name != null) {
+        String path = nextToken();
+        if (path != null && path.startsWith("'")) {
+          units.add(new UnitReference(name, path.substring(1)));
+          name = null;
+        }
+      } else if (isIdentifier(token)) {
+        name = token;
+      }
+    }
+  }
+
+  private static boolean isIdentifier(String token) {
+    return Character.isLetter(token.charAt(0)) || token.charAt(0) == '_' || token.charAt(0) == '&';
+  }
+
+  /**
+   * Reads the next token, skipping whitespace and comments and recording include directives.
+   *
+   * @return an identifier (possibly qualified), a string literal prefixed by a single quote, a
+   *     single punctuation character, or null at the end of the text.
+   */
+  private String nextToken() {
+    while (position < text.length()) {
+      char character = text.charAt(position);
+
+      if (Character.isWhitespace(character)) {
+        position++;
+      } else if (character == '{') {
+        int end = text.indexOf('}', position);
+        end = end < 0 ? text.length() : end + 1;
+        recordDirective(text.substring(position, end));
+        position = end;
+      } else if (text.startsWith("(*", position)) {
+        int end = text.indexOf("*)", position + 2);
+        position = end < 0 ? text.length() : end + 2;
+      } else if (text.startsWith("//", position)) {
+        int end = text.indexOf('\n', position);
+        position = end < 0 ? text.length() : end + 1;
+      } else if (character == '\'') {
+        return readString();
+      } else if (Character.isLetterOrDigit(character) || character == '_' || character == '&') {
+        return readIdentifier();
+      } else {
+        position++;
+        return String.valueOf(character);
+      }
+    }
+    return null;
+  }
+
+  private String readString() {
+    var value = new StringBuilder("'");
+    position++;
+    while (position < text.length()) {
+      char character = text.charAt(position++);
+      if (character == '\'') {
+        if (position < text.length() && text.charAt(position) == '\'') {
+          value.append('\'');
+          position++;
+        } else {
+          break;
+        }
+      } else {
+        value.append(character);
+      }
+    }
+    return value.toString();
+  }
+
+  private String readIdentifier() {
+    int start = position;
+    while (position < text.length()) {
+      char character = text.charAt(position);
+      if (Character.isLetterOrDigit(character) || character == '_' || character == '&') {
+        position++;
+      } else if (character == '.'
+          && position + 1 < text.length()
+          && Character.isLetter(text.charAt(position + 1))) {
+        position++;
+      } else {
+        break;
+      }
+    }
+    return text.substring(start, position);
+  }
+
+  private void recordDirective(String comment) {
+    Matcher matcher = INCLUDE_DIRECTIVE.matcher(comment);
+    if (matcher.matches()) {
+      String include = matcher.group(1).trim();
+      if (!include.equals("+") && !include.equals("-")) {
+        (section == Section.INTERFACE ? interfaceIncludes : implementationIncludes).add(include);
+      }
+    }
+  }
+
+  /** A reference to a unit in a uses clause, with the path given by an "in" clause if any. */
+  static class UnitReference {
+    private final String name;
+    private final String path;
+
+    public UnitReference(String name, String path) {
+      this.name = name;
+      this.path = path;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the path given by the "in" clause of the reference, or null if there is none.
+     */
+    public String getPath() {
+      return path;
+    }
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import au.com.integradev.delphilint.analysis.DelphiUnitReferences.UnitReference;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.ByteOrderMark;
+import org.apache.commons.io.input.BOMInputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Hashes the parts of other files that the analysis of a Delphi source file depends on.
+ *
+ * <p>A unit can see the interface sections of the units it uses, and through them the interface
+ * sections of the units that those units use in their interface sections. The dependency hash of a
+ * file therefore covers the interface sections of its dependencies transitively, along with the
+ * full contents of any files it includes. Changes to the implementation section of a dependency do
+ * not change the hash.
+ *
+ * <p>Units and includes are resolved against the directory of the using file, the search path of
+ * the analysis and the Delphi source files under the base directory. Those that cannot be resolved
+ * but are part of the standard library are recorded by name only, as the standard library is
+ * already covered by the engine configuration. If any other dependency cannot be resolved, the file
+ * has no dependency hash, as a change to that dependency could not be detected.
+ */
+class DependencyHasher {
+  private static final Logger LOG = LogManager.getLogger(DependencyHasher.class);
+  private static final String CYCLE = "cycle";
+  private static final String UNRESOLVED = "unresolved";
+  private final Path baseDir;
+  private final SourceFileIndex sourceFiles;
+  private final List<Path> searchPath;
+  private final SourceFileIndex standardLibrary;
+  private final Map<Path, Optional<DelphiUnitReferences>> references = new HashMap<>();
+  private final Map<Path, String> interfaceHashes = new HashMap<>();
+  private final Map<Path, String> includeHashes = new HashMap<>();
+
+  public DependencyHasher(Path baseDir) {
+    this(baseDir, new SourceFileIndex(baseDir), List.of(), null);
+    sourceFiles.refresh();
+  }
+
+  /**
+   * @param baseDir the base directory of the analysis.
+   * @param sourceFiles an up to date index of the Delphi source files under the base directory.
+   * @param searchPath the directories that the analysis resolves units in.
+   * @param standardLibrary an up to date index of the standard library, or null if it is unknown,
+   *     in which case every unresolved dependency is recorded by name only.
+   */
+  public DependencyHasher(
+      Path baseDir,
+      SourceFileIndex sourceFiles,
+      List<Path> searchPath,
+      @Nullable SourceFileIndex standardLibrary) {
+    this.baseDir = baseDir.toAbsolutePath().normalize();
+    this.sourceFiles = sourceFiles;
+    this.searchPath = searchPath;
+    this.standardLibrary = standardLibrary;
+  }
+
+  /**
+   * @param file the absolute path of a Delphi source file.
+   * @return a hash of the interfaces of the units the file uses and the files it includes, or empty
+   *     if a dependency outside the standard library could not be resolved.
+   */
+  public Optional<String> hashDependencies(Path file) {
+    Optional<DelphiUnitReferences> fileReferences = getReferences(file);
+    if (fileReferences.isEmpty()) {
+      return Optional.of("");
+    }
+
+    List<String> values = new ArrayList<>();
+    boolean resolved = addUnitHashes(file, fileReferences.get().getInterfaceUnits(), values);
+    resolved &= addUnitHashes(file, fileReferences.get().getImplementationUnits(), values);
+    resolved &= addIncludeHashes(file, fileReferences.get().getInterfaceIncludes(), values);
+    resolved &= addIncludeHashes(file, fileReferences.get().getImplementationIncludes(), values);
+    return resolved
+        ? Optional.of(IncrementalAnalysis.hash(values.toArray(String[]::new)))
+        : Optional.empty();
+  }
+
+  private String hashInterface(Path unit) {
+    String hash = interfaceHashes.get(unit);
+    if (hash != null) {
+      return hash;
+    }
+
+    // Interface uses cannot be circular in valid code, but guard against it all the same
+    interfaceHashes.put(unit, CYCLE);
+
+    List<String> values = new ArrayList<>();
+    boolean resolved = true;
+    Optional<DelphiUnitReferences> unitReferences = getReferences(unit);
+    if (unitReferences.isPresent()) {
+      values.add(unitReferences.get().getInterfaceText());
+      resolved = addUnitHashes(unit, unitReferences.get().getInterfaceUnits(), values);
+      resolved &= addIncludeHashes(unit, unitReferences.get().getInterfaceIncludes(), values);
+    }
+
+    hash = resolved ? IncrementalAnalysis.hash(values.toArray(String[]::new)) : UNRESOLVED;
+    interfaceHashes.put(unit, hash);
+    return hash;
+  }
+
+  private String hashInclude(Path include) {
+    String hash = includeHashes.get(include);
+    if (hash != null) {
+      return hash;
+    }
+
+    includeHashes.put(include, CYCLE);
+
+    List<String> values = new ArrayList<>();
+    try {
+      values.add(DigestUtils.sha256Hex(Files.readAllBytes(include)));
+    } catch (IOException e) {
+      LOG.debug("Could not read include file {}", include, e);
+    }
+
+    boolean resolved = true;
+    Optional<DelphiUnitReferences> includeReferences = getReferences(include);
+    if (includeReferences.isPresent()) {
+      resolved = addIncludeHashes(include, includeReferences.get().getInterfaceIncludes(), values);
+      resolved &=
+          addIncludeHashes(include, includeReferences.get().getImplementationIncludes(), values);
+    }
+
+    hash = resolved ? IncrementalAnalysis.hash(values.toArray(String[]::new)) : UNRESOLVED;
+    includeHashes.put(include, hash);
+    return hash;
+  }
+
+  /**
+   * @return false if a unit outside the standard library could not be resolved.
+   */
+  private boolean addUnitHashes(Path file, Collection<UnitReference> units, List<String> values) {
+    boolean allResolved = true;
+    for (UnitReference unit : units) {
+      Set<Path> resolved = resolveUnit(file, unit);
+      if (resolved.isEmpty()) {
+        if (standardLibrary != null && !standardLibrary.containsUnit(unit.getName())) {
+          LOG.debug("Could not resolve unit {} used by {}", unit.getName(), file);
+          allResolved = false;
+        }
+        values.add(unit.getName().toLowerCase(Locale.ROOT));
+      }
+      for (Path path : resolved) {
+        String hash = hashInterface(path);
+        allResolved &= !UNRESOLVED.equals(hash);
+        values.add(toKeyPath(path));
+        values.add(hash);
+      }
+    }
+    return allResolved;
+  }
+
+  /**
+   * @return false if a file outside the standard library could not be resolved.
+   */
+  private boolean addIncludeHashes(Path file, Collection<String> includes, List<String> values) {
+    boolean allResolved = true;
+    for (String include : includes) {
+      Set<Path> resolved = resolveFile(file, include);
+      if (resolved.isEmpty()) {
+        if (standardLibrary != null && standardLibrary.find(getFileName(include)).isEmpty()) {
+          LOG.debug("Could not resolve include file {} included by {}", include, file);
+          allResolved = false;
+        }
+        values.add(include.toLowerCase(Locale.ROOT));
+      }
+      for (Path path : resolved) {
+        String hash = hashInclude(path);
+        allResolved &= !UNRESOLVED.equals(hash);
+        values.add(toKeyPath(path));
+        values.add(hash);
+      }
+    }
+    return allResolved;
+  }
+
+  private String toKeyPath(Path path) {
+    try {
+      return baseDir.relativize(path).toString().replace('\\', '/');
+    } catch (IllegalArgumentException e) {
+      return path.toString();
+    }
+  }
+
+  private Set<Path> resolveUnit(Path file, UnitReference unit) {
+    if (unit.getPath() != null) {
+      return resolveFile(file, unit.getPath());
+    }
+    return resolveFile(file, unit.getName() + ".pas");
+  }
+
+  private Set<Path> resolveFile(Path file, String name) {
+    String normalizedName = name.replace('\\', '/');
+    Path parent = file.getParent();
+    if (parent != null) {
+      Optional<Path> sibling = resolveIn(parent, normalizedName);
+      if (sibling.isPresent()) {
+        return Set.of(sibling.get());
+      }
+    }
+
+    for (Path directory : searchPath) {
+      Optional<Path> onSearchPath = resolveIn(directory, normalizedName);
+      if (onSearchPath.isPresent()) {
+        return Set.of(onSearchPath.get());
+      }
+    }
+
+    return sourceFiles.find(getFileName(normalizedName));
+  }
+
+  private static Optional<Path> resolveIn(Path directory, String normalizedName) {
+    try {
+      Path candidate = directory.resolve(normalizedName).normalize();
+      if (Files.isRegularFile(candidate)) {
+        return Optional.of(candidate);
+      }
+    } catch (IllegalArgumentException e) {
+      // Invalid path, fall back to the index
+    }
+    return Optional.empty();
+  }
+
+  private static String getFileName(String name) {
+    String normalizedName = name.replace('\\', '/');
+    return normalizedName.substring(normalizedName.lastIndexOf('/') + 1);
+  }
+
+  private Optional<DelphiUnitReferences> getReferences(Path file) {
+    return references.computeIfAbsent(file, DependencyHasher::scan);
+  }
+
+  private static Optional<DelphiUnitReferences> scan(Path file) {
+    try (var inputStream =
+        new BOMInputStream(
+            Files.newInputStream(file),
+            ByteOrderMark.UTF_8,
+            ByteOrderMark.UTF_16BE,
+            ByteOrderMark.UTF_16LE,
+            ByteOrderMark.UTF_32BE,
+            ByteOrderMark.UTF_32LE)) {
+      // Everything the scan looks for is ASCII, so any single byte charset will do without a BOM
+      String charsetName = inputStream.getBOMCharsetName();
+      Charset charset =
+          charsetName == null ? StandardCharsets.ISO_8859_1 : Charset.forName(charsetName);
+      boolean packageFile = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".dpk");
+      return Optional.of(
+          DelphiUnitReferences.scan(new String(inputStream.readAllBytes(), charset), packageFile));
+    } catch (IOException e) {
+      LOG.debug("Could not scan {} for dependencies", file, e);
+      return Optional.empty();
+    }
+  }
+}
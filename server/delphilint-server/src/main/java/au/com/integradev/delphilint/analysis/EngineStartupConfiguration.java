@@ -19,8 +19,18 @@ package au.com.integradev.delphilint.analysis;
 
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+/**
+ * The configuration that an analysis engine is started with. Engines are only reused for the same
+ * configuration, as SonarDelphi resolves the standard library from the installation path and
+ * compiler version.
+ *
+ * <p>SonarDelphi builds the standard library symbols within each analysis and exposes no way to
+ * provide them, so they are not cached between analyses. Unchanged units are instead served from
+ * the analysis cache (see {@link IncrementalAnalysis}).
+ */
 public class EngineStartupConfiguration {
   private final String bdsPath;
   private final String compilerVersion;
@@ -32,6 +42,14 @@ public class EngineStartupConfiguration {
     this.pluginPaths = pluginPaths;
   }
 
+  public String getBdsPath() {
+    return bdsPath;
+  }
+
+  public String getCompilerVersion() {
+    return compilerVersion;
+  }
+
   public Set<Path> getPluginPaths() {
     return pluginPaths;
   }
@@ -41,4 +59,23 @@ public class EngineStartupConfiguration {
         "sonar.delphi.installationPath", bdsPath,
         "sonar.delphi.compilerVersion", compilerVersion);
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    EngineStartupConfiguration that = (EngineStartupConfiguration) o;
+    return Objects.equals(bdsPath, that.bdsPath)
+        && Objects.equals(compilerVersion, that.compilerVersion)
+        && Objects.equals(pluginPaths, that.pluginPaths);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(bdsPath, compilerVersion, pluginPaths);
+  }
 }
@@ -0,0 +1,114 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Remembers the most recently used engine startup configuration between server sessions, so that
+ * the analysis engine can be started before a client asks for it.
+ */
+public class EngineStartupConfigurationStore {
+  private static final Logger LOG = LogManager.getLogger(EngineStartupConfigurationStore.class);
+  private final Path storePath;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  public EngineStartupConfigurationStore(Path storePath) {
+    this.storePath = storePath;
+  }
+
+  /**
+   * @return the last saved configuration, or an empty optional if there is none or any of its
+   *     plugins no longer exist.
+   */
+  public Optional<EngineStartupConfiguration> load() {
+    StoredConfiguration stored;
+    try (InputStream inputStream = Files.newInputStream(storePath)) {
+      stored = mapper.readValue(inputStream, StoredConfiguration.class);
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      LOG.warn("Could not read engine configuration {}", storePath, e);
+      return Optional.empty();
+    }
+
+    if (stored.bdsPath == null || stored.compilerVersion == null || stored.pluginPaths == null) {
+      return Optional.empty();
+    }
+
+    Set<Path> pluginPaths = stored.pluginPaths.stream().map(Path::of).collect(Collectors.toSet());
+    if (pluginPaths.isEmpty() || !pluginPaths.stream().allMatch(Files::isRegularFile)) {
+      LOG.info("Plugins used in the last session are no longer available");
+      return Optional.empty();
+    }
+
+    return Optional.of(
+        new EngineStartupConfiguration(stored.bdsPath, stored.compilerVersion, pluginPaths));
+  }
+
+  public void save(EngineStartupConfiguration config) {
+    var stored = new StoredConfiguration();
+    stored.bdsPath = config.getBdsPath();
+    stored.compilerVersion = config.getCompilerVersion();
+    stored.pluginPaths =
+        config.getPluginPaths().stream().map(Path::toString).sorted().collect(Collectors.toList());
+
+    try {
+      Files.createDirectories(storePath.toAbsolutePath().getParent());
+      Path tempPath =
+          Files.createTempFile(
+              storePath.toAbsolutePath().getParent(), storePath.getFileName().toString(), ".tmp");
+      try {
+        mapper.writeValue(tempPath.toFile(), stored);
+        moveIntoPlace(tempPath, storePath);
+      } finally {
+        Files.deleteIfExists(tempPath);
+      }
+    } catch (IOException e) {
+      LOG.warn("Could not write engine configuration {}", storePath, e);
+    }
+  }
+
+  private static void moveIntoPlace(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static class StoredConfiguration {
+    @JsonProperty private String bdsPath;
+    @JsonProperty private String compilerVersion;
+    @JsonProperty private List<String> pluginPaths;
+  }
+}
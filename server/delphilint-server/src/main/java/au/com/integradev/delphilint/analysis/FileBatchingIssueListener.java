@@ -0,0 +1,74 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.sonarsource.sonarlint.core.analysis.api.ClientInputFile;
+import org.sonarsource.sonarlint.core.analysis.api.Issue;
+
+/**
+ * Buffers the issues raised by one worker thread of a parallel analysis, and passes on all of the
+ * issues for a file at once. Issues from different worker threads are passed on one file at a time.
+ *
+ * <p>Files other than Delphi source files are analyzed by every worker, so the issues raised on
+ * them, and on the project as a whole, are only passed on by the listener that owns them.
+ */
+class FileBatchingIssueListener implements Consumer<Issue> {
+  private final Consumer<Issue> issueListener;
+  private final boolean ownsSharedIssues;
+  private final List<Issue> pendingIssues = new ArrayList<>();
+  private String pendingFile;
+
+  /**
+   * @param issueListener the listener to pass issues on to, which is shared by all workers.
+   * @param ownsSharedIssues whether to pass on the issues that are not raised on a source file.
+   */
+  public FileBatchingIssueListener(Consumer<Issue> issueListener, boolean ownsSharedIssues) {
+    this.issueListener = issueListener;
+    this.ownsSharedIssues = ownsSharedIssues;
+  }
+
+  private static boolean isShared(Issue issue) {
+    ClientInputFile inputFile = issue.getInputFile();
+    return !(inputFile instanceof DelphiLintInputFile)
+        || !((DelphiLintInputFile) inputFile).isSourceFile();
+  }
+
+  @Override
+  public void accept(Issue issue) {
+    if (!ownsSharedIssues && isShared(issue)) {
+      return;
+    }
+
+    String file = issue.getInputFile() == null ? "" : issue.getInputFile().relativePath();
+    if (!pendingIssues.isEmpty() && !file.equals(pendingFile)) {
+      flush();
+    }
+    pendingFile = file;
+    pendingIssues.add(issue);
+  }
+
+  public void flush() {
+    synchronized (issueListener) {
+      pendingIssues.forEach(issueListener);
+    }
+    pendingIssues.clear();
+  }
+}
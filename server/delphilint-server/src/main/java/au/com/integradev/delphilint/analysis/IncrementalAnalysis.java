@@ -0,0 +1,231 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sonarsource.sonarlint.core.analysis.api.Issue;
+
+/**
+ * Splits the input files of an analysis into files whose issues can be served from an {@link
+ * AnalysisCache} and files that must be analyzed, and records the issues raised on the analyzed
+ * files so that they can be cached for later analyses.
+ *
+ * <p>Only Delphi source files are served from the cache. Other input files (such as project files)
+ * can change the way that every source file is analyzed, so they are always passed to the engine
+ * and their contents are included in the cache key of every source file.
+ *
+ * <p>The cache key of a source file also covers the interfaces of the units it uses, transitively,
+ * and the files it includes (see {@link DependencyHasher}). A change to the interface of a unit
+ * therefore invalidates the cached issues of every unit that can see it. Source files with a
+ * dependency that cannot be resolved are always analyzed, and their issues are not cached.
+ *
+ * <p>Issues that are not raised on a file are cached for the set of input files as a whole, and are
+ * reused if no source file needs to be analyzed.
+ */
+class IncrementalAnalysis {
+  private static final Logger LOG = LogManager.getLogger(IncrementalAnalysis.class);
+  private final AnalysisCache cache;
+  private final Map<DelphiLintInputFile, String> cacheKeys = new LinkedHashMap<>();
+  private final String projectCacheKey;
+  private final List<Issue> cachedIssues = new ArrayList<>();
+  private final List<DelphiLintInputFile> filesToAnalyze = new ArrayList<>();
+  private final Map<String, List<CachedIssue>> recordedIssues = new HashMap<>();
+  private int cachedFileCount;
+  private int uncacheableFileCount;
+  private boolean engineRequired;
+
+  /**
+   * @param cache the cache to read from and write to.
+   * @param configurationHash a hash of the engine, rule and property configuration of the analysis.
+   * @param baseDir the base directory of the analysis.
+   * @param inputFiles all input files of the analysis.
+   */
+  public IncrementalAnalysis(
+      AnalysisCache cache,
+      String configurationHash,
+      Path baseDir,
+      Collection<DelphiLintInputFile> inputFiles) {
+    this(cache, configurationHash, inputFiles, new DependencyHasher(baseDir));
+  }
+
+  /**
+   * @param cache the cache to read from and write to.
+   * @param configurationHash a hash of the engine, rule and property configuration of the analysis.
+   * @param inputFiles all input files of the analysis.
+   * @param dependencyHasher the hasher to hash the dependencies of each source file with.
+   */
+  public IncrementalAnalysis(
+      AnalysisCache cache,
+      String configurationHash,
+      Collection<DelphiLintInputFile> inputFiles,
+      DependencyHasher dependencyHasher) {
+    this.cache = cache;
+
+    List<DelphiLintInputFile> sortedFiles = new ArrayList<>(inputFiles);
+    sortedFiles.sort(Comparator.comparing(DelphiLintInputFile::relativePath));
+
+    MessageDigest inputDigest = DigestUtils.getSha256Digest();
+    updateDigest(inputDigest, configurationHash);
+    Map<DelphiLintInputFile, String> contentHashes = new HashMap<>();
+
+    for (DelphiLintInputFile inputFile : sortedFiles) {
+      Optional<String> contentHash = hashContents(inputFile);
+      if (contentHash.isPresent() && inputFile.isSourceFile()) {
+        contentHashes.put(inputFile, contentHash.get());
+      } else {
+        updateDigest(inputDigest, inputFile.relativePath());
+        updateDigest(inputDigest, contentHash.orElse(""));
+        filesToAnalyze.add(inputFile);
+      }
+    }
+
+    String inputHash = Hex.encodeHexString(inputDigest.digest());
+    projectCacheKey =
+        hash(
+            inputHash,
+            sortedFiles.stream()
+                .map(DelphiLintInputFile::relativePath)
+                .collect(Collectors.joining("\n")));
+
+    for (DelphiLintInputFile inputFile : sortedFiles) {
+      String contentHash = contentHashes.get(inputFile);
+      if (contentHash != null) {
+        Optional<String> dependencyHash =
+            dependencyHasher.hashDependencies(Path.of(inputFile.uri()));
+        if (dependencyHash.isPresent()) {
+          lookUp(
+              inputFile,
+              hash(inputHash, inputFile.relativePath(), contentHash, dependencyHash.get()));
+        } else {
+          LOG.debug(
+              "Not caching {}, as its dependencies could not be resolved",
+              inputFile.relativePath());
+          uncacheableFileCount++;
+          filesToAnalyze.add(inputFile);
+        }
+      }
+    }
+
+    engineRequired = cachedFileCount == 0 || !cacheKeys.isEmpty() || uncacheableFileCount > 0;
+    if (!engineRequired) {
+      cache.get(projectCacheKey).stream()
+          .flatMap(List::stream)
+          .map(issue -> issue.toIssue(null))
+          .forEach(cachedIssues::add);
+    }
+  }
+
+  private void lookUp(DelphiLintInputFile inputFile, String cacheKey) {
+    Optional<List<CachedIssue>> cached = cache.get(cacheKey);
+    if (cached.isPresent()) {
+      cached.get().stream().map(issue -> issue.toIssue(inputFile)).forEach(cachedIssues::add);
+      cachedFileCount++;
+    } else {
+      cacheKeys.put(inputFile, cacheKey);
+      filesToAnalyze.add(inputFile);
+    }
+  }
+
+  private static Optional<String> hashContents(DelphiLintInputFile inputFile) {
+    try (InputStream inputStream = Files.newInputStream(Path.of(inputFile.uri()))) {
+      return Optional.of(DigestUtils.sha256Hex(inputStream));
+    } catch (IOException e) {
+      LOG.debug("Could not hash {}", inputFile.relativePath(), e);
+      return Optional.empty();
+    }
+  }
+
+  static String hash(String... values) {
+    MessageDigest digest = DigestUtils.getSha256Digest();
+    for (String value : values) {
+      updateDigest(digest, value);
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  private static void updateDigest(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    // Separate values so that adjacent values cannot run into each other
+    digest.update((byte) 0);
+  }
+
+  /**
+   * @return the issues served from the cache, raised on the input files they were cached for.
+   */
+  public List<Issue> getCachedIssues() {
+    return cachedIssues;
+  }
+
+  /**
+   * @return the input files that must be passed to the analysis engine.
+   */
+  public List<DelphiLintInputFile> getFilesToAnalyze() {
+    return filesToAnalyze;
+  }
+
+  public int getCachedFileCount() {
+    return cachedFileCount;
+  }
+
+  /**
+   * @return false if the issues for every input file could be served from the cache.
+   */
+  public boolean isEngineRequired() {
+    return engineRequired;
+  }
+
+  /**
+   * @param issueListener the listener to pass issues from the engine on to.
+   * @return a listener that records each issue before passing it on.
+   */
+  public Consumer<Issue> recordingTo(Consumer<Issue> issueListener) {
+    return issue -> {
+      String file = issue.getInputFile() == null ? "" : issue.getInputFile().relativePath();
+      recordedIssues.computeIfAbsent(file, key -> new ArrayList<>()).add(new CachedIssue(issue));
+      issueListener.accept(issue);
+    };
+  }
+
+  /** Stores the issues recorded for the analyzed files in the cache. */
+  public void store() {
+    for (Map.Entry<DelphiLintInputFile, String> entry : cacheKeys.entrySet()) {
+      cache.put(
+          entry.getValue(), recordedIssues.getOrDefault(entry.getKey().relativePath(), List.of()));
+    }
+    cache.put(projectCacheKey, recordedIssues.getOrDefault("", List.of()));
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An index of the Delphi source and include files under a directory, by file name.
+ *
+ * <p>The index is kept between analyses. It is refreshed by polling the modification time of each
+ * indexed directory, which changes when a file in it is created, deleted or renamed, so only the
+ * directories that have changed are listed again.
+ */
+class SourceFileIndex {
+  private static final Logger LOG = LogManager.getLogger(SourceFileIndex.class);
+  private static final Set<String> INDEXED_EXTENSIONS = Set.of("pas", "inc");
+  private final Path root;
+  private final Map<Path, IndexedDirectory> directories = new HashMap<>();
+  private Map<String, List<Path>> filesByName = Collections.emptyMap();
+  private Set<String> unitNames = Collections.emptySet();
+
+  public SourceFileIndex(Path root) {
+    this.root = root.toAbsolutePath().normalize();
+  }
+
+  /** Brings the index up to date with any files that have been created, deleted or renamed. */
+  public synchronized void refresh() {
+    Set<Path> visited = new HashSet<>();
+    boolean changed = refresh(root, visited);
+    changed |= directories.keySet().retainAll(visited);
+
+    if (changed) {
+      rebuild();
+    }
+  }
+
+  private boolean refresh(Path dir, Set<Path> visited) {
+    // Guards against symbolic link cycles
+    if (!visited.add(dir)) {
+      return false;
+    }
+
+    long lastModified;
+    try {
+      lastModified =
+          Files.readAttributes(dir, BasicFileAttributes.class).lastModifiedTime().toMillis();
+    } catch (IOException e) {
+      return directories.remove(dir) != null;
+    }
+
+    boolean changed = false;
+    IndexedDirectory directory = directories.get(dir);
+    if (directory == null || directory.lastModified != lastModified) {
+      directory = list(dir, lastModified);
+      directories.put(dir, directory);
+      changed = true;
+    }
+
+    for (Path subdirectory : directory.subdirectories) {
+      changed |= refresh(subdirectory, visited);
+    }
+    return changed;
+  }
+
+  private IndexedDirectory list(Path dir, long lastModified) {
+    var directory = new IndexedDirectory(lastModified);
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+      for (Path entry : entries) {
+        String name = entry.getFileName().toString();
+        if (Files.isDirectory(entry)) {
+          // Skip VCS metadata and IDE history directories
+          if (!name.startsWith(".") && !name.startsWith("__")) {
+            directory.subdirectories.add(entry);
+          }
+        } else if (INDEXED_EXTENSIONS.contains(getExtension(name))) {
+          directory.files.add(entry);
+        }
+      }
+    } catch (IOException e) {
+      LOG.debug("Could not index Delphi source files in {}", dir, e);
+    }
+    return directory;
+  }
+
+  private void rebuild() {
+    Map<String, List<Path>> newFilesByName = new HashMap<>();
+    Set<String> newUnitNames = new HashSet<>();
+    for (IndexedDirectory directory : directories.values()) {
+      for (Path file : directory.files) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        newFilesByName.computeIfAbsent(name, key -> new ArrayList<>()).add(file);
+
+        if (name.endsWith(".pas")) {
+          // A unit can be referred to without its namespace, so every suffix is a possible name
+          String unitName = name.substring(0, name.length() - 4);
+          newUnitNames.add(unitName);
+          int dot = unitName.indexOf('.');
+          while (dot != -1) {
+            unitName = unitName.substring(dot + 1);
+            newUnitNames.add(unitName);
+            dot = unitName.indexOf('.');
+          }
+        }
+      }
+    }
+    filesByName = newFilesByName;
+    unitNames = newUnitNames;
+  }
+
+  private static String getExtension(String fileName) {
+    return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @param fileName the name of the file, without a directory.
+   * @return the indexed files with the name, sorted so that they do not depend on the order the
+   *     file system lists files in.
+   */
+  public synchronized Set<Path> find(String fileName) {
+    return new TreeSet<>(filesByName.getOrDefault(fileName.toLowerCase(Locale.ROOT), List.of()));
+  }
+
+  /**
+   * @param unitName the name of a unit, with or without its namespace.
+   * @return whether a unit with the name is indexed.
+   */
+  public synchronized boolean containsUnit(String unitName) {
+    return unitNames.contains(unitName.toLowerCase(Locale.ROOT));
+  }
+
+  private static class IndexedDirectory {
+    private final long lastModified;
+    private final List<Path> files = new ArrayList<>();
+    private final List<Path> subdirectories = new ArrayList<>();
+
+    public IndexedDirectory(long lastModified) {
+      this.lastModified = lastModified;
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.maintenance;
+
+import au.com.integradev.delphilint.App;
+import au.com.integradev.delphilint.server.MessageCategory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs the server through a typical session - startup, initialization and a standalone analysis of
+ * a small project - so that the classes it loads can be recorded for a class data sharing archive.
+ *
+ * <p>Usage: {@code TrainingRun <bdsPath> <compilerVersion> [sonarDelphiVersion]}. The SonarDelphi
+ * version defaults to the one the build was configured with. The server is started with {@link
+ * App#main(String[])} in a temporary settings directory, so the training run leaves the user's
+ * plugins, analysis cache and last engine configuration untouched. Failure to initialize (for
+ * example, if SonarDelphi cannot be downloaded) is logged and skips the analysis, as the classes
+ * loaded up to that point are still worth archiving.
+ */
+public class TrainingRun {
+  private static final Logger LOG = LogManager.getLogger(TrainingRun.class);
+  private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(1);
+  private static final String TRAINING_PROPERTIES = "training.properties";
+  private static final String SAMPLE_UNIT =
+      "unit Training;\n"
+          + "\n"
+          + "interface\n"
+          + "\n"
+          + "uses\n"
+          + "  System.SysUtils;\n"
+          + "\n"
+          + "type\n"
+          + "  TTraining = class(TObject)\n"
+          + "  public\n"
+          + "    function Run(Value: Integer): string;\n"
+          + "  end;\n"
+          + "\n"
+          + "implementation\n"
+          + "\n"
+          + "function TTraining.Run(Value: Integer): string;\n"
+          + "begin\n"
+          + "  Result := IntToStr(Value);\n"
+          + "end;\n"
+          + "\n"
+          + "end.\n";
+  private final ObjectMapper mapper = new ObjectMapper();
+  private int nextMessageId = 1;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2 && args.length != 3) {
+      System.err.println("Usage: TrainingRun <bdsPath> <compilerVersion> [sonarDelphiVersion]");
+      System.exit(2);
+    }
+
+    String sonarDelphiVersion = args.length == 3 ? args[2] : getDefaultSonarDelphiVersion();
+    new TrainingRun().run(args[0], args[1], sonarDelphiVersion);
+    // The analysis engine may have left non-daemon threads behind
+    System.exit(0);
+  }
+
+  private void run(String bdsPath, String compilerVersion, String sonarDelphiVersion)
+      throws Exception {
+    Path workDir = Files.createTempDirectory("DelphiLintServer_TrainingRun");
+    try {
+      Path portFile = Files.createFile(workDir.resolve("port"));
+      System.setProperty(App.SETTINGS_PATH_PROPERTY, workDir.resolve("settings").toString());
+      var serverThread = new Thread(() -> App.main(new String[] {portFile.toString()}), "server");
+      serverThread.start();
+
+      try (var socket = new Socket("localhost", awaitPort(portFile))) {
+        var in = new DataInputStream(socket.getInputStream());
+        var out = new DataOutputStream(socket.getOutputStream());
+
+        MessageCategory initializeResponse =
+            request(
+                in,
+                out,
+                MessageCategory.INITIALIZE,
+                Map.of(
+                    "bdsPath", bdsPath,
+                    "compilerVersion", compilerVersion,
+                    "sonarHostUrl", "",
+                    "apiToken", "",
+                    "sonarDelphiVersion", sonarDelphiVersion));
+
+        if (initializeResponse == MessageCategory.INITIALIZED) {
+          Path unit = Files.writeString(workDir.resolve("Training.pas"), SAMPLE_UNIT);
+          MessageCategory analyzeResponse =
+              request(
+                  in,
+                  out,
+                  MessageCategory.ANALYZE,
+                  Map.of(
+                      "baseDir", workDir.toString(),
+                      "inputFiles", List.of(unit.toString()),
+                      "sonarHostUrl", "",
+                      "projectKey", "",
+                      "apiToken", "",
+                      "projectPropertiesPath", ""));
+          LOG.info("Training analysis finished with {}", analyzeResponse);
+        } else {
+          LOG.warn("Training initialization failed with {}, skipping analysis", initializeResponse);
+        }
+
+        write(out, MessageCategory.QUIT, nextMessageId++, new byte[0]);
+      }
+
+      serverThread.join();
+    } finally {
+      FileUtils.deleteQuietly(workDir.toFile());
+    }
+  }
+
+  private static String getDefaultSonarDelphiVersion() throws IOException {
+    var properties = new Properties();
+    try (InputStream stream = TrainingRun.class.getResourceAsStream(TRAINING_PROPERTIES)) {
+      if (stream == null) {
+        throw new IOException("Missing resource " + TRAINING_PROPERTIES);
+      }
+      properties.load(stream);
+    }
+    return properties.getProperty("sonarDelphiVersion");
+  }
+
+  private static int awaitPort(Path portFile) throws IOException, InterruptedException {
+    Instant deadline = Instant.now().plus(STARTUP_TIMEOUT);
+    while (Instant.now().isBefore(deadline)) {
+      String port = Files.readString(portFile).trim();
+      if (!port.isEmpty()) {
+        return Integer.parseInt(port);
+      }
+      Thread.sleep(50);
+    }
+    throw new IOException("Server did not start within " + STARTUP_TIMEOUT);
+  }
+
+  private MessageCategory request(
+      DataInputStream in, DataOutputStream out, MessageCategory category, Object data)
+      throws IOException {
+    int id = nextMessageId++;
+    write(out, category, id, mapper.writeValueAsBytes(data));
+
+    while (true) {
+      var responseCategory = MessageCategory.fromCode(in.readUnsignedByte());
+      int responseId = in.readInt();
+      byte[] responseData = in.readNBytes(in.readInt());
+      if (responseId == id && responseCategory != MessageCategory.ANALYZE_PROGRESS) {
+        if (responseCategory != MessageCategory.INITIALIZED
+            && responseCategory != MessageCategory.ANALYZE_RESULT) {
+          LOG.warn("{}: {}", responseCategory, new String(responseData, StandardCharsets.UTF_8));
+        }
+        return responseCategory;
+      }
+    }
+  }
+
+  private static void write(DataOutputStream out, MessageCategory category, int id, byte[] data)
+      throws IOException {
+    out.writeByte(category.getCode());
+    out.writeInt(id);
+    out.writeInt(data.length);
+    out.write(data);
+    out.flush();
+  }
+}
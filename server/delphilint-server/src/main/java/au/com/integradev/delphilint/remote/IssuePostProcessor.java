@@ -0,0 +1,211 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote;
+
+import au.com.integradev.delphilint.analysis.DelphiIssue;
+import au.com.integradev.delphilint.analysis.DelphiIssue.RemoteMetadata;
+import au.com.integradev.delphilint.analysis.TrackableWrappers.ClientTrackable;
+import au.com.integradev.delphilint.analysis.TrackableWrappers.ServerTrackable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+import org.sonarsource.sonarlint.core.analysis.api.Issue;
+import org.sonarsource.sonarlint.core.issuetracking.Tracker;
+import org.sonarsource.sonarlint.core.issuetracking.Tracking;
+
+/**
+ * Post-processes raw issues for a set of files against a Sonar host, populating missing messages,
+ * discarding issues that have been resolved on the host, and attaching the metadata of matching
+ * unresolved issues.
+ *
+ * <p>Host data is retrieved once, when the first batch of issues is processed. Issues can therefore
+ * be processed in several batches (for example, file by file as an analysis progresses) without
+ * repeating requests to the host.
+ */
+public class IssuePostProcessor {
+  private static final Logger LOG = LogManager.getLogger(IssuePostProcessor.class);
+  private final Collection<String> includedFiles;
+  private final Collection<String> providedTestFiles;
+  private final SonarHost host;
+  private Map<String, String> ruleNameMap;
+  private Set<RemoteIssue> resolvedIssues;
+  private Set<ServerTrackable> serverTrackables;
+  private boolean hostDataRetrieved;
+
+  /**
+   * @param includedFiles the paths of all files that issues may be raised on, relative to the
+   *     project base directory.
+   * @param allTestFiles the paths of all test files in the project, or null if they should be
+   *     retrieved from the host.
+   * @param host the host to retrieve rule names and remote issues from.
+   */
+  public IssuePostProcessor(
+      Collection<String> includedFiles, @Nullable Collection<String> allTestFiles, SonarHost host) {
+    this.includedFiles = includedFiles;
+    this.providedTestFiles = allTestFiles;
+    this.host = host;
+  }
+
+  /**
+   * Post-processes a batch of raw issues.
+   *
+   * @param issues the raw issues to process.
+   * @return the issues that have not been resolved on the host, with messages and metadata.
+   * @throws SonarHostException if an error occurs during communication with the host.
+   */
+  public Set<DelphiIssue> process(Collection<Issue> issues) throws SonarHostException {
+    LOG.info("Post processing {} issues", issues.size());
+    retrieveHostData();
+
+    return trackIssues(populateIssueMessages(issues));
+  }
+
+  /**
+   * Retrieves the rule names and remote issues needed for post-processing, if they have not been
+   * retrieved already.
+   *
+   * @throws SonarHostException if an error occurs during communication with the host.
+   */
+  public void retrieveHostData() throws SonarHostException {
+    if (hostDataRetrieved) {
+      return;
+    }
+
+    ruleNameMap = host.getRuleNamesByRuleKey();
+
+    try {
+      retrieveRemoteIssues(providedTestFiles);
+    } catch (SonarHostBadRequestException e) {
+      // The test file paths provided by the sonar-project.properties are probably out of date
+      // - fall back on retrieving the test file paths from SonarQube
+      if (providedTestFiles != null) {
+        retrieveRemoteIssues(null);
+      } else {
+        throw e;
+      }
+    }
+
+    hostDataRetrieved = true;
+  }
+
+  private void retrieveRemoteIssues(@Nullable Collection<String> allTestFiles)
+      throws SonarHostException {
+    // Retrieve the test file paths from SonarQube if they can't be derived from the
+    // sonar-project.properties
+    if (allTestFiles == null) {
+      allTestFiles = host.getTestFilePaths();
+    }
+
+    Collection<String> includedTestFiles =
+        allTestFiles.stream().filter(includedFiles::contains).collect(Collectors.toSet());
+
+    Set<String> includedMainFiles =
+        includedFiles.stream()
+            .filter(Predicate.not(includedTestFiles::contains))
+            .collect(Collectors.toSet());
+
+    RemoteIssues remoteIssues = host.getIssues(includedMainFiles, includedTestFiles);
+
+    // Remote issues have no notion of equality, so this is a set of the resolved instances
+    resolvedIssues = new HashSet<>(remoteIssues.getResolved());
+    // The tracker matches each local issue to the first candidate in this order, so resolved issues
+    // come first to discard local issues that match both a resolved and an unresolved issue
+    serverTrackables = new LinkedHashSet<>();
+    remoteIssues.getResolved().forEach(issue -> serverTrackables.add(new ServerTrackable(issue)));
+    remoteIssues.getUnresolved().forEach(issue -> serverTrackables.add(new ServerTrackable(issue)));
+  }
+
+  private Set<Issue> populateIssueMessages(Collection<Issue> issues) {
+    return issues.stream()
+        .map(
+            oldIssue -> {
+              if (oldIssue.getMessage() == null || oldIssue.getMessage().isEmpty()) {
+                return new Issue(
+                    oldIssue.getRuleKey(),
+                    ruleNameMap.get(oldIssue.getRuleKey()),
+                    oldIssue.getOverriddenImpacts(),
+                    oldIssue.getTextRange(),
+                    oldIssue.getInputFile(),
+                    oldIssue.flows(),
+                    oldIssue.quickFixes(),
+                    oldIssue.getRuleDescriptionContextKey());
+              } else {
+                return oldIssue;
+              }
+            })
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Matches local issues against both resolved and unresolved remote issues in a single tracking
+   * pass. Local issues that match a resolved remote issue are discarded, and those that match an
+   * unresolved remote issue have its metadata attached.
+   */
+  private Set<DelphiIssue> trackIssues(Collection<Issue> issues) {
+    Queue<ClientTrackable> clientTrackables =
+        issues.stream().map(ClientTrackable::new).collect(Collectors.toCollection(LinkedList::new));
+
+    Tracker<ClientTrackable, ServerTrackable> tracker = new Tracker<>();
+    Tracking<ClientTrackable, ServerTrackable> tracking =
+        tracker.track(() -> clientTrackables, () -> serverTrackables);
+
+    Set<DelphiIssue> returnIssues = new HashSet<>();
+    int discarded = 0;
+
+    for (Entry<ClientTrackable, ServerTrackable> match : tracking.getMatchedRaws().entrySet()) {
+      RemoteIssue remote = match.getValue().getClientObject();
+
+      if (resolvedIssues.contains(remote)) {
+        discarded++;
+      } else {
+        returnIssues.add(
+            new DelphiIssue(
+                match.getKey().getClientObject(),
+                new RemoteMetadata(
+                    remote.getAssignee(), remote.getCreationDate(), remote.getStatus())));
+      }
+    }
+
+    tracking
+        .getUnmatchedRaws()
+        .forEach(trackable -> returnIssues.add(new DelphiIssue(trackable.getClientObject(), null)));
+
+    LOG.info(
+        "{}/{} issues matched with {} resolved server issues and discarded",
+        discarded,
+        issues.size(),
+        resolvedIssues.size());
+    LOG.info(
+        "{}/{} issues matched with {} unresolved server issues and had metadata retrieved",
+        tracking.getMatchedRaws().size() - discarded,
+        issues.size(),
+        serverTrackables.size() - resolvedIssues.size());
+
+    return returnIssues;
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote;
+
+import java.util.Collection;
+
+public class RemoteIssues {
+  private final Collection<RemoteIssue> resolved;
+  private final Collection<RemoteIssue> unresolved;
+
+  public RemoteIssues(Collection<RemoteIssue> resolved, Collection<RemoteIssue> unresolved) {
+    this.resolved = resolved;
+    this.unresolved = unresolved;
+  }
+
+  public Collection<RemoteIssue> getResolved() {
+    return resolved;
+  }
+
+  public Collection<RemoteIssue> getUnresolved() {
+    return unresolved;
+  }
+}
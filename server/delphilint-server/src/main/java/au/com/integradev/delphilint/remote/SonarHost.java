@@ -84,6 +84,27 @@ public interface SonarHost {
       Collection<String> relativeFilePaths, Collection<String> testRelativeFilePaths)
       throws SonarHostException;
 
+  /**
+   * Retrieves all resolved and unresolved issues for a set of given file paths.
+   *
+   * <p>Hosts may override this to retrieve both in a single pass, rather than by calling {@link
+   * #getResolvedIssues} and {@link #getUnresolvedIssues}.
+   *
+   * @param relativeFilePaths a set of all main file paths to retrieve issues for, relative to the
+   *     project base directory.
+   * @param testRelativeFilePaths a set of all test file paths to retrieve issues for, relative to
+   *     the project base directory.
+   * @return the retrieved issue metadata, partitioned into resolved and unresolved issues.
+   * @throws SonarHostException if an error occurs during communication with the host.
+   */
+  default RemoteIssues getIssues(
+      Collection<String> relativeFilePaths, Collection<String> testRelativeFilePaths)
+      throws SonarHostException {
+    return new RemoteIssues(
+        getResolvedIssues(relativeFilePaths, testRelativeFilePaths),
+        getUnresolvedIssues(relativeFilePaths, testRelativeFilePaths));
+  }
+
   /**
    * Retrieves all active rules registered for the current project.
    *
@@ -0,0 +1,60 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public final class SonarHostFutures {
+  private SonarHostFutures() {
+    // utility class
+  }
+
+  /**
+   * Waits for a future that retrieves data from a Sonar host, rethrowing any host error as the
+   * checked exception it was raised as.
+   *
+   * @param future the future to wait for.
+   * @param <T> the type of the future's result.
+   * @return the result of the future.
+   * @throws SonarHostException if the future completed with an {@link UncheckedSonarHostException}.
+   */
+  public static <T> T join(CompletableFuture<T> future) throws SonarHostException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedSonarHostException
+          && cause.getCause() instanceof SonarHostException) {
+        throw (SonarHostException) cause.getCause();
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * @param error the error that a future completed exceptionally with.
+   * @return whether the error was caused by a host error of the given type.
+   */
+  public static boolean isCausedBy(Throwable error, Class<? extends SonarHostException> type) {
+    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+    return cause instanceof UncheckedSonarHostException && type.isInstance(cause.getCause());
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import au.com.integradev.delphilint.remote.SonarHostException;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Serves the SonarQube web services that describe a project's configuration from a {@link
+ * SonarMetadataCache}, so that only the project's issues are retrieved from the host on every
+ * analysis.
+ */
+public class CachingSonarApi implements SonarApi {
+  private static final Set<String> CACHED_URLS =
+      Set.of(
+          "/api/server/version",
+          "/api/qualityprofiles/search",
+          "/api/rules/search",
+          "/api/plugins/installed",
+          "/api/v2/clean-code-policy/mode");
+
+  private final SonarApi api;
+  private final String token;
+  private final SonarMetadataCache cache;
+
+  /**
+   * @param api the API to retrieve responses from.
+   * @param token the token that the API authenticates with.
+   * @param cache the cache to share responses through.
+   */
+  public CachingSonarApi(SonarApi api, String token, SonarMetadataCache cache) {
+    this.api = api;
+    this.token = token;
+    this.cache = cache;
+  }
+
+  @Override
+  public String getHostUrl() {
+    return api.getHostUrl();
+  }
+
+  @Override
+  public JsonNode getJson(String url) throws SonarHostException {
+    if (!isCached(url)) {
+      return api.getJson(url);
+    }
+
+    var entry = cache.get(api, token, url);
+    return entry == null ? null : entry.getJson();
+  }
+
+  @Override
+  public JsonNode getJson(String url, Map<String, String> params) throws SonarHostException {
+    return getJson(url + HttpUtils.buildParamString(params));
+  }
+
+  @Override
+  public CompletableFuture<JsonNode> getJsonAsync(String url) {
+    if (!isCached(url)) {
+      return api.getJsonAsync(url);
+    }
+    return SonarApi.super.getJsonAsync(url);
+  }
+
+  @Override
+  public int getMaxConcurrentRequests() {
+    return api.getMaxConcurrentRequests();
+  }
+
+  @Override
+  public Path getFile(String url) throws SonarHostException {
+    return api.getFile(url);
+  }
+
+  @Override
+  public Path getFile(String url, Map<String, String> params) throws SonarHostException {
+    return api.getFile(url, params);
+  }
+
+  @Override
+  public String getText(String url) throws SonarHostException {
+    if (!isCached(url)) {
+      return api.getText(url);
+    }
+
+    var entry = cache.get(api, token, url);
+    return entry == null ? null : entry.getBody();
+  }
+
+  @Override
+  public String getText(String url, Map<String, String> params) throws SonarHostException {
+    return getText(url + HttpUtils.buildParamString(params));
+  }
+
+  @Override
+  public ConditionalResponse getTextIfModified(String url, @Nullable String entityTag)
+      throws SonarHostException {
+    return api.getTextIfModified(url, entityTag);
+  }
+
+  private static boolean isCached(String url) {
+    int queryIndex = url.indexOf('?');
+    return CACHED_URLS.contains(queryIndex == -1 ? url : url.substring(0, queryIndex));
+  }
+}
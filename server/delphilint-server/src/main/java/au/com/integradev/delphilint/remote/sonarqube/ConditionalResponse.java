@@ -0,0 +1,59 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import org.jetbrains.annotations.Nullable;
+
+/** A text response to a request that may have been answered with "304 Not Modified". */
+public class ConditionalResponse {
+  private static final ConditionalResponse NOT_MODIFIED = new ConditionalResponse(null, null);
+  private final String body;
+  private final String entityTag;
+
+  private ConditionalResponse(@Nullable String body, @Nullable String entityTag) {
+    this.body = body;
+    this.entityTag = entityTag;
+  }
+
+  /**
+   * @param body the body of the response.
+   * @param entityTag the value of the response's ETag header, or null if it had none.
+   * @return a response whose body has changed since it was last retrieved.
+   */
+  public static ConditionalResponse modified(String body, @Nullable String entityTag) {
+    return new ConditionalResponse(body, entityTag);
+  }
+
+  public static ConditionalResponse notModified() {
+    return NOT_MODIFIED;
+  }
+
+  public boolean isNotModified() {
+    return body == null;
+  }
+
+  @Nullable
+  public String getBody() {
+    return body;
+  }
+
+  @Nullable
+  public String getEntityTag() {
+    return entityTag;
+  }
+}
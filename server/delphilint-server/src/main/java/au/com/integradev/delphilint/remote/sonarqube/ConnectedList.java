@@ -22,13 +22,16 @@ import au.com.integradev.delphilint.remote.UncheckedSonarHostException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -54,13 +57,15 @@ public class ConnectedList<T> implements Iterable<T> {
     }
 
     JsonNode paging = rootNode.get("paging");
-    JsonNode pageTotal = paging.get("total");
+    JsonNode total = paging.get("total");
+    JsonNode pageSize = paging.get("pageSize");
 
-    if (pageTotal == null || !pageTotal.isInt()) {
+    if (total == null || !total.isInt() || pageSize == null || pageSize.asInt() <= 0) {
       return -1;
     }
 
-    return pageTotal.asInt();
+    // "total" is the number of elements, not the number of pages
+    return (total.asInt() + pageSize.asInt() - 1) / pageSize.asInt();
   }
 
   private Collection<T> getArrayContents(JsonNode rootNode) {
@@ -83,48 +88,146 @@ public class ConnectedList<T> implements Iterable<T> {
     }
   }
 
+  private String getPageUrl(int page) {
+    return url + "&p=" + page;
+  }
+
+  /**
+   * Retrieves every page of the list without blocking the calling thread.
+   *
+   * <p>Once the first page has been retrieved, the remaining pages are requested up to {@link
+   * SonarApi#getMaxConcurrentRequests()} pages at once.
+   *
+   * @return a future that completes with the elements of every page in page order, or exceptionally
+   *     with an {@link UncheckedSonarHostException} if a page could not be retrieved.
+   */
+  public CompletableFuture<List<T>> getAllAsync() {
+    return api.getJsonAsync(url)
+        .thenCompose(
+            rootNode -> {
+              int pageCount = getPageCount(rootNode);
+              JsonNode[] pages = new JsonNode[Math.max(pageCount, 1)];
+              pages[0] = rootNode;
+
+              int lanes = Math.max(1, Math.min(api.getMaxConcurrentRequests(), pageCount - 1));
+              CompletableFuture<?>[] laneFutures = new CompletableFuture<?>[lanes];
+              for (int lane = 0; lane < lanes; lane++) {
+                laneFutures[lane] = requestPagesAsync(pages, 2 + lane, pageCount, lanes);
+              }
+
+              return CompletableFuture.allOf(laneFutures)
+                  .thenApply(
+                      ignored -> {
+                        List<T> elements = new ArrayList<>();
+                        for (JsonNode page : pages) {
+                          elements.addAll(getArrayContents(page));
+                        }
+                        return elements;
+                      });
+            });
+  }
+
+  private CompletableFuture<Void> requestPagesAsync(
+      JsonNode[] pages, int page, int pageCount, int stride) {
+    if (page > pageCount) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return api.getJsonAsync(getPageUrl(page))
+        .thenCompose(
+            rootNode -> {
+              pages[page - 1] = rootNode;
+              return requestPagesAsync(pages, page + stride, pageCount, stride);
+            });
+  }
+
+  /**
+   * Retrieves the first page of the list, and then the remaining pages as they are needed.
+   *
+   * <p>If the API allows several concurrent requests, the pages after the one being consumed are
+   * requested ahead of time, up to {@link SonarApi#getMaxConcurrentRequests()} pages at once.
+   * Elements are always returned in page order.
+   */
   @Override
   public Iterator<T> iterator() {
     try {
       JsonNode rootNode = api.getJson(url);
-      int initialPageCount = getPageCount(rootNode);
-      Queue<T> initialContent = new LinkedList<>(getArrayContents(rootNode));
+      return new PageIterator(getPageCount(rootNode), getArrayContents(rootNode));
+    } catch (SonarHostException e) {
+      throw new UncheckedSonarHostException(e);
+    }
+  }
 
-      return new Iterator<>() {
-        private int page;
-        private int pageCount = initialPageCount;
-        private final Queue<T> nextContent = initialContent;
+  private class PageIterator implements Iterator<T> {
+    private final int pageCount;
+    private final int maxConcurrentRequests;
+    private final Queue<T> nextContent;
+    private final Queue<CompletableFuture<JsonNode>> requestedPages = new ArrayDeque<>();
+    private int nextPageToRequest = 2;
+
+    PageIterator(int pageCount, Collection<T> firstPage) {
+      this.pageCount = pageCount;
+      this.maxConcurrentRequests = api.getMaxConcurrentRequests();
+      this.nextContent = new ArrayDeque<>(firstPage);
+
+      if (maxConcurrentRequests > 1) {
+        requestPages();
+      }
+    }
 
-        @Override
-        public boolean hasNext() {
-          return !nextContent.isEmpty();
+    @Override
+    public boolean hasNext() {
+      while (nextContent.isEmpty()) {
+        requestPages();
+        if (requestedPages.isEmpty()) {
+          break;
         }
 
-        @Override
-        public T next() {
-          if (nextContent.isEmpty()) {
-            throw new NoSuchElementException();
-          }
+        CompletableFuture<JsonNode> page = requestedPages.remove();
+        if (maxConcurrentRequests > 1) {
+          requestPages();
+        }
+        nextContent.addAll(getArrayContents(await(page)));
+      }
+      return !nextContent.isEmpty();
+    }
 
-          T element = nextContent.remove();
-
-          if (nextContent.isEmpty() && page + 1 < pageCount) {
-            page += 1;
-            try {
-              JsonNode rootNode = api.getJson(url + "&p=" + page);
-              pageCount = getPageCount(rootNode);
-              nextContent.addAll(getArrayContents(rootNode));
-            } catch (SonarHostException e) {
-              throw new UncheckedSonarHostException(e);
-            }
-          }
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return nextContent.remove();
+    }
 
-          return element;
+    private void requestPages() {
+      while (nextPageToRequest <= pageCount && requestedPages.size() < maxConcurrentRequests) {
+        String pageUrl = getPageUrl(nextPageToRequest);
+        nextPageToRequest += 1;
+
+        if (maxConcurrentRequests > 1) {
+          requestedPages.add(api.getJsonAsync(pageUrl));
+        } else {
+          try {
+            requestedPages.add(CompletableFuture.completedFuture(api.getJson(pageUrl)));
+          } catch (SonarHostException e) {
+            throw new UncheckedSonarHostException(e);
+          }
         }
-      };
+      }
+    }
 
-    } catch (SonarHostException e) {
-      throw new UncheckedSonarHostException(e);
+    private JsonNode await(CompletableFuture<JsonNode> page) {
+      try {
+        return page.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof UncheckedSonarHostException) {
+          throw (UncheckedSonarHostException) e.getCause();
+        } else if (e.getCause() instanceof SonarHostException) {
+          throw new UncheckedSonarHostException(e.getCause());
+        }
+        throw e;
+      }
     }
   }
 }
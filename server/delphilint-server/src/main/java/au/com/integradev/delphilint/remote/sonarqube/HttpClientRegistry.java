@@ -0,0 +1,111 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Shares one HTTP client between all requests to the same SonarQube host, so that connections, TLS
+ * sessions and HTTP/2 streams are reused across requests instead of being set up again for every
+ * analysis.
+ *
+ * <p>Asynchronous requests to the same host also share one {@link RequestLimiter}, so that no more
+ * than the configured number of requests are in flight to a host at once, however many lists and
+ * batches are being retrieved concurrently.
+ */
+public class HttpClientRegistry {
+  private static final Logger LOG = LogManager.getLogger(HttpClientRegistry.class);
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+  private final Duration connectTimeout;
+  private final Duration requestTimeout;
+  private final int maxConcurrentRequests;
+  private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+  private final Map<String, RequestLimiter> limiters = new ConcurrentHashMap<>();
+
+  public HttpClientRegistry() {
+    this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, DEFAULT_MAX_CONCURRENT_REQUESTS);
+  }
+
+  /**
+   * @param connectTimeout how long to wait for a connection to a host to be established.
+   * @param requestTimeout how long to wait for a response to a request, not including the time
+   *     taken to download the response body.
+   * @param maxConcurrentRequests the maximum number of asynchronous requests to have in flight to
+   *     each host at once.
+   */
+  public HttpClientRegistry(
+      Duration connectTimeout, Duration requestTimeout, int maxConcurrentRequests) {
+    this.connectTimeout = connectTimeout;
+    this.requestTimeout = requestTimeout;
+    this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+  }
+
+  /**
+   * @param hostUrl the URL of the host.
+   * @return the shared client for the host's scheme and authority.
+   */
+  public HttpClient getClient(String hostUrl) {
+    return clients.computeIfAbsent(getClientKey(hostUrl), this::createClient);
+  }
+
+  /**
+   * @param hostUrl the URL of the host.
+   * @return the shared limiter for asynchronous requests to the host's scheme and authority.
+   */
+  RequestLimiter getRequestLimiter(String hostUrl) {
+    return limiters.computeIfAbsent(
+        getClientKey(hostUrl), key -> new RequestLimiter(maxConcurrentRequests));
+  }
+
+  public Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
+  private HttpClient createClient(String clientKey) {
+    LOG.info("Creating HTTP client for {}", clientKey);
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(connectTimeout)
+        .build();
+  }
+
+  static String getClientKey(String hostUrl) {
+    try {
+      URI uri = URI.create(hostUrl);
+      if (uri.getScheme() != null && uri.getRawAuthority() != null) {
+        return (uri.getScheme() + "://" + uri.getRawAuthority()).toLowerCase(Locale.ROOT);
+      }
+    } catch (IllegalArgumentException e) {
+      LOG.debug(e);
+    }
+    return hostUrl;
+  }
+}
@@ -24,32 +24,53 @@ import au.com.integradev.delphilint.remote.SonarHostException;
 import au.com.integradev.delphilint.remote.SonarHostForbiddenException;
 import au.com.integradev.delphilint.remote.SonarHostStatusCodeException;
 import au.com.integradev.delphilint.remote.SonarHostUnauthorizedException;
+import au.com.integradev.delphilint.remote.UncheckedSonarHostException;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 public class HttpSonarApi implements SonarApi {
   private static final Logger LOG = LogManager.getLogger(HttpSonarApi.class);
   private final HttpClient http;
+  private final Duration requestTimeout;
+  private final int maxConcurrentRequests;
+  private final RequestLimiter requestLimiter;
   private final String hostUrl;
   private final String token;
 
   public HttpSonarApi(String hostUrl, String token) {
-    http = HttpClient.newHttpClient();
+    this(hostUrl, token, new HttpClientRegistry());
+  }
+
+  /**
+   * @param hostUrl the URL of the SonarQube host.
+   * @param token the token to authenticate with, or an empty string to not authenticate.
+   * @param httpClients the registry to get the shared HTTP client for the host from.
+   */
+  public HttpSonarApi(String hostUrl, String token, HttpClientRegistry httpClients) {
+    http = httpClients.getClient(hostUrl);
+    requestTimeout = httpClients.getRequestTimeout();
+    maxConcurrentRequests = httpClients.getMaxConcurrentRequests();
+    requestLimiter = httpClients.getRequestLimiter(hostUrl);
     this.hostUrl = hostUrl;
     this.token = token;
   }
@@ -72,6 +93,35 @@ public class HttpSonarApi implements SonarApi {
     return getJson(url + HttpUtils.buildParamString(params));
   }
 
+  @Override
+  public CompletableFuture<JsonNode> getJsonAsync(String url) {
+    return requestLimiter
+        .submit(() -> http.sendAsync(buildRequest(hostUrl + url, null), new JsonHttpHandler()))
+        .handle(
+            (response, error) -> {
+              try {
+                if (error != null) {
+                  Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                  if (cause instanceof IOException) {
+                    LOG.error(cause);
+                    throw new SonarHostConnectException();
+                  }
+                  throw new CompletionException(cause);
+                }
+
+                checkStatusCode(response.statusCode(), false);
+                return response.body().get();
+              } catch (SonarHostException e) {
+                throw new UncheckedSonarHostException(e);
+              }
+            });
+  }
+
+  @Override
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+
   public Path getFile(String url) throws SonarHostException {
     try {
       Path temp = Files.createTempFile("delphilint-server", ".tmp");
@@ -110,25 +160,31 @@ public class HttpSonarApi implements SonarApi {
     return Optional.of("Basic " + credentials);
   }
 
+  @Override
+  public ConditionalResponse getTextIfModified(String url, @Nullable String entityTag)
+      throws SonarHostException {
+    var response = send(hostUrl + url, BodyHandlers.ofString(), entityTag);
+    if (response == null) {
+      return null;
+    } else if (response.statusCode() == 304) {
+      return ConditionalResponse.notModified();
+    } else {
+      return ConditionalResponse.modified(
+          response.body(), response.headers().firstValue("ETag").orElse(null));
+    }
+  }
+
   private <T> T getResponse(String url, BodyHandler<T> handler) throws SonarHostException {
-    var reqBuilder = HttpRequest.newBuilder(URI.create(url));
-    getAuthorizationHeader().ifPresent(value -> reqBuilder.header("Authorization", value));
-    HttpRequest request = reqBuilder.build();
+    var response = send(url, handler, null);
+    return response == null ? null : response.body();
+  }
 
+  private <T> HttpResponse<T> send(String url, BodyHandler<T> handler, @Nullable String entityTag)
+      throws SonarHostException {
     try {
-      var response = http.send(request, handler);
-
-      if (response.statusCode() == 200) {
-        return response.body();
-      } else if (response.statusCode() == 400) {
-        throw new SonarHostBadRequestException();
-      } else if (response.statusCode() == 401) {
-        throw new SonarHostUnauthorizedException();
-      } else if (response.statusCode() == 403) {
-        throw new SonarHostForbiddenException();
-      } else {
-        throw new SonarHostStatusCodeException(response.statusCode());
-      }
+      var response = http.send(buildRequest(url, entityTag), handler);
+      checkStatusCode(response.statusCode(), entityTag != null);
+      return response;
     } catch (IOException e) {
       LOG.error(e);
       throw new SonarHostConnectException();
@@ -137,4 +193,26 @@ public class HttpSonarApi implements SonarApi {
     }
     return null;
   }
+
+  private HttpRequest buildRequest(String url, @Nullable String entityTag) {
+    var reqBuilder = HttpRequest.newBuilder(URI.create(url)).timeout(requestTimeout);
+    getAuthorizationHeader().ifPresent(value -> reqBuilder.header("Authorization", value));
+    if (entityTag != null) {
+      reqBuilder.header("If-None-Match", entityTag);
+    }
+    return reqBuilder.build();
+  }
+
+  private static void checkStatusCode(int statusCode, boolean conditional)
+      throws SonarHostException {
+    if (statusCode == 400) {
+      throw new SonarHostBadRequestException();
+    } else if (statusCode == 401) {
+      throw new SonarHostUnauthorizedException();
+    } else if (statusCode == 403) {
+      throw new SonarHostForbiddenException();
+    } else if (statusCode != 200 && !(conditional && statusCode == 304)) {
+      throw new SonarHostStatusCodeException(statusCode);
+    }
+  }
 }
@@ -0,0 +1,104 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of asynchronous requests that are in flight to a host at once.
+ *
+ * <p>Requests over the limit are queued, and are sent in order as earlier requests complete. No
+ * thread is blocked while a request is queued, so requests can be made from the completion
+ * callbacks of other requests.
+ */
+class RequestLimiter {
+  private final int maxConcurrentRequests;
+  private final Queue<Runnable> queuedRequests = new ArrayDeque<>();
+  private int requestsInFlight;
+
+  /**
+   * @param maxConcurrentRequests the maximum number of requests to have in flight at once.
+   */
+  public RequestLimiter(int maxConcurrentRequests) {
+    this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+  }
+
+  /**
+   * Sends a request once fewer than the maximum number of requests are in flight.
+   *
+   * @param request a supplier that sends the request.
+   * @return a future that completes with the result of the request.
+   */
+  public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+    var result = new CompletableFuture<T>();
+    Runnable send =
+        () -> {
+          CompletableFuture<T> response;
+          try {
+            response = request.get();
+          } catch (RuntimeException e) {
+            release();
+            result.completeExceptionally(e);
+            return;
+          }
+
+          response.whenComplete(
+              (value, error) -> {
+                release();
+                if (error == null) {
+                  result.complete(value);
+                } else {
+                  result.completeExceptionally(error);
+                }
+              });
+        };
+
+    synchronized (this) {
+      if (requestsInFlight >= maxConcurrentRequests) {
+        queuedRequests.add(send);
+        return result;
+      }
+      requestsInFlight++;
+    }
+
+    send.run();
+    return result;
+  }
+
+  private void release() {
+    Runnable next;
+    synchronized (this) {
+      // The request's slot is handed over to the next queued request, if there is one
+      next = queuedRequests.poll();
+      if (next == null) {
+        requestsInFlight--;
+      }
+    }
+
+    if (next != null) {
+      next.run();
+    }
+  }
+
+  synchronized int getRequestsInFlight() {
+    return requestsInFlight;
+  }
+}
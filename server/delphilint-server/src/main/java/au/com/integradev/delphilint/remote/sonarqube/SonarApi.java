@@ -18,9 +18,12 @@
 package au.com.integradev.delphilint.remote.sonarqube;
 
 import au.com.integradev.delphilint.remote.SonarHostException;
+import au.com.integradev.delphilint.remote.UncheckedSonarHostException;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.jetbrains.annotations.Nullable;
 
 public interface SonarApi {
   String getHostUrl();
@@ -36,4 +39,47 @@ public interface SonarApi {
   String getText(String url) throws SonarHostException;
 
   String getText(String url, Map<String, String> params) throws SonarHostException;
+
+  /**
+   * Retrieves a JSON response without blocking the calling thread.
+   *
+   * @param url the URL to retrieve, relative to the host URL.
+   * @return a future that completes with the response, or exceptionally with an {@link
+   *     UncheckedSonarHostException} if an error occurs during communication with the host.
+   */
+  default CompletableFuture<JsonNode> getJsonAsync(String url) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return getJson(url);
+          } catch (SonarHostException e) {
+            throw new UncheckedSonarHostException(e);
+          }
+        });
+  }
+
+  /**
+   * @return the maximum number of requests that a single operation, such as retrieving the pages of
+   *     a list, should have in flight at once.
+   */
+  default int getMaxConcurrentRequests() {
+    return 1;
+  }
+
+  /**
+   * Retrieves a text response, unless it has not changed since it was last retrieved.
+   *
+   * <p>Hosts that do not support conditional requests always return the full response.
+   *
+   * @param url the URL to retrieve, relative to the host URL.
+   * @param entityTag the entity tag of the last retrieved response, or null to always retrieve the
+   *     full response.
+   * @return the response, or null if the request was interrupted.
+   * @throws SonarHostException if an error occurs during communication with the host.
+   */
+  default ConditionalResponse getTextIfModified(String url, @Nullable String entityTag)
+      throws SonarHostException {
+    String body = getText(url);
+    return body == null ? null : ConditionalResponse.modified(body, null);
+  }
 }
@@ -0,0 +1,146 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import au.com.integradev.delphilint.remote.SonarHostException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Shares the responses of SonarQube web services that describe a project's configuration, such as
+ * its quality profile and active rules, between analyses.
+ *
+ * <p>A response is served from the cache until it is older than the cache's time to live. After
+ * that, it is revalidated with a conditional request if the host supplied an entity tag for it, or
+ * retrieved again if not.
+ */
+public class SonarMetadataCache {
+  private static final Logger LOG = LogManager.getLogger(SonarMetadataCache.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+  static final int MAX_ENTRIES = 64;
+  private final Duration timeToLive;
+  private final Clock clock;
+  private final Map<List<String>, CachedResponse> entries =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, CachedResponse> eldest) {
+          return size() > MAX_ENTRIES;
+        }
+      };
+
+  /**
+   * @param timeToLive how long a response is used for before it is revalidated with the host.
+   */
+  public SonarMetadataCache(Duration timeToLive) {
+    this(timeToLive, Clock.systemUTC());
+  }
+
+  SonarMetadataCache(Duration timeToLive, Clock clock) {
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+  }
+
+  /**
+   * @param api the API to retrieve the response from if it is not cached or has expired.
+   * @param token the token that the API authenticates with, as different users may be able to see
+   *     different responses.
+   * @param url the URL to retrieve, relative to the host URL.
+   * @return the cached response, or null if the request was interrupted.
+   * @throws SonarHostException if an error occurs during communication with the host.
+   */
+  @Nullable
+  CachedResponse get(SonarApi api, String token, String url) throws SonarHostException {
+    List<String> key = List.of(api.getHostUrl(), token, url);
+    CachedResponse entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+
+    Instant now = clock.instant();
+    if (entry != null && now.isBefore(entry.validUntil)) {
+      LOG.debug("Using cached response for {}", url);
+      return entry;
+    }
+
+    var response = api.getTextIfModified(url, entry == null ? null : entry.entityTag);
+    if (response == null) {
+      return null;
+    }
+
+    if (response.isNotModified() && entry != null) {
+      LOG.debug("Cached response for {} is still valid", url);
+      entry.validUntil = now.plus(timeToLive);
+    } else {
+      entry = new CachedResponse(response.getBody(), response.getEntityTag(), now.plus(timeToLive));
+    }
+
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+    return entry;
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  static class CachedResponse {
+    private final String body;
+    private final String entityTag;
+    private volatile Instant validUntil;
+    private volatile JsonNode json;
+
+    private CachedResponse(String body, @Nullable String entityTag, Instant validUntil) {
+      this.body = body;
+      this.entityTag = entityTag;
+      this.validUntil = validUntil;
+    }
+
+    String getBody() {
+      return body;
+    }
+
+    /**
+     * @return the body parsed as JSON, which must not be modified as it is shared between analyses.
+     */
+    @Nullable
+    JsonNode getJson() {
+      if (json == null) {
+        try {
+          json = MAPPER.readTree(body);
+        } catch (JsonProcessingException e) {
+          LOG.error(e);
+        }
+      }
+      return json;
+    }
+  }
+}
@@ -23,6 +23,7 @@ import au.com.integradev.delphilint.remote.IssueStatus;
 import au.com.integradev.delphilint.remote.RemoteActiveRule;
 import au.com.integradev.delphilint.remote.RemoteCleanCode;
 import au.com.integradev.delphilint.remote.RemoteIssue;
+import au.com.integradev.delphilint.remote.RemoteIssues;
 import au.com.integradev.delphilint.remote.RemotePlugin;
 import au.com.integradev.delphilint.remote.RemoteRule;
 import au.com.integradev.delphilint.remote.RemoteRuleDescription;
@@ -33,6 +34,7 @@ import au.com.integradev.delphilint.remote.SonarCharacteristics;
 import au.com.integradev.delphilint.remote.SonarHost;
 import au.com.integradev.delphilint.remote.SonarHostException;
 import au.com.integradev.delphilint.remote.SonarHostForbiddenException;
+import au.com.integradev.delphilint.remote.SonarHostFutures;
 import au.com.integradev.delphilint.remote.UncheckedSonarHostException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -48,6 +50,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -85,7 +89,10 @@ public class SonarQubeHost implements SonarHost {
   private final String pluginKeyDiscriminator;
   private final ObjectMapper jsonMapper;
   private final SonarApi api;
+  // Only accessed on the calling thread, as asynchronous requests are made after these are resolved
   private SonarCharacteristics characteristics;
+  private SonarQubeQualityProfile qualityProfile;
+  private Taxonomy taxonomy;
 
   public SonarQubeHost(
       SonarApi api,
@@ -119,6 +126,13 @@ public class SonarQubeHost implements SonarHost {
   }
 
   public SonarQubeQualityProfile getQualityProfile() throws SonarHostException {
+    if (qualityProfile == null) {
+      qualityProfile = retrieveQualityProfile();
+    }
+    return qualityProfile;
+  }
+
+  private SonarQubeQualityProfile retrieveQualityProfile() throws SonarHostException {
     Map<String, String> params = new LinkedHashMap<>();
     params.put(PARAM_LANGUAGE, languageKey);
     if (projectKey.isEmpty()) {
@@ -193,6 +207,13 @@ public class SonarQubeHost implements SonarHost {
   }
 
   private Taxonomy getTaxonomy() throws SonarHostException {
+    if (taxonomy == null) {
+      taxonomy = calculateTaxonomy();
+    }
+    return taxonomy;
+  }
+
+  private Taxonomy calculateTaxonomy() throws SonarHostException {
     if (getCharacteristics().usesCodeAttributesUnconditionally()) {
       // 10.2 to 10.7 (inclusive) enforce the use of the clean code taxonomy
       LOG.info("Taxonomy determined: clean code (by version)");
@@ -368,112 +389,119 @@ public class SonarQubeHost implements SonarHost {
       Collection<String> issueParams,
       Collection<String> hotspotParams)
       throws SonarHostException {
-    Set<RemoteIssue> issues = getIssuesAndHotspots(relativeFilePaths, issueParams, hotspotParams);
-    if (!testRelativeFilePaths.isEmpty()) {
-      issues.addAll(getIssuesAndHotspots(testRelativeFilePaths, issueParams, hotspotParams));
-    }
-
-    return issues;
-  }
-
-  private Set<RemoteIssue> getIssuesAndHotspots(
-      Collection<String> relativeFilePaths,
-      Collection<String> issueParams,
-      Collection<String> hotspotParams)
-      throws SonarHostException {
     if (projectKey.isEmpty()) {
       return Collections.emptySet();
     }
 
     var useCleanCode = getTaxonomy() == Taxonomy.CLEAN_CODE;
 
-    Set<RemoteIssue> issues = getIssues(relativeFilePaths, issueParams, useCleanCode);
-    issues.addAll(getHotspots(relativeFilePaths, hotspotParams, useCleanCode));
+    // The issues and hotspots of the main and test files are independent queries, so they are all
+    // requested before any of them are waited for
+    List<CompletableFuture<Set<RemoteIssue>>> queries = new ArrayList<>();
+    queries.add(getIssuesAsync(relativeFilePaths, issueParams, useCleanCode));
+    queries.add(getHotspotsAsync(relativeFilePaths, hotspotParams, useCleanCode));
+    if (!testRelativeFilePaths.isEmpty()) {
+      queries.add(getIssuesAsync(testRelativeFilePaths, issueParams, useCleanCode));
+      queries.add(getHotspotsAsync(testRelativeFilePaths, hotspotParams, useCleanCode));
+    }
+
+    Set<RemoteIssue> issues = new HashSet<>();
+    for (CompletableFuture<Set<RemoteIssue>> query : queries) {
+      issues.addAll(SonarHostFutures.join(query));
+    }
     return issues;
   }
 
-  private Set<RemoteIssue> getIssues(
+  private static <T> CompletableFuture<List<T>> getAllAsync(List<ConnectedList<T>> lists) {
+    List<CompletableFuture<List<T>>> futures =
+        lists.stream().map(ConnectedList::getAllAsync).collect(Collectors.toList());
+
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+        .thenApply(
+            ignored ->
+                futures.stream()
+                    .flatMap(future -> future.join().stream())
+                    .collect(Collectors.toList()));
+  }
+
+  private CompletableFuture<Set<RemoteIssue>> getIssuesAsync(
       Collection<String> relativeFilePaths, Collection<String> params, boolean useCleanCode)
       throws SonarHostException {
-    Set<RemoteIssue> remoteIssues = new HashSet<>();
-
     List<String> componentKeyBatches =
         joinStringsWithLimit(relativeFilePaths, filePath -> projectKey + ":" + filePath, 1500);
 
-    List<String> dynIssueParams = new ArrayList<>(params);
-    dynIssueParams.add(0, "<component keys>");
+    String componentKeysParam =
+        getCharacteristics().issuesSearchComponentKeysDeprecated()
+            ? "components="
+            : "componentKeys=";
 
+    List<ConnectedList<SonarQubeIssue>> batches = new ArrayList<>();
     for (String componentKeyBatch : componentKeyBatches) {
       LOG.info("Getting issues for component keys: {}", componentKeyBatch);
-      if (getCharacteristics().issuesSearchComponentKeysDeprecated()) {
-        dynIssueParams.set(0, "components=" + componentKeyBatch);
-      } else {
-        dynIssueParams.set(0, "componentKeys=" + componentKeyBatch);
-      }
+      List<String> dynIssueParams = new ArrayList<>(params);
+      dynIssueParams.add(0, componentKeysParam + componentKeyBatch);
 
-      try {
-        ConnectedList<SonarQubeIssue> serverIssues =
-            new ConnectedList<>(
-                api,
-                URL_ISSUES_SEARCH + HttpUtils.buildParamString(dynIssueParams),
-                "issues",
-                SonarQubeIssue.class);
-
-        for (SonarQubeIssue sqIssue : serverIssues) {
-          remoteIssues.add(sqIssueToRemote(sqIssue, useCleanCode));
-        }
-      } catch (UncheckedSonarHostException e) {
-        throw (SonarHostException) e.getCause();
-      }
+      batches.add(
+          new ConnectedList<>(
+              api,
+              URL_ISSUES_SEARCH + HttpUtils.buildParamString(dynIssueParams),
+              "issues",
+              SonarQubeIssue.class));
     }
 
-    return remoteIssues;
+    return getAllAsync(batches)
+        .thenApply(
+            sqIssues ->
+                sqIssues.stream()
+                    .map(sqIssue -> sqIssueToRemote(sqIssue, useCleanCode))
+                    .collect(Collectors.toSet()));
   }
 
-  private Set<RemoteIssue> getHotspots(
+  private CompletableFuture<Set<RemoteIssue>> getHotspotsAsync(
       Collection<String> relativeFilePaths, Collection<String> params, boolean useCleanCode)
       throws SonarHostException {
-    Set<RemoteIssue> remoteHotspots = new HashSet<>();
-
     List<String> filePathBatches = joinStringsWithLimit(relativeFilePaths, s -> s, 1500);
-    List<String> dynHotspotParams = new ArrayList<>(params);
-    dynHotspotParams.add(0, "<files>");
 
-    if (getCharacteristics().hotspotsSearchProjectKeyDeprecated()) {
-      dynHotspotParams.add(1, "project=" + projectKey);
-    } else {
-      dynHotspotParams.add(1, "projectKey=" + projectKey);
-    }
+    String projectKeyParam =
+        getCharacteristics().hotspotsSearchProjectKeyDeprecated()
+            ? "project=" + projectKey
+            : "projectKey=" + projectKey;
 
+    List<ConnectedList<SonarQubeHotspot>> batches = new ArrayList<>();
     for (String filePathBatch : filePathBatches) {
       LOG.info("Getting hotspots for files: {}", filePathBatch);
-      dynHotspotParams.set(0, "files=" + filePathBatch);
-
-      try {
-        ConnectedList<SonarQubeHotspot> resolvedHotspots =
-            new ConnectedList<>(
-                api,
-                URL_HOTSPOTS_SEARCH + HttpUtils.buildParamString(dynHotspotParams),
-                "hotspots",
-                SonarQubeHotspot.class);
-
-        for (SonarQubeHotspot sqHotspot : resolvedHotspots) {
-          remoteHotspots.add(sqIssueToRemote(sqHotspot, useCleanCode));
-        }
-      } catch (UncheckedSonarHostException e) {
-        if (e.getCause() instanceof SonarHostForbiddenException) {
-          // SonarQube has a bug that causes /api/hotspots/search to only be accessible when
-          // using a user token, counter to their documentation. We must recover gracefully
-          // from this situation so that analysis and project tokens remain mostly supported.
-          LOG.warn(e);
-          return Collections.emptySet();
-        }
+      List<String> dynHotspotParams = new ArrayList<>(params);
+      dynHotspotParams.add(0, "files=" + filePathBatch);
+      dynHotspotParams.add(1, projectKeyParam);
 
-        throw (SonarHostException) e.getCause();
-      }
-    }
+      batches.add(
+          new ConnectedList<>(
+              api,
+              URL_HOTSPOTS_SEARCH + HttpUtils.buildParamString(dynHotspotParams),
+              "hotspots",
+              SonarQubeHotspot.class));
+    }
+
+    return getAllAsync(batches)
+        .thenApply(
+            sqHotspots ->
+                sqHotspots.stream()
+                    .map(sqHotspot -> sqIssueToRemote(sqHotspot, useCleanCode))
+                    .collect(Collectors.toSet()))
+        .exceptionally(
+            error -> {
+              if (SonarHostFutures.isCausedBy(error, SonarHostForbiddenException.class)) {
+                // SonarQube has a bug that causes /api/hotspots/search to only be accessible when
+                // using a user token, counter to their documentation. We must recover gracefully
+                // from this situation so that analysis and project tokens remain mostly supported.
+                LOG.warn(error.getCause());
+                return Collections.emptySet();
+              }
 
-    return remoteHotspots;
+              throw error instanceof CompletionException
+                  ? (CompletionException) error
+                  : new CompletionException(error);
+            });
   }
 
   public Collection<RemoteIssue> getResolvedIssues(
@@ -489,11 +517,9 @@ public class SonarQubeHost implements SonarHost {
             List.of("resolved=true"),
             List.of("status=REVIEWED"))
         .stream()
-        // Acknowledged hotspots should not suppress issues
         .filter(
             issue ->
-                issue.getLikeType() != IssueLikeType.SECURITY_HOTSPOT
-                    || !"ACKNOWLEDGED".equals(issue.getResolution()))
+                issue.getLikeType() != IssueLikeType.SECURITY_HOTSPOT || isResolvedHotspot(issue))
         .collect(Collectors.toSet());
   }
 
@@ -512,12 +538,57 @@ public class SonarQubeHost implements SonarHost {
         .stream()
         .filter(
             issue ->
-                issue.getLikeType() != IssueLikeType.SECURITY_HOTSPOT
-                    || (issue.getStatus() == IssueStatus.TO_REVIEW
-                        || "ACKNOWLEDGED".equals(issue.getResolution())))
+                issue.getLikeType() != IssueLikeType.SECURITY_HOTSPOT || isUnresolvedHotspot(issue))
         .collect(Collectors.toSet());
   }
 
+  @Override
+  public RemoteIssues getIssues(
+      Collection<String> relativeFilePaths, Collection<String> testRelativeFilePaths)
+      throws SonarHostException {
+    Set<RemoteIssue> resolved = new HashSet<>();
+    Set<RemoteIssue> unresolved = new HashSet<>();
+    if (projectKey.isEmpty()) {
+      return new RemoteIssues(resolved, unresolved);
+    }
+
+    // Issues and hotspots of both states are retrieved together and partitioned here, rather than
+    // querying for the resolved and unresolved ones separately
+    Set<RemoteIssue> issues =
+        getIssuesAndHotspots(
+            relativeFilePaths,
+            testRelativeFilePaths,
+            Collections.emptyList(),
+            Collections.emptyList());
+
+    for (RemoteIssue issue : issues) {
+      if (issue.getLikeType() == IssueLikeType.SECURITY_HOTSPOT) {
+        if (isResolvedHotspot(issue)) {
+          resolved.add(issue);
+        } else if (isUnresolvedHotspot(issue)) {
+          unresolved.add(issue);
+        }
+      } else if (issue.getResolution() != null) {
+        resolved.add(issue);
+      } else {
+        unresolved.add(issue);
+      }
+    }
+
+    return new RemoteIssues(resolved, unresolved);
+  }
+
+  private static boolean isResolvedHotspot(RemoteIssue hotspot) {
+    // Acknowledged hotspots should not suppress issues
+    return hotspot.getStatus() == IssueStatus.REVIEWED
+        && !"ACKNOWLEDGED".equals(hotspot.getResolution());
+  }
+
+  private static boolean isUnresolvedHotspot(RemoteIssue hotspot) {
+    return hotspot.getStatus() == IssueStatus.TO_REVIEW
+        || "ACKNOWLEDGED".equals(hotspot.getResolution());
+  }
+
   public Set<RemoteActiveRule> getActiveRules() throws SonarHostException {
     var profile = getQualityProfile();
     if (profile == null) {
@@ -17,84 +17,38 @@
  */
 package au.com.integradev.delphilint.remote.standalone;
 
-import au.com.integradev.delphilint.remote.CleanCodeAttribute;
-import au.com.integradev.delphilint.remote.ImpactSeverity;
 import au.com.integradev.delphilint.remote.RemoteActiveRule;
-import au.com.integradev.delphilint.remote.RemoteCleanCode;
 import au.com.integradev.delphilint.remote.RemoteIssue;
 import au.com.integradev.delphilint.remote.RemotePlugin;
 import au.com.integradev.delphilint.remote.RemoteRule;
-import au.com.integradev.delphilint.remote.RemoteRuleDescription;
-import au.com.integradev.delphilint.remote.RuleSeverity;
-import au.com.integradev.delphilint.remote.RuleType;
-import au.com.integradev.delphilint.remote.SoftwareQuality;
 import au.com.integradev.delphilint.remote.SonarCharacteristics;
 import au.com.integradev.delphilint.remote.SonarHost;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import org.sonarsource.sonarlint.core.commons.Language;
-import org.sonarsource.sonarlint.core.plugin.commons.LoadedPlugins;
-import org.sonarsource.sonarlint.core.rule.extractor.RulesDefinitionExtractor;
 import org.sonarsource.sonarlint.core.rule.extractor.SonarLintRuleDefinition;
-import org.sonarsource.sonarlint.core.rule.extractor.SonarLintRuleDescriptionSection;
 
 public abstract class AbstractStandaloneSonarHost implements SonarHost {
   private Set<RemoteActiveRule> activeRules;
-  private final List<SonarLintRuleDefinition> ruleDefinitions;
-  private final Set<RemoteRule> rules;
+  private final PluginRules pluginRules;
 
   protected AbstractStandaloneSonarHost() {
-    ruleDefinitions = Collections.emptyList();
-    rules = Collections.emptySet();
+    pluginRules = null;
     activeRules = Collections.emptySet();
   }
 
-  protected AbstractStandaloneSonarHost(LoadedPlugins loadedPlugins) {
-    var rulesExtractor = new RulesDefinitionExtractor();
-    ruleDefinitions =
-        rulesExtractor.extractRules(
-            loadedPlugins.getPluginInstancesByKeys(), Set.of(Language.DELPHI), false, true);
-
-    rules =
-        ruleDefinitions.stream()
-            .map(
-                ruleDef ->
-                    new RemoteRule(
-                        ruleDef.getKey(),
-                        ruleDef.getName(),
-                        RemoteRuleDescription.fromDescriptionSections(
-                            ruleDef.getDescriptionSections(),
-                            SonarLintRuleDescriptionSection::getKey,
-                            SonarLintRuleDescriptionSection::getHtmlContent),
-                        RuleSeverity.fromSonarLintIssueSeverity(ruleDef.getDefaultSeverity()),
-                        RuleType.fromSonarLintRuleType(ruleDef.getType()),
-                        ruleDef.getCleanCodeAttribute().isPresent()
-                            ? new RemoteCleanCode(
-                                CleanCodeAttribute.fromSonarLintCleanCodeAttribute(
-                                    ruleDef.getCleanCodeAttribute().get()),
-                                ruleDef.getDefaultImpacts().entrySet().stream()
-                                    .collect(
-                                        Collectors.toMap(
-                                            e ->
-                                                SoftwareQuality.fromSonarLintSoftwareQuality(
-                                                    e.getKey()),
-                                            e ->
-                                                ImpactSeverity.fromSonarLintImpactSeverity(
-                                                    e.getValue()))))
-                            : null))
-            .collect(Collectors.toSet());
+  protected AbstractStandaloneSonarHost(PluginRules pluginRules) {
+    this.pluginRules = pluginRules;
   }
 
   private Set<RemoteActiveRule> getOrComputeActiveRules() {
     if (activeRules == null) {
       activeRules =
-          ruleDefinitions.stream()
+          pluginRules.getRuleDefinitions().stream()
               .filter(this::isActiveRule)
               .map(
                   ruleDef ->
@@ -117,12 +71,12 @@ public abstract class AbstractStandaloneSonarHost implements SonarHost {
 
   @Override
   public Map<String, String> getRuleNamesByRuleKey() {
-    return getRules().stream().collect(Collectors.toMap(RemoteRule::getKey, RemoteRule::getName));
+    return pluginRules == null ? Collections.emptyMap() : pluginRules.getRuleNamesByRuleKey();
   }
 
   @Override
   public Set<RemoteRule> getRules() {
-    return rules;
+    return pluginRules == null ? Collections.emptySet() : pluginRules.getRules();
   }
 
   @Override
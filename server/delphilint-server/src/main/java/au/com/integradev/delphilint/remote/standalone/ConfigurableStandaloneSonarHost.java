@@ -18,15 +18,13 @@
 package au.com.integradev.delphilint.remote.standalone;
 
 import java.util.Set;
-import org.sonarsource.sonarlint.core.plugin.commons.LoadedPlugins;
 import org.sonarsource.sonarlint.core.rule.extractor.SonarLintRuleDefinition;
 
 public class ConfigurableStandaloneSonarHost extends AbstractStandaloneSonarHost {
   private final Set<String> disabledRuleKeys;
 
-  public ConfigurableStandaloneSonarHost(
-      LoadedPlugins loadedPlugins, Set<String> disabledRuleKeys) {
-    super(loadedPlugins);
+  public ConfigurableStandaloneSonarHost(PluginRules pluginRules, Set<String> disabledRuleKeys) {
+    super(pluginRules);
     this.disabledRuleKeys = disabledRuleKeys;
   }
 
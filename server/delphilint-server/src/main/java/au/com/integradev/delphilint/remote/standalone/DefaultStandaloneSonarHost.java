@@ -17,12 +17,11 @@
  */
 package au.com.integradev.delphilint.remote.standalone;
 
-import org.sonarsource.sonarlint.core.plugin.commons.LoadedPlugins;
 import org.sonarsource.sonarlint.core.rule.extractor.SonarLintRuleDefinition;
 
 public class DefaultStandaloneSonarHost extends AbstractStandaloneSonarHost {
-  public DefaultStandaloneSonarHost(LoadedPlugins loadedPlugins) {
-    super(loadedPlugins);
+  public DefaultStandaloneSonarHost(PluginRules pluginRules) {
+    super(pluginRules);
   }
 
   @Override
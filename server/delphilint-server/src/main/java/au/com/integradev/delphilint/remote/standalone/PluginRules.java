@@ -0,0 +1,121 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.standalone;
+
+import au.com.integradev.delphilint.remote.CleanCodeAttribute;
+import au.com.integradev.delphilint.remote.ImpactSeverity;
+import au.com.integradev.delphilint.remote.RemoteCleanCode;
+import au.com.integradev.delphilint.remote.RemoteRule;
+import au.com.integradev.delphilint.remote.RemoteRuleDescription;
+import au.com.integradev.delphilint.remote.RuleSeverity;
+import au.com.integradev.delphilint.remote.RuleType;
+import au.com.integradev.delphilint.remote.SoftwareQuality;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sonarsource.sonarlint.core.commons.Language;
+import org.sonarsource.sonarlint.core.plugin.commons.LoadedPlugins;
+import org.sonarsource.sonarlint.core.rule.extractor.RulesDefinitionExtractor;
+import org.sonarsource.sonarlint.core.rule.extractor.SonarLintRuleDefinition;
+import org.sonarsource.sonarlint.core.rule.extractor.SonarLintRuleDescriptionSection;
+
+/**
+ * The Delphi rules defined by a set of loaded plugins.
+ *
+ * <p>Extracting rule definitions instantiates and reflects over every rule in the plugins, so the
+ * rules are only extracted the first time they are needed, and are then shared by every standalone
+ * host that uses the same plugins.
+ */
+public class PluginRules {
+  private static final Logger LOG = LogManager.getLogger(PluginRules.class);
+  private final LoadedPlugins loadedPlugins;
+  private List<SonarLintRuleDefinition> ruleDefinitions;
+  private Set<RemoteRule> rules;
+  private Map<String, String> ruleNamesByRuleKey;
+
+  public PluginRules(LoadedPlugins loadedPlugins) {
+    this.loadedPlugins = loadedPlugins;
+  }
+
+  public synchronized List<SonarLintRuleDefinition> getRuleDefinitions() {
+    if (ruleDefinitions == null) {
+      long startTime = System.currentTimeMillis();
+      ruleDefinitions =
+          Collections.unmodifiableList(
+              new RulesDefinitionExtractor()
+                  .extractRules(
+                      loadedPlugins.getPluginInstancesByKeys(),
+                      Set.of(Language.DELPHI),
+                      false,
+                      true));
+      LOG.info(
+          "Extracted {} rule definitions in {} ms",
+          ruleDefinitions.size(),
+          System.currentTimeMillis() - startTime);
+    }
+
+    return ruleDefinitions;
+  }
+
+  public synchronized Set<RemoteRule> getRules() {
+    if (rules == null) {
+      rules =
+          getRuleDefinitions().stream()
+              .map(PluginRules::toRemoteRule)
+              .collect(Collectors.toUnmodifiableSet());
+    }
+
+    return rules;
+  }
+
+  public synchronized Map<String, String> getRuleNamesByRuleKey() {
+    if (ruleNamesByRuleKey == null) {
+      ruleNamesByRuleKey =
+          getRules().stream()
+              .collect(Collectors.toUnmodifiableMap(RemoteRule::getKey, RemoteRule::getName));
+    }
+
+    return ruleNamesByRuleKey;
+  }
+
+  private static RemoteRule toRemoteRule(SonarLintRuleDefinition ruleDef) {
+    return new RemoteRule(
+        ruleDef.getKey(),
+        ruleDef.getName(),
+        RemoteRuleDescription.fromDescriptionSections(
+            ruleDef.getDescriptionSections(),
+            SonarLintRuleDescriptionSection::getKey,
+            SonarLintRuleDescriptionSection::getHtmlContent),
+        RuleSeverity.fromSonarLintIssueSeverity(ruleDef.getDefaultSeverity()),
+        RuleType.fromSonarLintRuleType(ruleDef.getType()),
+        ruleDef.getCleanCodeAttribute().isPresent()
+            ? new RemoteCleanCode(
+                CleanCodeAttribute.fromSonarLintCleanCodeAttribute(
+                    ruleDef.getCleanCodeAttribute().get()),
+                ruleDef.getDefaultImpacts().entrySet().stream()
+                    .collect(
+                        Collectors.toMap(
+                            e -> SoftwareQuality.fromSonarLintSoftwareQuality(e.getKey()),
+                            e -> ImpactSeverity.fromSonarLintImpactSeverity(e.getValue()))))
+            : null);
+  }
+}
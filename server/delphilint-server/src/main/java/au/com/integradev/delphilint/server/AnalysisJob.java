@@ -0,0 +1,235 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import au.com.integradev.delphilint.analysis.AnalysisProgressMonitor;
+import au.com.integradev.delphilint.analysis.DelphiIssue;
+import au.com.integradev.delphilint.server.message.RequestAnalyze;
+import au.com.integradev.delphilint.server.message.ResponseAnalyzePartialResult;
+import au.com.integradev.delphilint.server.message.ResponseAnalyzeResult;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * A single run of the analysis engine on behalf of one or more analysis requests.
+ *
+ * <p>Requests that are queued behind a running analysis are merged into a pending job if they have
+ * the same analysis engine, base directory, host and properties. The job analyzes the union of the
+ * requested files, and each requester receives the results for the files that it requested, tagged
+ * with its own message ID. A newer request that covers the same files as a queued one therefore
+ * supersedes it, as both are answered from a single run.
+ *
+ * <p>The job is only cancelled once all of its requesters have cancelled. Requesters that cancel
+ * individually are sent an analysis cancelled message (38) with the next message or progress update
+ * of the job, and receive no further messages. Polling the job's progress monitor for cancellation
+ * sends nothing.
+ */
+class AnalysisJob {
+  private final RequestAnalyze request;
+  private final EngineHandle engine;
+  private final List<Requester> requesters = new ArrayList<>();
+  private final Map<String, Path> inputFiles = new LinkedHashMap<>();
+  private final AnalysisProgressMonitor progressMonitor = new JobProgressMonitor();
+  private final Set<DelphiIssue> streamedIssues = new HashSet<>();
+
+  public AnalysisJob(
+      RequestAnalyze request,
+      EngineHandle engine,
+      AnalysisProgressMonitor progressMonitor,
+      Consumer<LintMessage> sendMessage) {
+    this.request = request;
+    this.engine = engine;
+    addRequester(request, progressMonitor, sendMessage);
+  }
+
+  public boolean canMerge(EngineHandle otherEngine, RequestAnalyze other) {
+    return engine == otherEngine
+        && Objects.equals(request.getBaseDir(), other.getBaseDir())
+        && Objects.equals(request.getSonarHostUrl(), other.getSonarHostUrl())
+        && Objects.equals(request.getProjectKey(), other.getProjectKey())
+        && Objects.equals(request.getApiToken(), other.getApiToken())
+        && Objects.equals(request.getProjectProperties(), other.getProjectProperties())
+        && Objects.equals(request.getDisabledRules(), other.getDisabledRules());
+  }
+
+  public void addRequester(
+      RequestAnalyze requestAnalyze,
+      AnalysisProgressMonitor requesterProgressMonitor,
+      Consumer<LintMessage> sendMessage) {
+    Set<String> files = new HashSet<>();
+    for (Path file : requestAnalyze.getInputFiles()) {
+      String relativePath = toRelativePath(file);
+      files.add(relativePath);
+      inputFiles.putIfAbsent(relativePath, file);
+    }
+
+    requesters.add(
+        new Requester(
+            files, requestAnalyze.isStreamResults(), requesterProgressMonitor, sendMessage));
+  }
+
+  private String toRelativePath(Path file) {
+    Path relativePath = file.isAbsolute() ? request.getBaseDir().relativize(file) : file;
+    return relativePath.toString().replace(FileSystems.getDefault().getSeparator(), "/");
+  }
+
+  /**
+   * @return the request whose base directory, host and properties are shared by all requesters.
+   */
+  public RequestAnalyze getRequest() {
+    return request;
+  }
+
+  public Set<Path> getInputFiles() {
+    return new HashSet<>(inputFiles.values());
+  }
+
+  public int getRequesterCount() {
+    return requesters.size();
+  }
+
+  public AnalysisProgressMonitor getProgressMonitor() {
+    return progressMonitor;
+  }
+
+  public boolean isStreamResults() {
+    return requesters.stream().anyMatch(requester -> requester.streamResults);
+  }
+
+  /** Sends a message to every requester that has not cancelled. */
+  public void sendToAll(LintMessage message) {
+    for (Requester requester : requesters) {
+      if (requester.isActive()) {
+        requester.sendMessage.accept(message);
+      }
+    }
+  }
+
+  /** Sends an analysis cancelled message to every requester that has not already been sent one. */
+  public void sendCancelled() {
+    requesters.forEach(Requester::sendCancelled);
+  }
+
+  public void sendPartialResult(Set<DelphiIssue> issues) {
+    if (requesters.stream().anyMatch(requester -> !requester.streamResults)) {
+      streamedIssues.addAll(issues);
+    }
+
+    for (Requester requester : requesters) {
+      if (requester.isActive() && requester.streamResults) {
+        Set<DelphiIssue> requestedIssues = requester.filter(issues);
+        if (!requestedIssues.isEmpty()) {
+          var result = ResponseAnalyzePartialResult.fromIssueSet(requestedIssues);
+          result.convertPathsToAbsolute(request.getBaseDir());
+          requester.sendMessage.accept(LintMessage.analyzePartialResult(result));
+        }
+      }
+    }
+  }
+
+  public void sendResult(Set<DelphiIssue> issues, List<String> logMessages) {
+    for (Requester requester : requesters) {
+      if (requester.isActive()) {
+        Set<DelphiIssue> requestedIssues = requester.filter(issues);
+        if (!requester.streamResults) {
+          requestedIssues.addAll(requester.filter(streamedIssues));
+        }
+
+        var result = ResponseAnalyzeResult.fromIssueSet(requestedIssues, logMessages);
+        result.convertPathsToAbsolute(request.getBaseDir());
+        requester.sendMessage.accept(LintMessage.analyzeResult(result));
+      }
+    }
+  }
+
+  private static class Requester {
+    private final Set<String> files;
+    private final boolean streamResults;
+    private final AnalysisProgressMonitor progressMonitor;
+    private final Consumer<LintMessage> sendMessage;
+    private final AtomicBoolean cancelSent = new AtomicBoolean();
+
+    public Requester(
+        Set<String> files,
+        boolean streamResults,
+        AnalysisProgressMonitor progressMonitor,
+        Consumer<LintMessage> sendMessage) {
+      this.files = files;
+      this.streamResults = streamResults;
+      this.progressMonitor = progressMonitor;
+      this.sendMessage = sendMessage;
+    }
+
+    /**
+     * Sends the requester an analysis cancelled message if it has cancelled since the last call.
+     */
+    public boolean isActive() {
+      if (progressMonitor.isCanceled()) {
+        sendCancelled();
+      }
+
+      return !cancelSent.get();
+    }
+
+    public boolean isCancelRequested() {
+      return cancelSent.get() || progressMonitor.isCanceled();
+    }
+
+    /** Sends an analysis cancelled message, unless one has already been sent. */
+    public void sendCancelled() {
+      if (cancelSent.compareAndSet(false, true)) {
+        sendMessage.accept(LintMessage.analyzeCancelled());
+      }
+    }
+
+    public Set<DelphiIssue> filter(Set<DelphiIssue> issues) {
+      // Issues without a file are raised on the project as a whole
+      return issues.stream()
+          .filter(issue -> issue.getFile().isEmpty() || files.contains(issue.getFile()))
+          .collect(Collectors.toSet());
+    }
+  }
+
+  private class JobProgressMonitor extends AnalysisProgressMonitor {
+    public JobProgressMonitor() {
+      super(
+          progress -> {
+            for (Requester requester : requesters) {
+              if (requester.isActive()) {
+                requester.progressMonitor.publish(progress);
+              }
+            }
+          });
+    }
+
+    @Override
+    public boolean isCanceled() {
+      return super.isCanceled() || requesters.stream().allMatch(Requester::isCancelRequested);
+    }
+  }
+}
@@ -17,8 +17,11 @@
  */
 package au.com.integradev.delphilint.server;
 
+import au.com.integradev.delphilint.analysis.AnalysisCache;
 import au.com.integradev.delphilint.analysis.AnalysisOrchestrator;
+import au.com.integradev.delphilint.analysis.AnalysisProgressMonitor;
 import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import au.com.integradev.delphilint.analysis.EngineStartupConfigurationStore;
 import au.com.integradev.delphilint.maintenance.FallbackPluginProvider;
 import au.com.integradev.delphilint.maintenance.FallbackPluginProviderException;
 import au.com.integradev.delphilint.maintenance.SonarDelphiDownloader;
@@ -27,7 +30,11 @@ import au.com.integradev.delphilint.remote.SonarHostConnectException;
 import au.com.integradev.delphilint.remote.SonarHostException;
 import au.com.integradev.delphilint.remote.SonarHostUnauthorizedException;
 import au.com.integradev.delphilint.remote.UncheckedSonarHostException;
+import au.com.integradev.delphilint.remote.sonarqube.CachingSonarApi;
+import au.com.integradev.delphilint.remote.sonarqube.HttpClientRegistry;
 import au.com.integradev.delphilint.remote.sonarqube.HttpSonarApi;
+import au.com.integradev.delphilint.remote.sonarqube.SonarApi;
+import au.com.integradev.delphilint.remote.sonarqube.SonarMetadataCache;
 import au.com.integradev.delphilint.remote.sonarqube.SonarQubeHost;
 import au.com.integradev.delphilint.remote.sonarqube.Version;
 import au.com.integradev.delphilint.remote.standalone.ConfigurableStandaloneSonarHost;
@@ -36,41 +43,174 @@ import au.com.integradev.delphilint.remote.standalone.StubSonarHost;
 import au.com.integradev.delphilint.server.message.RequestAnalyze;
 import au.com.integradev.delphilint.server.message.RequestInitialize;
 import au.com.integradev.delphilint.server.message.RequestRuleRetrieve;
-import au.com.integradev.delphilint.server.message.ResponseAnalyzeResult;
 import au.com.integradev.delphilint.server.message.ResponseRuleRetrieveResult;
 import au.com.integradev.delphilint.server.message.data.RuleData;
 import au.com.integradev.delphilint.server.plugin.CachingPluginDownloader;
 import au.com.integradev.delphilint.server.plugin.DownloadedPlugin;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 import org.sonarsource.sonarlint.core.commons.Language;
 import org.sonarsource.sonarlint.core.commons.log.SonarLintLogger;
+import org.sonarsource.sonarlint.core.commons.progress.CanceledException;
 
 /**
  * As the interface to all of DelphiLint's core functionality, the analysis server manages
  * initialisation of the analysis orchestrator, running analyses, and connection to any external
  * hosts.
+ *
+ * <p>Requests may be handled concurrently. Analyses are serialized, while other operations (such as
+ * rule retrieval) can proceed in parallel with them. Each client session is bound to the analysis
+ * engine it initialized with (see {@link EngineBinding}). When a client initializes with different
+ * plugins or a different Delphi installation, a new engine is started alongside the existing ones.
+ * Recently used engines are kept in an {@link EnginePool}, so that switching back to a previous
+ * configuration does not require a new engine to be started.
  */
 public class AnalysisServer {
   private static final Logger LOG = LogManager.getLogger(AnalysisServer.class);
-  private AnalysisOrchestrator orchestrator;
+  private final Object analysisLock = new Object();
+  private final Object initializeLock = new Object();
+  // Guards the engine pool and the warm-up state. Never held while an engine is being warmed up.
+  private final Object engineLock = new Object();
+  private final List<AnalysisJob> pendingJobs = new ArrayList<>();
   private final CachingPluginDownloader pluginDownloader;
   private final FallbackPluginProvider fallbackPluginProvider;
-  private Set<DownloadedPlugin> pluginGroup;
+  private final MemoryPolicy memoryPolicy;
+  private final AnalysisCache analysisCache;
+  private final int analysisThreads;
+  private final EngineStartupConfigurationStore engineConfigStore;
+  private final EnginePool enginePool;
+  private final HttpClientRegistry httpClients;
+  private final SonarMetadataCache metadataCache;
+  private final AtomicInteger engineVersion = new AtomicInteger();
+  private EngineStartupConfiguration warmUpConfig;
+  private CompletableFuture<Void> warmUp;
+
+  public AnalysisServer(Path pluginsPath, MemoryPolicy memoryPolicy) {
+    this(pluginsPath, memoryPolicy, null, 1, null, 1, new HttpClientRegistry(), null);
+  }
 
-  public AnalysisServer(Path pluginsPath) {
-    orchestrator = null;
+  /**
+   * @param pluginsPath the directory to store downloaded plugins in.
+   * @param memoryPolicy the policy to notify when analyses start and finish.
+   * @param analysisCache the cache to serve the issues of unchanged files from, or null to always
+   *     analyze every file.
+   * @param analysisThreads the maximum number of threads to split a large analysis across.
+   * @param engineConfigStore the store to remember the engine configuration in between sessions, or
+   *     null to not remember it.
+   * @param maxEngines the maximum number of analysis engines to keep for different configurations.
+   * @param httpClients the registry of HTTP clients to share between requests to SonarQube hosts.
+   * @param metadataCache the cache to share SonarQube project configuration between analyses in, or
+   *     null to retrieve it from the host on every analysis.
+   */
+  public AnalysisServer(
+      Path pluginsPath,
+      MemoryPolicy memoryPolicy,
+      @Nullable AnalysisCache analysisCache,
+      int analysisThreads,
+      @Nullable EngineStartupConfigurationStore engineConfigStore,
+      int maxEngines,
+      HttpClientRegistry httpClients,
+      @Nullable SonarMetadataCache metadataCache) {
+    FallbackLogOutput.install();
+    this.memoryPolicy = memoryPolicy;
+    this.analysisCache = analysisCache;
+    this.analysisThreads = analysisThreads;
+    this.engineConfigStore = engineConfigStore;
+    this.httpClients = httpClients;
+    this.metadataCache = metadataCache;
     pluginDownloader = new CachingPluginDownloader(pluginsPath);
     fallbackPluginProvider = new FallbackPluginProvider(pluginsPath, new SonarDelphiDownloader());
-    pluginGroup = null;
+    enginePool = new EnginePool(maxEngines, memoryPolicy::isHeapConstrained);
+  }
+
+  /**
+   * Starts an analysis engine with the configuration used in the previous session, ahead of the
+   * first initialization request.
+   *
+   * <p>The engine is started without holding the initialization lock, so clients can initialize
+   * while it starts. A client that initializes with the same configuration waits for the engine and
+   * then uses it. If a client initializes with a different configuration first, the warm engine is
+   * discarded once it has started. Clients cannot analyze until they have initialized, even if the
+   * engine is already warm.
+   */
+  public void warmUp() {
+    if (engineConfigStore == null) {
+      return;
+    }
+
+    Optional<EngineStartupConfiguration> lastEngineConfig = engineConfigStore.load();
+    if (lastEngineConfig.isEmpty()) {
+      LOG.info("No previous engine configuration to warm up with");
+      return;
+    }
+
+    CompletableFuture<Void> warmUpFinished = new CompletableFuture<>();
+    synchronized (engineLock) {
+      // A client may have initialized while the last configuration was being loaded
+      if (enginePool.size() > 0) {
+        return;
+      }
+      warmUpConfig = lastEngineConfig.get();
+      warmUp = warmUpFinished;
+    }
+
+    EngineHandle warmEngine = null;
+    try {
+      LOG.info("Warming up analysis engine with the previous session's configuration");
+      warmEngine = startEngine(lastEngineConfig.get());
+    } catch (Exception e) {
+      LOG.warn("Could not warm up analysis engine", e);
+    }
+
+    try {
+      if (warmEngine != null) {
+        adoptWarmEngine(warmEngine);
+      }
+    } finally {
+      synchronized (engineLock) {
+        warmUpConfig = null;
+        warmUp = null;
+      }
+      warmUpFinished.complete(null);
+    }
+  }
+
+  private void adoptWarmEngine(EngineHandle warmEngine) {
+    synchronized (engineLock) {
+      if (enginePool.size() == 0) {
+        enginePool.add(warmEngine);
+        return;
+      }
+    }
+
+    LOG.info("Discarding warm analysis engine, as a client initialized with another configuration");
+    warmEngine.release();
+  }
+
+  /** Waits for an engine that is being warmed up with the given configuration to be pooled. */
+  private void awaitWarmUp(EngineStartupConfiguration engineConfig) {
+    CompletableFuture<Void> pendingWarmUp;
+    synchronized (engineLock) {
+      pendingWarmUp = engineConfig.equals(warmUpConfig) ? warmUp : null;
+    }
+
+    if (pendingWarmUp != null) {
+      LOG.info("Waiting for the analysis engine to warm up");
+      pendingWarmUp.join();
+    }
   }
 
   /**
@@ -82,20 +222,84 @@ public class AnalysisServer {
    *       (36).
    *   <li>If the orchestrator is initialized and the analysis succeeds, returns an analysis result
    *       (35).
+   *   <li>If the progress monitor is cancelled before the analysis finishes, returns an analysis
+   *       cancelled (38).
    * </ul>
    *
+   * <p>If the request opts in to streamed results, the issues for each file are sent as partial
+   * results (37) while the analysis is in progress, and the final analysis result only contains the
+   * issues that have not already been sent.
+   *
+   * <p>If another analysis is running, the request is queued. Queued requests for the same base
+   * directory, host and properties are merged into a single analysis (see {@link AnalysisJob}).
+   *
    * @param requestAnalyze the parameters to run the analysis with.
+   * @param engineBinding the engine that the requesting session initialized with.
+   * @param progressMonitor the progress monitor to report progress to and poll for cancellation.
    * @param sendMessage a callback to send a tagged message back to the client.
    */
-  public void analyze(RequestAnalyze requestAnalyze, Consumer<LintMessage> sendMessage) {
-    if (orchestrator == null) {
+  public void analyze(
+      RequestAnalyze requestAnalyze,
+      EngineBinding engineBinding,
+      AnalysisProgressMonitor progressMonitor,
+      Consumer<LintMessage> sendMessage) {
+    EngineHandle engineHandle = engineBinding.acquire();
+    if (engineHandle == null) {
       sendMessage.accept(
           LintMessage.unexpectedError("Please initialize before attempting to analyze"));
       return;
     }
 
+    try {
+      AnalysisJob job = scheduleJob(requestAnalyze, engineHandle, progressMonitor, sendMessage);
+
+      synchronized (analysisLock) {
+        boolean pending;
+        synchronized (pendingJobs) {
+          pending = pendingJobs.remove(job);
+        }
+
+        // If the job is no longer pending, it has already been run on behalf of another requester
+        if (pending) {
+          memoryPolicy.analysisStarted();
+          try {
+            doAnalyze(job, engineHandle.getOrchestrator());
+          } finally {
+            memoryPolicy.analysisFinished();
+          }
+        }
+      }
+    } finally {
+      engineHandle.release();
+    }
+  }
+
+  private AnalysisJob scheduleJob(
+      RequestAnalyze requestAnalyze,
+      EngineHandle engineHandle,
+      AnalysisProgressMonitor progressMonitor,
+      Consumer<LintMessage> sendMessage) {
+    synchronized (pendingJobs) {
+      for (AnalysisJob job : pendingJobs) {
+        if (job.canMerge(engineHandle, requestAnalyze)) {
+          job.addRequester(requestAnalyze, progressMonitor, sendMessage);
+          LOG.info("Merged analysis request into a queued analysis");
+          return job;
+        }
+      }
+
+      var job = new AnalysisJob(requestAnalyze, engineHandle, progressMonitor, sendMessage);
+      pendingJobs.add(job);
+      return job;
+    }
+  }
+
+  private void doAnalyze(AnalysisJob job, AnalysisOrchestrator orchestrator) {
+    RequestAnalyze requestAnalyze = job.getRequest();
+
     SonarHost sonarHost =
         getSonarHost(
+            orchestrator,
             requestAnalyze.getSonarHostUrl(),
             requestAnalyze.getProjectKey(),
             requestAnalyze.getApiToken(),
@@ -113,37 +317,43 @@ public class AnalysisServer {
       var logOutput = new SonarDelphiLogOutput();
       SonarLintLogger.setTarget(logOutput);
 
+      if (job.getRequesterCount() > 1) {
+        LOG.info("Running one analysis for {} merged requests", job.getRequesterCount());
+      }
+
       var issues =
           orchestrator.runAnalysis(
               requestAnalyze.getBaseDir(),
-              requestAnalyze.getInputFiles(),
-              null,
+              job.getInputFiles(),
+              job.getProgressMonitor(),
               sonarHost,
-              properties);
+              properties,
+              job.isStreamResults() ? job::sendPartialResult : null);
 
-      var result = ResponseAnalyzeResult.fromIssueSet(issues, logOutput.getMessages());
-      result.convertPathsToAbsolute(requestAnalyze.getBaseDir());
-      sendMessage.accept(LintMessage.analyzeResult(result));
+      job.sendResult(issues, logOutput.getMessages());
+    } catch (CanceledException e) {
+      LOG.info("Analysis cancelled");
+      job.sendCancelled();
     } catch (SonarHostUnauthorizedException e) {
       LOG.warn("API returned an unauthorized response", e);
-      sendMessage.accept(
+      job.sendToAll(
           LintMessage.analyzeError(
               "Authorization is required to access the configured SonarQube instance. Please"
                   + " provide an appropriate authorization token"));
     } catch (SonarHostConnectException e) {
       LOG.warn("API could not be accessed", e);
-      sendMessage.accept(
+      job.sendToAll(
           LintMessage.analyzeError(
               "Could not connect to the configured SonarQube instance. Please confirm that the URL"
                   + " is correct and the instance is running"));
     } catch (SonarHostException | UncheckedSonarHostException e) {
       LOG.warn("API returned an unexpected response", e);
-      sendMessage.accept(
+      job.sendToAll(
           LintMessage.analyzeError(
               "The configured SonarQube instance could not be accessed: " + e.getMessage()));
     } catch (Exception e) {
       LOG.error("Unknown error during analysis", e);
-      sendMessage.accept(
+      job.sendToAll(
           LintMessage.analyzeError(
               "Unknown error during analysis: "
                   + e.getMessage()
@@ -153,9 +363,6 @@ public class AnalysisServer {
     } finally {
       SonarLintLogger.setTarget(null);
     }
-
-    // I'd rather not have to call this, but the server gets unacceptably large without it
-    System.gc();
   }
 
   /**
@@ -167,10 +374,28 @@ public class AnalysisServer {
    *   <li>If the initialization succeeds, returns an initialization successful (20).
    * </ul>
    *
+   * <p>The session is bound to an engine with the requested configuration, which is taken from the
+   * engine pool or started if there is none. A new engine is started without waiting for any
+   * running analysis to finish, and analyses that are already running finish on the old engine.
+   * Other sessions are unaffected.
+   *
    * @param requestInitialize the parameters to initialize the orchestrator with.
+   * @param engineBinding the engine binding of the requesting session.
    * @param sendMessage a callback to send a message back to the client.
    */
-  public void initialize(RequestInitialize requestInitialize, Consumer<LintMessage> sendMessage) {
+  public void initialize(
+      RequestInitialize requestInitialize,
+      EngineBinding engineBinding,
+      Consumer<LintMessage> sendMessage) {
+    synchronized (initializeLock) {
+      doInitialize(requestInitialize, engineBinding, sendMessage);
+    }
+  }
+
+  private void doInitialize(
+      RequestInitialize requestInitialize,
+      EngineBinding engineBinding,
+      Consumer<LintMessage> sendMessage) {
     Version fallbackVersion;
     try {
       fallbackVersion = new Version(requestInitialize.getSonarDelphiVersion());
@@ -183,28 +408,22 @@ public class AnalysisServer {
     }
 
     try {
+      // Standalone hosts have no plugins to download, so the engine is not needed here
       SonarHost host =
-          getSonarHost(requestInitialize.getSonarHostUrl(), "", requestInitialize.getApiToken());
+          getSonarHost(
+              null, requestInitialize.getSonarHostUrl(), "", requestInitialize.getApiToken());
       Set<DownloadedPlugin> desiredPluginGroup =
           pluginDownloader
               .getRemotePluginJars(host)
               .orElseGet(() -> Set.of(fallbackPluginProvider.getPlugin(fallbackVersion)));
 
-      if (!Objects.equals(pluginGroup, desiredPluginGroup) || orchestrator == null) {
-        pluginGroup = desiredPluginGroup;
-        LOG.info("Starting analysis engine with new plugins");
-
-        Set<Path> pluginPaths =
-            pluginGroup.stream().map(DownloadedPlugin::getPath).collect(Collectors.toSet());
+      Set<Path> pluginPaths =
+          desiredPluginGroup.stream().map(DownloadedPlugin::getPath).collect(Collectors.toSet());
+      var desiredEngineConfig =
+          new EngineStartupConfiguration(
+              requestInitialize.getBdsPath(), requestInitialize.getCompilerVersion(), pluginPaths);
 
-        var delphiConfig =
-            new EngineStartupConfiguration(
-                requestInitialize.getBdsPath(),
-                requestInitialize.getCompilerVersion(),
-                pluginPaths);
-
-        orchestrator = new AnalysisOrchestrator(delphiConfig);
-      }
+      bindEngine(engineBinding, desiredEngineConfig);
       sendMessage.accept(LintMessage.initialized());
     } catch (SonarHostUnauthorizedException e) {
       LOG.warn("API returned an unauthorized response", e);
@@ -241,6 +460,51 @@ public class AnalysisServer {
     }
   }
 
+  /**
+   * Binds a session to an engine with the given configuration, taking it from the engine pool or
+   * starting a new one.
+   *
+   * @param engineBinding the engine binding of the session.
+   * @param engineConfig the configuration the engine must have been started with.
+   */
+  void bindEngine(EngineBinding engineBinding, EngineStartupConfiguration engineConfig) {
+    // The engine resolves the standard library from the installation path and compiler version,
+    // so it is only reused if they are unchanged as well as the plugins
+    if (engineBinding.isBoundTo(engineConfig)) {
+      return;
+    }
+
+    // The warm-up never takes the initialization lock, so this cannot deadlock
+    awaitWarmUp(engineConfig);
+
+    synchronized (engineLock) {
+      EngineHandle pooledEngine = enginePool.acquire(engineConfig);
+      if (pooledEngine == null) {
+        LOG.info("Starting analysis engine with new plugins or Delphi installation");
+        EngineHandle newEngine = startEngine(engineConfig);
+        // The session's reference is taken before the engine is pooled, so it cannot be closed if
+        // it is evicted straight away
+        newEngine.acquire();
+        enginePool.add(newEngine);
+        engineBinding.bind(newEngine);
+      } else {
+        LOG.info("Switching to pooled analysis engine {}", pooledEngine.getVersion());
+        engineBinding.bind(pooledEngine);
+      }
+
+      if (engineConfigStore != null) {
+        engineConfigStore.save(engineConfig);
+      }
+    }
+  }
+
+  EngineHandle startEngine(EngineStartupConfiguration engineConfig) {
+    int version = engineVersion.incrementAndGet();
+    var orchestrator = new AnalysisOrchestrator(engineConfig, analysisCache, analysisThreads);
+    LOG.info("Analysis engine {} started", version);
+    return new EngineHandle(version, engineConfig, orchestrator);
+  }
+
   /**
    * Attempts to retrieve rule metadata from a host.
    *
@@ -250,13 +514,18 @@ public class AnalysisServer {
    * </ul>
    *
    * @param requestRuleRetrieve the parameters to use to retrieve the rule metadata.
+   * @param engineBinding the engine that the requesting session initialized with.
    * @param sendMessage a callback to send a message back to the client.
    */
   public void retrieveRules(
-      RequestRuleRetrieve requestRuleRetrieve, Consumer<LintMessage> sendMessage) {
+      RequestRuleRetrieve requestRuleRetrieve,
+      EngineBinding engineBinding,
+      Consumer<LintMessage> sendMessage) {
+    EngineHandle engineHandle = engineBinding.acquire();
     try {
       SonarHost host =
           getSonarHost(
+              engineHandle == null ? null : engineHandle.getOrchestrator(),
               requestRuleRetrieve.getSonarHostUrl(),
               requestRuleRetrieve.getProjectKey(),
               requestRuleRetrieve.getApiToken());
@@ -271,15 +540,24 @@ public class AnalysisServer {
       LOG.error("Error encountered during rule retrieval", e);
       sendMessage.accept(
           LintMessage.ruleRetrieveError(e.getClass().getSimpleName() + ": " + e.getMessage()));
+    } finally {
+      if (engineHandle != null) {
+        engineHandle.release();
+      }
     }
   }
 
-  private SonarHost getSonarHost(String url, String projectKey, String apiToken) {
-    return getSonarHost(url, projectKey, apiToken, null);
+  private SonarHost getSonarHost(
+      @Nullable AnalysisOrchestrator orchestrator, String url, String projectKey, String apiToken) {
+    return getSonarHost(orchestrator, url, projectKey, apiToken, null);
   }
 
   private SonarHost getSonarHost(
-      String url, String projectKey, String apiToken, Set<String> disabledRules) {
+      @Nullable AnalysisOrchestrator orchestrator,
+      String url,
+      String projectKey,
+      String apiToken,
+      Set<String> disabledRules) {
     if (url.isEmpty()) {
       if (orchestrator == null) {
         LOG.info("Using stub standalone mode - analysis engine is not initialized");
@@ -287,15 +565,19 @@ public class AnalysisServer {
       } else if (disabledRules != null) {
         LOG.info("Using standalone mode with {} disabled rules:", disabledRules.size());
         disabledRules.forEach(rule -> LOG.info("  X {}", rule));
-        return new ConfigurableStandaloneSonarHost(orchestrator.getLoadedPlugins(), disabledRules);
+        return new ConfigurableStandaloneSonarHost(orchestrator.getPluginRules(), disabledRules);
       } else {
         LOG.info("Using standalone mode with default rules");
-        return new DefaultStandaloneSonarHost(orchestrator.getLoadedPlugins());
+        return new DefaultStandaloneSonarHost(orchestrator.getPluginRules());
       }
     } else {
       LOG.info("Using connected mode");
+      SonarApi api = new HttpSonarApi(url, apiToken, httpClients);
+      if (metadataCache != null) {
+        api = new CachingSonarApi(api, apiToken, metadataCache);
+      }
       return new SonarQubeHost(
-          new HttpSonarApi(url, apiToken),
+          api,
           projectKey,
           Language.DELPHI.getLanguageKey(),
           Language.DELPHI.getPluginKey(),
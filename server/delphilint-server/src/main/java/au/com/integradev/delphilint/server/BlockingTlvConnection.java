@@ -0,0 +1,163 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A TLV connection using blocking socket streams, where each client is read on its own session
+ * thread.
+ */
+public class BlockingTlvConnection extends TlvConnection {
+  private static final Logger LOG = LogManager.getLogger(BlockingTlvConnection.class);
+  private final ServerSocket socket;
+
+  public BlockingTlvConnection(AnalysisServer server) throws IOException {
+    this(server, 0);
+  }
+
+  public BlockingTlvConnection(AnalysisServer server, int port) throws IOException {
+    this(server, port, false);
+  }
+
+  public BlockingTlvConnection(AnalysisServer server, int port, boolean multiClient)
+      throws IOException {
+    super(server, multiClient);
+    socket = new ServerSocket(port);
+    logStarted();
+  }
+
+  @Override
+  public void run() throws IOException {
+    try (socket) {
+      if (isMultiClient()) {
+        runMultiClient();
+      } else {
+        LOG.info("Awaiting socket connection");
+        serve(socket.accept());
+      }
+    }
+
+    LOG.info("Terminating server");
+  }
+
+  private void runMultiClient() throws IOException {
+    while (!socket.isClosed()) {
+      LOG.info("Awaiting socket connection");
+      Socket clientSocket = socket.accept();
+
+      var sessionThread = new Thread(() -> serve(clientSocket), "delphilint-session");
+      sessionThread.setDaemon(true);
+      sessionThread.setUncaughtExceptionHandler(
+          (thread, e) -> LOG.error("Session terminated unexpectedly", e));
+      sessionThread.start();
+    }
+  }
+
+  private void serve(Socket clientSocket) {
+    try (clientSocket;
+        var in = new DataInputStream(clientSocket.getInputStream());
+        var out = clientSocket.getOutputStream()) {
+      var writeLock = new Object();
+      TlvSession session = createSession(frame -> writeFrame(out, writeLock, frame));
+      Thread.currentThread().setName("delphilint-session-" + session.getSessionId());
+
+      boolean quit = false;
+      try {
+        quit = readFrames(in, session);
+      } finally {
+        // A session that ends without quitting, including on a read error, is closed immediately
+        if (quit) {
+          session.awaitCompletion();
+        } else {
+          session.close();
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Error reading from session, closing connection", e);
+    }
+  }
+
+  /**
+   * Reads frames until the client quits or disconnects.
+   *
+   * @return true if the client quit, false if it disconnected.
+   */
+  private static boolean readFrames(DataInputStream in, TlvSession session) throws IOException {
+    while (true) {
+      LOG.debug("Awaiting next message");
+
+      int categoryCode = in.read();
+      if (categoryCode == -1) {
+        LOG.info("Client disconnected from session {}", session.getSessionId());
+        return false;
+      }
+
+      int id;
+      byte[] data;
+      try {
+        id = in.readInt();
+        int length = in.readInt();
+        if (length < 0 || length > TlvSession.MAX_DATA_LENGTH) {
+          LOG.warn(
+              "Received message with an invalid length {}, ending session {}",
+              length,
+              session.getSessionId());
+          return false;
+        }
+        data = new byte[length];
+        in.readFully(data);
+      } catch (EOFException e) {
+        LOG.warn(
+            "Client disconnected from session {} partway through a message",
+            session.getSessionId());
+        return false;
+      }
+
+      if (!session.handleFrame(categoryCode, id, data)) {
+        return true;
+      }
+    }
+  }
+
+  private static void writeFrame(OutputStream out, Object writeLock, TlvFrameBuffer frame)
+      throws IOException {
+    try {
+      // Responses can be sent from several worker threads at once, so each frame must be written
+      // atomically to avoid interleaving messages on the stream.
+      synchronized (writeLock) {
+        frame.writeTo(out);
+        out.flush();
+      }
+    } finally {
+      frame.release();
+    }
+  }
+
+  @Override
+  public int getPort() {
+    return socket.getLocalPort();
+  }
+}
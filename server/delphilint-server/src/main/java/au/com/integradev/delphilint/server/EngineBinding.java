@@ -0,0 +1,92 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+
+/**
+ * The analysis engine that a client session has initialized with.
+ *
+ * <p>Each session analyzes on the engine it initialized with, so that sessions with different
+ * plugins or Delphi installations do not replace each other's engine. The binding holds a reference
+ * to its engine, so an engine that is evicted from the {@link EnginePool} stays open until every
+ * session bound to it has initialized again or ended.
+ */
+public class EngineBinding {
+  private EngineHandle engine;
+  private boolean closed;
+
+  /**
+   * Binds the session to an engine, releasing the previously bound engine.
+   *
+   * @param acquiredEngine the engine to bind, which a reference has already been taken to for the
+   *     binding.
+   */
+  void bind(EngineHandle acquiredEngine) {
+    EngineHandle previousEngine;
+    synchronized (this) {
+      if (closed) {
+        // A session can still be initializing when it ends, in which case the engine is not kept
+        previousEngine = acquiredEngine;
+      } else {
+        previousEngine = engine;
+        engine = acquiredEngine;
+      }
+    }
+
+    if (previousEngine != null) {
+      previousEngine.release();
+    }
+  }
+
+  /**
+   * @param config the configuration to check.
+   * @return whether the session is bound to an engine started with the configuration.
+   */
+  synchronized boolean isBoundTo(EngineStartupConfiguration config) {
+    return engine != null && engine.getConfig().equals(config);
+  }
+
+  /**
+   * Takes a reference to the bound engine, which must be released once it is no longer needed.
+   *
+   * @return the bound engine, or null if the session has not initialized.
+   */
+  synchronized EngineHandle acquire() {
+    // The binding's own reference keeps the engine open, so it cannot fail to be acquired
+    if (engine != null && !engine.acquire()) {
+      throw new IllegalStateException(
+          "Bound analysis engine " + engine.getVersion() + " is closed");
+    }
+    return engine;
+  }
+
+  /** Releases the bound engine once the session has ended. */
+  public void close() {
+    EngineHandle previousEngine;
+    synchronized (this) {
+      previousEngine = engine;
+      engine = null;
+      closed = true;
+    }
+
+    if (previousEngine != null) {
+      previousEngine.release();
+    }
+  }
+}
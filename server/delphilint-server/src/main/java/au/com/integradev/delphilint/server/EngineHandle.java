@@ -0,0 +1,87 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import au.com.integradev.delphilint.analysis.AnalysisOrchestrator;
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A reference-counted version of the analysis engine.
+ *
+ * <p>The engine pool holds one reference to each pooled engine, and each operation that uses the
+ * engine holds another for its duration. When the engine is evicted from the pool, the pool
+ * releases its reference, and the engine is closed once the last operation using it has finished.
+ */
+class EngineHandle {
+  private static final Logger LOG = LogManager.getLogger(EngineHandle.class);
+  private final int version;
+  private final EngineStartupConfiguration config;
+  private final AnalysisOrchestrator orchestrator;
+  private int references = 1;
+
+  public EngineHandle(
+      int version, EngineStartupConfiguration config, AnalysisOrchestrator orchestrator) {
+    this.version = version;
+    this.config = config;
+    this.orchestrator = orchestrator;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  public EngineStartupConfiguration getConfig() {
+    return config;
+  }
+
+  public AnalysisOrchestrator getOrchestrator() {
+    return orchestrator;
+  }
+
+  /**
+   * Takes a reference to the engine.
+   *
+   * @return false if the engine has already been closed, in which case no reference is taken.
+   */
+  public synchronized boolean acquire() {
+    if (references == 0) {
+      return false;
+    }
+    references++;
+    return true;
+  }
+
+  /** Releases a reference to the engine, closing it if this was the last reference. */
+  public void release() {
+    boolean close;
+    synchronized (this) {
+      if (references == 0) {
+        throw new IllegalStateException("Analysis engine " + version + " is already closed");
+      }
+      references--;
+      close = references == 0;
+    }
+
+    if (close) {
+      LOG.info("Closing analysis engine {}", version);
+      orchestrator.close();
+    }
+  }
+}
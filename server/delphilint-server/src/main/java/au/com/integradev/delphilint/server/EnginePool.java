@@ -0,0 +1,114 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A small pool of analysis engines, keyed by the configuration they were started with, so that
+ * switching between projects with different plugins or Delphi installations does not require a new
+ * engine to be started each time.
+ *
+ * <p>The pool holds one reference to each of its engines. When an engine is added, the least
+ * recently used engines are evicted if the pool is over capacity. If the heap is running low, only
+ * the new engine is kept. An evicted engine is closed once it is no longer in use (see {@link
+ * EngineHandle}).
+ *
+ * <p>Sessions are routed to the pooled engine for the configuration they initialized with, so
+ * several engines can be in use at once. An engine that is evicted while a session is bound to it
+ * stays open until that session initializes again or ends (see {@link EngineBinding}).
+ */
+class EnginePool {
+  private static final Logger LOG = LogManager.getLogger(EnginePool.class);
+  private final int maxEngines;
+  private final BooleanSupplier isHeapConstrained;
+  private final Map<EngineStartupConfiguration, EngineHandle> engines =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * @param maxEngines the maximum number of engines to keep.
+   * @param isHeapConstrained whether the heap is too full to keep more than one engine.
+   */
+  public EnginePool(int maxEngines, BooleanSupplier isHeapConstrained) {
+    this.maxEngines = Math.max(1, maxEngines);
+    this.isHeapConstrained = isHeapConstrained;
+  }
+
+  /**
+   * Checks for a pooled engine without counting it as used.
+   *
+   * @param config the configuration the engine was started with.
+   * @return true if there is a pooled engine for the configuration.
+   */
+  synchronized boolean contains(EngineStartupConfiguration config) {
+    return engines.containsKey(config);
+  }
+
+  /**
+   * Takes a reference to the pooled engine for a configuration, which must be released once it is
+   * no longer needed.
+   *
+   * @param config the configuration the engine was started with.
+   * @return the pooled engine for the configuration, or null if there is none.
+   */
+  public synchronized EngineHandle acquire(EngineStartupConfiguration config) {
+    EngineHandle engine = engines.get(config);
+    // Pooled engines hold the pool's reference, so they cannot have been closed
+    if (engine != null) {
+      engine.acquire();
+    }
+    return engine;
+  }
+
+  /**
+   * Adds a newly started engine to the pool, which takes over its initial reference. Engines other
+   * than the new one are evicted as needed.
+   *
+   * @param engine the engine to add.
+   */
+  public synchronized void add(EngineHandle engine) {
+    EngineHandle replaced = engines.put(engine.getConfig(), engine);
+    if (replaced != null) {
+      replaced.release();
+    }
+
+    // Evicted engines are not reclaimed until the next collection, so the heap is only checked once
+    int capacity = isHeapConstrained.getAsBoolean() ? 1 : maxEngines;
+    if (engines.size() > capacity) {
+      LOG.info("Engine pool is over capacity, keeping at most {} engines", capacity);
+    }
+
+    Iterator<EngineHandle> leastRecentlyUsed = engines.values().iterator();
+    while (engines.size() > capacity) {
+      EngineHandle evicted = leastRecentlyUsed.next();
+      leastRecentlyUsed.remove();
+      LOG.info("Evicting analysis engine {} from the engine pool", evicted.getVersion());
+      evicted.release();
+    }
+  }
+
+  public synchronized int size() {
+    return engines.size();
+  }
+}
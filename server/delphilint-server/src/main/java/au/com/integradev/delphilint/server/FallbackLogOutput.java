@@ -0,0 +1,50 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.sonarsource.sonarlint.core.commons.log.ClientLogOutput;
+import org.sonarsource.sonarlint.core.commons.log.SonarLintLogger;
+
+/**
+ * Receives analysis engine log messages that are not logged during an analysis, and passes them on
+ * to the server log.
+ *
+ * <p>The engine adopts the first log output it is ever given as a permanent fallback for threads
+ * without a log output of their own. This must be installed before any analysis is run, or the log
+ * output of the first analysis becomes the fallback, and it then retains every log message outside
+ * an analysis for the lifetime of the server.
+ */
+class FallbackLogOutput implements ClientLogOutput {
+  private static final Logger LOG = LogManager.getLogger(FallbackLogOutput.class);
+
+  private FallbackLogOutput() {
+    // Only created by install
+  }
+
+  public static void install() {
+    SonarLintLogger.setTarget(new FallbackLogOutput());
+    SonarLintLogger.setTarget(null);
+  }
+
+  @Override
+  public void log(String s, Level level) {
+    LOG.debug("[{}] {}", level, s);
+  }
+}
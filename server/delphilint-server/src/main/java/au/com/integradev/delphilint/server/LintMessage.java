@@ -17,6 +17,8 @@
  */
 package au.com.integradev.delphilint.server;
 
+import au.com.integradev.delphilint.server.message.ResponseAnalyzePartialResult;
+import au.com.integradev.delphilint.server.message.ResponseAnalyzeProgress;
 import au.com.integradev.delphilint.server.message.ResponseAnalyzeResult;
 import au.com.integradev.delphilint.server.message.ResponseRuleRetrieveResult;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -46,6 +48,18 @@ public class LintMessage {
     return new LintMessage(MessageCategory.ANALYZE_RESULT, result);
   }
 
+  public static LintMessage analyzePartialResult(ResponseAnalyzePartialResult result) {
+    return new LintMessage(MessageCategory.ANALYZE_PARTIAL_RESULT, result);
+  }
+
+  public static LintMessage analyzeProgress(ResponseAnalyzeProgress progress) {
+    return new LintMessage(MessageCategory.ANALYZE_PROGRESS, progress);
+  }
+
+  public static LintMessage analyzeCancelled() {
+    return new LintMessage(MessageCategory.ANALYZE_CANCELLED, null);
+  }
+
   public static LintMessage analyzeError(String message) {
     return new LintMessage(MessageCategory.ANALYZE_ERROR, message);
   }
@@ -0,0 +1,148 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps the memory footprint of the server small while it is idle.
+ *
+ * <p>The server is idle most of the time, but an analysis can expand the heap considerably, and the
+ * JVM only returns unused heap to the operating system after a garbage collection. Rather than
+ * forcing a collection after every analysis, a collection is run once the server has been idle for
+ * a while - the same approach as G1's periodic collections, which are not available on Java 11. If
+ * the JVM has been started with periodic collections enabled (via {@code G1PeriodicGCInterval}),
+ * they are left to do the job instead.
+ *
+ * <p>Heap usage is logged after every analysis.
+ */
+public class MemoryPolicy {
+  private static final Logger LOG = LogManager.getLogger(MemoryPolicy.class);
+  private static final long MIB = 1024L * 1024L;
+  private static final long MIN_RECLAIMABLE_BYTES = 64 * MIB;
+  private static final double CONSTRAINED_HEAP_FRACTION = 0.75;
+  private final Duration idleCollectionDelay;
+  private final MemoryMXBean memoryBean;
+  private final ScheduledExecutorService scheduler;
+  private int activeAnalyses;
+  private ScheduledFuture<?> idleCollection;
+
+  /**
+   * @param idleCollectionDelay how long the server must be idle before unused heap is reclaimed, or
+   *     zero to never reclaim unused heap explicitly.
+   */
+  public MemoryPolicy(Duration idleCollectionDelay) {
+    this.idleCollectionDelay = idleCollectionDelay;
+    memoryBean = ManagementFactory.getMemoryMXBean();
+
+    if (idleCollectionDelay.isZero() || idleCollectionDelay.isNegative()) {
+      LOG.info("Idle heap collection is disabled");
+      scheduler = null;
+    } else if (isPeriodicCollectionEnabled()) {
+      LOG.info("JVM periodic garbage collection is enabled, idle heap collection is disabled");
+      scheduler = null;
+    } else {
+      scheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                var thread = new Thread(runnable, "delphilint-idle-collection");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+  }
+
+  private static boolean isPeriodicCollectionEnabled() {
+    try {
+      var diagnosticBean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+      return diagnosticBean != null
+          && Long.parseLong(diagnosticBean.getVMOption("G1PeriodicGCInterval").getValue()) > 0;
+    } catch (IllegalArgumentException e) {
+      // The option does not exist before Java 12
+      return false;
+    }
+  }
+
+  public synchronized void analysisStarted() {
+    activeAnalyses++;
+    if (idleCollection != null) {
+      idleCollection.cancel(false);
+      idleCollection = null;
+    }
+  }
+
+  public synchronized void analysisFinished() {
+    LOG.info("Heap usage after analysis: {}", describe(getHeapUsage()));
+
+    activeAnalyses--;
+    if (activeAnalyses == 0 && scheduler != null) {
+      idleCollection =
+          scheduler.schedule(
+              this::collectIfIdle, idleCollectionDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public MemoryUsage getHeapUsage() {
+    return memoryBean.getHeapMemoryUsage();
+  }
+
+  /**
+   * Heap usage includes garbage that has not been collected yet, so this errs on the side of
+   * reporting the heap as constrained.
+   *
+   * @return whether more than three quarters of the maximum heap size is in use.
+   */
+  public boolean isHeapConstrained() {
+    MemoryUsage usage = getHeapUsage();
+    return usage.getMax() > 0 && usage.getUsed() > usage.getMax() * CONSTRAINED_HEAP_FRACTION;
+  }
+
+  private synchronized void collectIfIdle() {
+    idleCollection = null;
+    if (activeAnalyses > 0) {
+      return;
+    }
+
+    MemoryUsage before = getHeapUsage();
+    if (before.getCommitted() - before.getUsed() < MIN_RECLAIMABLE_BYTES) {
+      return;
+    }
+
+    memoryBean.gc();
+    LOG.info(
+        "Reclaimed unused heap while idle: {} before, {} after",
+        describe(before),
+        describe(getHeapUsage()));
+  }
+
+  private static String describe(MemoryUsage usage) {
+    return String.format(
+        "%d MiB used, %d MiB committed, %d MiB max",
+        usage.getUsed() / MIB, usage.getCommitted() / MIB, usage.getMax() / MIB);
+  }
+}
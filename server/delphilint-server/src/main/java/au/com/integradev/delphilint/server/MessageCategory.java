@@ -20,6 +20,8 @@ package au.com.integradev.delphilint.server;
 import au.com.integradev.delphilint.server.message.RequestAnalyze;
 import au.com.integradev.delphilint.server.message.RequestInitialize;
 import au.com.integradev.delphilint.server.message.RequestRuleRetrieve;
+import au.com.integradev.delphilint.server.message.ResponseAnalyzePartialResult;
+import au.com.integradev.delphilint.server.message.ResponseAnalyzeProgress;
 import au.com.integradev.delphilint.server.message.ResponseAnalyzeResult;
 import au.com.integradev.delphilint.server.message.ResponseRuleRetrieveResult;
 
@@ -33,9 +35,13 @@ public enum MessageCategory {
   ANALYZE(30, RequestAnalyze.class),
   ANALYZE_RESULT(35, ResponseAnalyzeResult.class),
   ANALYZE_ERROR(36, String.class),
+  ANALYZE_PARTIAL_RESULT(37, ResponseAnalyzePartialResult.class),
+  ANALYZE_CANCELLED(38),
+  ANALYZE_PROGRESS(39, ResponseAnalyzeProgress.class),
   RULE_RETRIEVE(40, RequestRuleRetrieve.class),
   RULE_RETRIEVE_RESULT(45, ResponseRuleRetrieveResult.class),
   RULE_RETRIEVE_ERROR(46, String.class),
+  CANCEL(50),
   INVALID_REQUEST(241, String.class),
   UNEXPECTED_ERROR(242, String.class);
 
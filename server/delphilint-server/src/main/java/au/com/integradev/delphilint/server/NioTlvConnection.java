@@ -0,0 +1,323 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A TLV connection using non-blocking channels, where all clients are read and written on a single
+ * selector thread.
+ *
+ * <p>Frames are decoded incrementally from partial reads into a reusable direct header buffer per
+ * client. Outgoing frames are queued by the session's worker threads and written by the selector
+ * thread as the channel becomes writable. The wire format is identical to {@link
+ * BlockingTlvConnection}.
+ */
+public class NioTlvConnection extends TlvConnection {
+  private static final Logger LOG = LogManager.getLogger(NioTlvConnection.class);
+  private final Selector selector;
+  private final ServerSocketChannel serverChannel;
+  private final int port;
+  private final Queue<ClientChannel> pendingUpdates;
+  private boolean terminated;
+
+  public NioTlvConnection(AnalysisServer server) throws IOException {
+    this(server, 0);
+  }
+
+  public NioTlvConnection(AnalysisServer server, int port) throws IOException {
+    this(server, port, false);
+  }
+
+  public NioTlvConnection(AnalysisServer server, int port, boolean multiClient) throws IOException {
+    super(server, multiClient);
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(port));
+    serverChannel.configureBlocking(false);
+    this.port = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    pendingUpdates = new ConcurrentLinkedQueue<>();
+    terminated = false;
+    logStarted();
+  }
+
+  @Override
+  public void run() throws IOException {
+    try (selector;
+        serverChannel) {
+      SelectionKey serverKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+      LOG.info("Awaiting socket connection");
+
+      while (!terminated) {
+        selector.select();
+        applyPendingUpdates();
+
+        var selectedKeys = selector.selectedKeys().iterator();
+        while (selectedKeys.hasNext()) {
+          SelectionKey key = selectedKeys.next();
+          selectedKeys.remove();
+
+          if (!key.isValid()) {
+            continue;
+          }
+
+          if (key == serverKey) {
+            try {
+              accept(serverKey);
+            } catch (IOException e) {
+              // A failed connection must not stop the other clients from being served
+              LOG.warn("Could not accept socket connection", e);
+            }
+          } else {
+            var client = (ClientChannel) key.attachment();
+            if (key.isReadable()) {
+              client.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+              client.flush();
+            }
+          }
+        }
+      }
+    }
+
+    LOG.info("Terminating server");
+  }
+
+  private void accept(SelectionKey serverKey) throws IOException {
+    SocketChannel channel = serverChannel.accept();
+    if (channel == null) {
+      return;
+    }
+
+    var client = new ClientChannel(channel);
+    try {
+      channel.configureBlocking(false);
+      client.key = channel.register(selector, SelectionKey.OP_READ, client);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    if (!isMultiClient()) {
+      // Only one client is served in single-client mode, so stop listening for more
+      serverKey.cancel();
+    }
+
+    client.session = createSession(client::writeFrame);
+  }
+
+  private void applyPendingUpdates() {
+    ClientChannel client;
+    while ((client = pendingUpdates.poll()) != null) {
+      client.update();
+    }
+  }
+
+  @Override
+  public int getPort() {
+    return port;
+  }
+
+  private class ClientChannel {
+    private final SocketChannel channel;
+    private final ByteBuffer header;
+    private final Queue<TlvFrameBuffer> outgoing;
+    // Guards the closed flag, so that a frame cannot be queued after the queue has been drained
+    private final Object outgoingLock = new Object();
+    private boolean closed;
+    private SelectionKey key;
+    private TlvSession session;
+    private int categoryCode;
+    private int id;
+    private ByteBuffer data;
+    private volatile boolean closeWhenFlushed;
+
+    public ClientChannel(SocketChannel channel) {
+      this.channel = channel;
+      header = ByteBuffer.allocateDirect(TlvSession.HEADER_LENGTH);
+      outgoing = new ConcurrentLinkedQueue<>();
+      data = null;
+      closeWhenFlushed = false;
+    }
+
+    /** Called from worker threads to queue a frame to be written by the selector thread. */
+    public void writeFrame(TlvFrameBuffer frame) throws IOException {
+      synchronized (outgoingLock) {
+        if (closed) {
+          frame.release();
+          throw new ClosedChannelException();
+        }
+        outgoing.add(frame);
+      }
+
+      pendingUpdates.add(this);
+      selector.wakeup();
+    }
+
+    public void read() {
+      try {
+        while (readFrame()) {
+          // Keep reading until the channel has no more data available
+        }
+      } catch (IOException e) {
+        LOG.warn("Error reading from session {}", session.getSessionId(), e);
+        session.close();
+        close();
+      }
+    }
+
+    /**
+     * Reads as much of the current frame as is available, handling it if complete.
+     *
+     * @return true if a frame was handled and more data may be available.
+     */
+    private boolean readFrame() throws IOException {
+      if (data == null) {
+        if (channel.read(header) == -1) {
+          LOG.info("Client disconnected from session {}", session.getSessionId());
+          session.close();
+          close();
+          return false;
+        } else if (header.hasRemaining()) {
+          return false;
+        }
+
+        header.flip();
+        categoryCode = Byte.toUnsignedInt(header.get());
+        id = header.getInt();
+        int length = header.getInt();
+        header.clear();
+
+        if (length < 0 || length > TlvSession.MAX_DATA_LENGTH) {
+          throw new IOException("Received message with an invalid length " + length);
+        }
+        data = ByteBuffer.allocate(length);
+      }
+
+      if (data.hasRemaining()) {
+        if (channel.read(data) == -1) {
+          LOG.warn(
+              "Client disconnected from session {} partway through a message",
+              session.getSessionId());
+          session.close();
+          close();
+          return false;
+        } else if (data.hasRemaining()) {
+          return false;
+        }
+      }
+
+      byte[] frameData = data.array();
+      data = null;
+
+      if (!session.handleFrame(categoryCode, id, frameData)) {
+        quit();
+        return false;
+      }
+
+      return true;
+    }
+
+    private void quit() {
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+
+      // Waiting for in-flight requests must not block the selector thread, which is still
+      // responsible for writing their responses
+      var quitThread =
+          new Thread(
+              () -> {
+                session.awaitCompletion();
+                closeWhenFlushed = true;
+                pendingUpdates.add(this);
+                selector.wakeup();
+              },
+              "delphilint-session-" + session.getSessionId() + "-quit");
+      quitThread.setDaemon(true);
+      quitThread.start();
+    }
+
+    /** Called on the selector thread to apply changes requested from other threads. */
+    public void update() {
+      if (!key.isValid()) {
+        return;
+      }
+
+      if (!outgoing.isEmpty()) {
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+      } else if (closeWhenFlushed) {
+        close();
+      }
+    }
+
+    public void flush() {
+      try {
+        TlvFrameBuffer frame;
+        while ((frame = outgoing.peek()) != null) {
+          channel.write(frame.getFrame());
+          if (frame.getFrame().hasRemaining()) {
+            return;
+          }
+          outgoing.remove().release();
+        }
+      } catch (IOException e) {
+        LOG.warn("Error writing to session {}", session.getSessionId(), e);
+        session.close();
+        close();
+        return;
+      }
+
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+      if (closeWhenFlushed) {
+        close();
+      }
+    }
+
+    private void close() {
+      key.cancel();
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOG.warn("Error closing session {}", session.getSessionId(), e);
+      }
+
+      synchronized (outgoingLock) {
+        closed = true;
+        TlvFrameBuffer frame;
+        while ((frame = outgoing.poll()) != null) {
+          frame.release();
+        }
+      }
+
+      if (!isMultiClient()) {
+        terminated = true;
+      }
+    }
+  }
+}
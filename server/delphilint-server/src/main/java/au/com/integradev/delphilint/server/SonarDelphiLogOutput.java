@@ -18,6 +18,7 @@
 package au.com.integradev.delphilint.server;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -25,7 +26,8 @@ import org.sonarsource.sonarlint.core.commons.log.ClientLogOutput;
 
 class SonarDelphiLogOutput implements ClientLogOutput {
   private static final Logger LOG = LogManager.getLogger(SonarDelphiLogOutput.class);
-  private final List<String> messages = new ArrayList<>();
+  // Analyses may log from several worker threads at once
+  private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
 
   @Override
   public void log(String s, Level level) {
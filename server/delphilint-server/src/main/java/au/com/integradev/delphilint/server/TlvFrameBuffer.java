@@ -0,0 +1,115 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A growable buffer that message data is serialized into directly, behind space reserved for the
+ * frame header. The header is backfilled once the data length is known, so the frame can be handed
+ * to the transport without being copied.
+ *
+ * <p>The buffer grows like a {@link ByteArrayOutputStream}, by copying into an array of at least
+ * twice the size, so the old and new arrays are briefly held together while a large message is
+ * serialized. Buffers returned to the pool keep their grown capacity, up to the pool's retention
+ * limit, so later messages of a similar size do not grow again.
+ *
+ * <p>Buffers are obtained from a {@link Pool} and must be released back to it once written.
+ */
+public final class TlvFrameBuffer extends ByteArrayOutputStream {
+  private static final byte[] HEADER_PLACEHOLDER = new byte[TlvSession.HEADER_LENGTH];
+  private final Pool pool;
+  private ByteBuffer frame;
+
+  private TlvFrameBuffer(Pool pool, int initialCapacity) {
+    super(initialCapacity);
+    this.pool = pool;
+    begin();
+  }
+
+  private void begin() {
+    reset();
+    write(HEADER_PLACEHOLDER, 0, HEADER_PLACEHOLDER.length);
+    frame = null;
+  }
+
+  /**
+   * Fills in the frame header for the data written so far.
+   *
+   * @param category the category of the message.
+   * @param id the ID of the message.
+   */
+  public void finish(MessageCategory category, int id) {
+    frame =
+        ByteBuffer.wrap(buf, 0, count)
+            .put(0, category.getCode())
+            .putInt(1, id)
+            .putInt(5, count - TlvSession.HEADER_LENGTH);
+  }
+
+  /**
+   * Gets the finished frame as a view of the underlying buffer. The same view is returned for each
+   * call, so its position can be used to track partial writes.
+   *
+   * @return the frame, including header and data.
+   */
+  public ByteBuffer getFrame() {
+    if (frame == null) {
+      throw new IllegalStateException("Frame has not been finished");
+    }
+    return frame;
+  }
+
+  /** Returns this buffer to its pool. It must not be used afterwards. */
+  public void release() {
+    pool.release(this);
+  }
+
+  /**
+   * A bounded pool of frame buffers. Buffers that have grown beyond the retention limit while
+   * serializing a large message are discarded rather than pooled, so that one large message does
+   * not permanently pin its memory.
+   */
+  public static final class Pool {
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    private final Queue<TlvFrameBuffer> buffers;
+
+    public Pool(int maxPooled) {
+      buffers = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    public TlvFrameBuffer acquire() {
+      TlvFrameBuffer buffer = buffers.poll();
+      if (buffer == null) {
+        buffer = new TlvFrameBuffer(this, INITIAL_CAPACITY);
+      }
+      return buffer;
+    }
+
+    private void release(TlvFrameBuffer buffer) {
+      if (buffer.buf.length <= MAX_RETAINED_CAPACITY) {
+        buffer.begin();
+        buffers.offer(buffer);
+      }
+    }
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import java.io.IOException;
+
+/** A transport-specific sink for outgoing TLV frames. */
+@FunctionalInterface
+public interface TlvFrameWriter {
+  /**
+   * Writes a complete frame, consisting of the header and data, to the client.
+   *
+   * <p>This may be called from several threads at once, and implementations must ensure that frames
+   * are not interleaved. The writer takes ownership of the buffer, and must release it once the
+   * frame has been written or discarded.
+   *
+   * @param frame the finished frame to write.
+   * @throws IOException if the frame could not be written.
+   */
+  void writeFrame(TlvFrameBuffer frame) throws IOException;
+}
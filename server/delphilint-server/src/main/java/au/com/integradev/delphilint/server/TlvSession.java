@@ -0,0 +1,337 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import au.com.integradev.delphilint.analysis.AnalysisProgressMonitor;
+import au.com.integradev.delphilint.server.message.PayloadEncoding;
+import au.com.integradev.delphilint.server.message.RequestAnalyze;
+import au.com.integradev.delphilint.server.message.RequestInitialize;
+import au.com.integradev.delphilint.server.message.RequestRuleRetrieve;
+import au.com.integradev.delphilint.server.message.ResponseAnalyzeProgress;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A TLV (type-length-value) session with a single connected client, independent of the transport
+ * that frames are read from and written to.
+ *
+ * <p>Each request is handled on a worker thread. This means that a long-running request (e.g. an
+ * analysis) does not block other requests, such as pings and rule retrievals, on the same
+ * connection. Responses are tagged with the ID of the request they respond to and may therefore be
+ * sent out of order.
+ *
+ * <p>A client may cancel an in-flight analysis by sending a cancel message (50) with the ID of the
+ * original request. The analysis then responds with an analysis cancelled message (38), unless it
+ * had already finished. In-flight analyses are also cancelled when the session ends.
+ *
+ * <p>Analysis requests that opt in to progress reporting are sent progress messages (39) tagged
+ * with the ID of the request.
+ *
+ * <p>Message data is JSON by default. A client may request a compact binary encoding in its
+ * initialize request (20), in which case all responses after the initialized response (21) are sent
+ * in that encoding. A failed initialization keeps the previous encoding. Data from the client may
+ * use either encoding regardless, as Smile data is identified by its header.
+ *
+ * <p>The session analyzes on the engine it initialized with (see {@link EngineBinding}), which is
+ * released when the session ends.
+ */
+public class TlvSession {
+  private static final Logger LOG = LogManager.getLogger(TlvSession.class);
+  public static final int HEADER_LENGTH = 9;
+  // Far larger than any real request, but small enough that a corrupt length cannot exhaust the
+  // heap
+  public static final int MAX_DATA_LENGTH = 64 * 1024 * 1024;
+  private static final long QUIT_GRACE_PERIOD_SECONDS = 30;
+  private static final int MAX_POOLED_FRAME_BUFFERS = 4;
+  private final int sessionId;
+  private final AnalysisServer server;
+  private final TlvFrameWriter frameWriter;
+  private final ObjectMapper jsonMapper;
+  private final ObjectMapper smileMapper;
+  private final TlvFrameBuffer.Pool frameBuffers;
+  private final ExecutorService workers;
+  private final Map<Integer, AnalysisProgressMonitor> inFlightRequests;
+  private final EngineBinding engineBinding;
+  private volatile PayloadEncoding responseEncoding;
+
+  public TlvSession(int sessionId, AnalysisServer server, TlvFrameWriter frameWriter) {
+    this.sessionId = sessionId;
+    this.server = server;
+    this.frameWriter = frameWriter;
+    jsonMapper = new ObjectMapper();
+    smileMapper =
+        new ObjectMapper(
+            SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build());
+    responseEncoding = PayloadEncoding.JSON;
+    frameBuffers = new TlvFrameBuffer.Pool(MAX_POOLED_FRAME_BUFFERS);
+    workers = Executors.newCachedThreadPool(new WorkerThreadFactory(sessionId));
+    inFlightRequests = new ConcurrentHashMap<>();
+    engineBinding = new EngineBinding();
+  }
+
+  public int getSessionId() {
+    return sessionId;
+  }
+
+  /**
+   * Handles a complete frame received from the client.
+   *
+   * @param categoryCode the category code in the frame header.
+   * @param id the message ID in the frame header.
+   * @param data the frame data.
+   * @return false if the client has requested that the session be ended, true otherwise.
+   */
+  public boolean handleFrame(int categoryCode, int id, byte[] data) {
+    MessageCategory category = MessageCategory.fromCode(categoryCode);
+
+    LOG.info("Received {}", category);
+
+    Consumer<LintMessage> sendMessage = (response -> writeMessage(id, response));
+
+    if (category == null) {
+      LOG.warn("Received message with an unrecognised category");
+      sendMessage.accept(LintMessage.invalidRequest("Unrecognised category"));
+      return true;
+    }
+
+    Object messageData = null;
+
+    if (category.getDataClass() != null) {
+      if (data.length == 0) {
+        LOG.warn("Received message of type {}, but no data was supplied", category);
+        sendMessage.accept(LintMessage.invalidRequest("No data supplied"));
+        return true;
+      }
+
+      try {
+        messageData = getMapper(detectEncoding(data)).readValue(data, category.getDataClass());
+      } catch (IOException e) {
+        LOG.warn(
+            "Received message of type {} with data in an incorrect format: {}",
+            category,
+            e.getMessage());
+        sendMessage.accept(LintMessage.invalidRequest("Data is in an incorrect format"));
+        return true;
+      }
+    }
+
+    if (category == MessageCategory.QUIT) {
+      LOG.info("Quit received, ending session {}", sessionId);
+      return false;
+    }
+
+    if (category == MessageCategory.CANCEL) {
+      cancelRequest(id);
+      return true;
+    }
+
+    Consumer<LintMessage> sendResponse =
+        category == MessageCategory.INITIALIZE
+            ? switchingEncodingOnInitialized(id, (RequestInitialize) messageData)
+            : sendMessage;
+
+    var message = new LintMessage(category, messageData);
+    var progressMonitor = createProgressMonitor(messageData, sendResponse);
+    inFlightRequests.put(id, progressMonitor);
+
+    workers.execute(
+        () -> {
+          try {
+            dispatchRequest(message, progressMonitor, sendResponse);
+          } catch (UncheckedIOException e) {
+            LOG.error("Response to message {} could not be sent", id, e);
+          } finally {
+            inFlightRequests.remove(id, progressMonitor);
+          }
+        });
+
+    return true;
+  }
+
+  /** Waits a limited time for in-flight requests to finish, then ends the session. */
+  public void awaitCompletion() {
+    workers.shutdown();
+    try {
+      if (!workers.awaitTermination(QUIT_GRACE_PERIOD_SECONDS, TimeUnit.SECONDS)) {
+        LOG.warn("In-flight requests did not finish in time, abandoning them");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    close();
+  }
+
+  /** Ends the session immediately, cancelling any in-flight requests. */
+  public void close() {
+    inFlightRequests.values().forEach(AnalysisProgressMonitor::cancel);
+    workers.shutdownNow();
+    engineBinding.close();
+    LOG.info("Session {} ended", sessionId);
+  }
+
+  private static PayloadEncoding detectEncoding(byte[] data) {
+    if (data.length >= 3 && data[0] == ':' && data[1] == ')' && data[2] == '\n') {
+      return PayloadEncoding.SMILE;
+    } else {
+      return PayloadEncoding.JSON;
+    }
+  }
+
+  private ObjectMapper getMapper(PayloadEncoding encoding) {
+    return encoding == PayloadEncoding.SMILE ? smileMapper : jsonMapper;
+  }
+
+  private static AnalysisProgressMonitor createProgressMonitor(
+      Object messageData, Consumer<LintMessage> sendMessage) {
+    if (messageData instanceof RequestAnalyze
+        && ((RequestAnalyze) messageData).isReportProgress()) {
+      return new AnalysisProgressMonitor(
+          progress ->
+              sendMessage.accept(
+                  LintMessage.analyzeProgress(ResponseAnalyzeProgress.fromProgress(progress))));
+    } else {
+      return new AnalysisProgressMonitor();
+    }
+  }
+
+  private void cancelRequest(int id) {
+    AnalysisProgressMonitor progressMonitor = inFlightRequests.get(id);
+    if (progressMonitor == null) {
+      LOG.info("Request {} is not in flight, ignoring cancellation", id);
+    } else {
+      LOG.info("Cancelling request {}", id);
+      progressMonitor.cancel();
+    }
+  }
+
+  /**
+   * Sends the responses to an initialize request, switching to the requested encoding once an
+   * initialized response has been written in the current one.
+   */
+  private Consumer<LintMessage> switchingEncodingOnInitialized(
+      int id, RequestInitialize requestInitialize) {
+    PayloadEncoding encoding = requestInitialize.getPayloadEncoding();
+    PayloadEncoding requestedEncoding = encoding == null ? PayloadEncoding.JSON : encoding;
+
+    return response -> {
+      if (writeMessage(id, response) && response.getCategory() == MessageCategory.INITIALIZED) {
+        responseEncoding = requestedEncoding;
+        LOG.info("Session {} responses will be encoded as {}", sessionId, requestedEncoding);
+      }
+    };
+  }
+
+  /**
+   * @return true if the response was written, false if an error response was written instead.
+   */
+  private boolean writeMessage(int id, LintMessage response) {
+    LOG.info("Sending {}", response.getCategory());
+
+    // The data is serialized straight into the frame buffer rather than via an intermediate string,
+    // so a large response is not copied again once it has been serialized.
+    TlvFrameBuffer frame = frameBuffers.acquire();
+    try {
+      getMapper(responseEncoding).writeValue(frame, response.getData());
+    } catch (IOException e) {
+      frame.release();
+      LOG.error("Unexpected error while encoding outgoing message data", e);
+      writeMessage(id, LintMessage.unexpectedError(e.getMessage()));
+      return false;
+    }
+
+    frame.finish(response.getCategory(), id);
+
+    try {
+      frameWriter.writeFrame(frame);
+    } catch (IOException e) {
+      LOG.error("Unexpected IO exception while writing message data to stream", e);
+      throw new UncheckedIOException(e);
+    }
+    return true;
+  }
+
+  private void dispatchRequest(
+      LintMessage message,
+      AnalysisProgressMonitor progressMonitor,
+      Consumer<LintMessage> sendMessage) {
+    try {
+      processRequest(message, progressMonitor, sendMessage);
+    } catch (Exception e) {
+      LOG.warn("Unexpected error during message processing", e);
+      sendMessage.accept(LintMessage.unexpectedError(e.getMessage()));
+    }
+  }
+
+  private void processRequest(
+      LintMessage message,
+      AnalysisProgressMonitor progressMonitor,
+      Consumer<LintMessage> sendMessage) {
+    switch (message.getCategory()) {
+      case INITIALIZE:
+        server.initialize((RequestInitialize) message.getData(), engineBinding, sendMessage);
+        break;
+      case ANALYZE:
+        server.analyze(
+            (RequestAnalyze) message.getData(), engineBinding, progressMonitor, sendMessage);
+        break;
+      case RULE_RETRIEVE:
+        server.retrieveRules((RequestRuleRetrieve) message.getData(), engineBinding, sendMessage);
+        break;
+      case PING:
+        sendMessage.accept(LintMessage.pong((String) message.getData()));
+        break;
+      default:
+        LOG.warn("TCP request has unhandled category {}", message.getCategory());
+        sendMessage.accept(LintMessage.invalidRequest("Unhandled request category"));
+    }
+  }
+
+  private static class WorkerThreadFactory implements ThreadFactory {
+    private final int sessionId;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    public WorkerThreadFactory(int sessionId) {
+      this.sessionId = sessionId;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      var thread =
+          new Thread(
+              runnable,
+              "delphilint-session-" + sessionId + "-worker-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server.message;
+
+/** The encoding of the data in TLV messages. */
+public enum PayloadEncoding {
+  /** UTF-8 JSON. */
+  JSON,
+  /**
+   * Jackson Smile, a binary JSON format that refers back to repeated property names and string
+   * values instead of repeating them. Smile data always starts with the header {@code :)\n}.
+   */
+  SMILE
+}
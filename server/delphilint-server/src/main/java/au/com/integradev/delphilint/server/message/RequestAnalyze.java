@@ -29,6 +29,8 @@ public class RequestAnalyze {
   @JsonProperty private String apiToken;
   @JsonProperty private String projectPropertiesPath;
   @JsonProperty private Set<String> disabledRules;
+  @JsonProperty private boolean streamResults;
+  @JsonProperty private boolean reportProgress;
 
   public Path getBaseDir() {
     return baseDir;
@@ -57,4 +59,18 @@ public class RequestAnalyze {
   public Set<String> getDisabledRules() {
     return disabledRules;
   }
+
+  /**
+   * @return whether the client accepts partial results (37) while the analysis is in progress.
+   */
+  public boolean isStreamResults() {
+    return streamResults;
+  }
+
+  /**
+   * @return whether the client accepts progress messages (39) while the analysis is in progress.
+   */
+  public boolean isReportProgress() {
+    return reportProgress;
+  }
 }
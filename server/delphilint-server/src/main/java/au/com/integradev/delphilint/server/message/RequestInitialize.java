@@ -23,6 +23,7 @@ public class RequestInitialize {
   private String sonarHostUrl;
   private String apiToken;
   private String sonarDelphiVersion;
+  private PayloadEncoding payloadEncoding;
 
   public String getBdsPath() {
     return bdsPath;
@@ -43,4 +44,12 @@ public class RequestInitialize {
   public String getSonarDelphiVersion() {
     return sonarDelphiVersion;
   }
+
+  /**
+   * @return the encoding that the client would like responses to be sent in, or null for the
+   *     default (JSON).
+   */
+  public PayloadEncoding getPayloadEncoding() {
+    return payloadEncoding;
+  }
 }
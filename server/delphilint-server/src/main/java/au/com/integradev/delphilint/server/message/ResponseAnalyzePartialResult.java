@@ -0,0 +1,45 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server.message;
+
+import au.com.integradev.delphilint.analysis.DelphiIssue;
+import au.com.integradev.delphilint.server.message.data.IssueData;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Issues found by an analysis that is still in progress. Partial results are additive - the issues
+ * in a partial result are not repeated in later partial results or in the final analysis result.
+ */
+public final class ResponseAnalyzePartialResult {
+  @JsonProperty private Set<IssueData> issues;
+
+  private ResponseAnalyzePartialResult(Set<IssueData> issues) {
+    this.issues = issues;
+  }
+
+  public void convertPathsToAbsolute(Path baseDir) {
+    issues.forEach(issue -> issue.setFile(baseDir.resolve(issue.getFile()).toString()));
+  }
+
+  public static ResponseAnalyzePartialResult fromIssueSet(Collection<DelphiIssue> delphiIssues) {
+    return new ResponseAnalyzePartialResult(ResponseAnalyzeResult.toIssueData(delphiIssues));
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server.message;
+
+import au.com.integradev.delphilint.analysis.AnalysisPhase;
+import au.com.integradev.delphilint.analysis.AnalysisProgress;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public final class ResponseAnalyzeProgress {
+  @JsonProperty private AnalysisPhase phase;
+  @JsonProperty private int filesParsed;
+  @JsonProperty private int filesRemaining;
+  @JsonProperty private long elapsedMillis;
+
+  private ResponseAnalyzeProgress(
+      AnalysisPhase phase, int filesParsed, int filesRemaining, long elapsedMillis) {
+    this.phase = phase;
+    this.filesParsed = filesParsed;
+    this.filesRemaining = filesRemaining;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public static ResponseAnalyzeProgress fromProgress(AnalysisProgress progress) {
+    return new ResponseAnalyzeProgress(
+        progress.getPhase(),
+        progress.getFilesParsed(),
+        progress.getFilesRemaining(),
+        progress.getElapsedMillis());
+  }
+}
@@ -46,20 +46,21 @@ public final class ResponseAnalyzeResult {
 
   public static ResponseAnalyzeResult fromIssueSet(
       Collection<DelphiIssue> delphiIssues, List<String> logMessages) {
-    Set<IssueData> issues =
-        delphiIssues.stream()
-            .map(
-                delphiIssue ->
-                    new IssueData(
-                        delphiIssue.getRuleKey(),
-                        delphiIssue.getMessage(),
-                        delphiIssue.getFile(),
-                        transformRange(delphiIssue.getTextRange()),
-                        transformMetadata(delphiIssue.getMetadata()),
-                        transformQuickFixes(delphiIssue.getQuickFixes())))
-            .collect(Collectors.toSet());
+    return new ResponseAnalyzeResult(toIssueData(delphiIssues), logMessages);
+  }
 
-    return new ResponseAnalyzeResult(issues, logMessages);
+  static Set<IssueData> toIssueData(Collection<DelphiIssue> delphiIssues) {
+    return delphiIssues.stream()
+        .map(
+            delphiIssue ->
+                new IssueData(
+                    delphiIssue.getRuleKey(),
+                    delphiIssue.getMessage(),
+                    delphiIssue.getFile(),
+                    transformRange(delphiIssue.getTextRange()),
+                    transformMetadata(delphiIssue.getMetadata()),
+                    transformQuickFixes(delphiIssue.getQuickFixes())))
+        .collect(Collectors.toSet());
   }
 
   private static TextRange transformRange(TextRange range) {
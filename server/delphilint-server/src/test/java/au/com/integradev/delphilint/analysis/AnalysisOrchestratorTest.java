@@ -0,0 +1,95 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnalysisOrchestratorTest {
+  @TempDir Path baseDir;
+
+  private DelphiLintInputFile createFile(String name, int size) throws IOException {
+    Files.writeString(baseDir.resolve(name), "x".repeat(size));
+    return new DelphiLintInputFile(baseDir, Path.of(name), StandardCharsets.UTF_8);
+  }
+
+  private List<DelphiLintInputFile> createUnits(int count) throws IOException {
+    List<DelphiLintInputFile> units = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      units.add(createFile("Unit" + i + ".pas", 100 + i));
+    }
+    return units;
+  }
+
+  @Test
+  void testSmallAnalysisIsNotPartitioned() throws IOException {
+    List<DelphiLintInputFile> inputFiles = createUnits(30);
+
+    var partitions = AnalysisOrchestrator.partition(inputFiles, 4);
+
+    assertEquals(List.of(inputFiles), partitions);
+  }
+
+  @Test
+  void testSourceFilesAreSplitBetweenPartitions() throws IOException {
+    List<DelphiLintInputFile> inputFiles = createUnits(100);
+    var project = createFile("Project.dproj", 10);
+    inputFiles.add(project);
+
+    var partitions = AnalysisOrchestrator.partition(inputFiles, 3);
+
+    assertEquals(3, partitions.size());
+    Set<DelphiLintInputFile> sourceFiles = new HashSet<>();
+    for (List<DelphiLintInputFile> partition : partitions) {
+      assertTrue(partition.contains(project));
+      for (DelphiLintInputFile inputFile : partition) {
+        if (inputFile.isSourceFile()) {
+          assertTrue(sourceFiles.add(inputFile), inputFile + " is in more than one partition");
+        }
+      }
+    }
+    assertEquals(100, sourceFiles.size());
+  }
+
+  @Test
+  void testPartitionsAreBalancedBySize() throws IOException {
+    List<DelphiLintInputFile> inputFiles = createUnits(60);
+    inputFiles.add(createFile("Large.pas", 10000));
+
+    var partitions = AnalysisOrchestrator.partition(inputFiles, 2);
+
+    assertEquals(2, partitions.size());
+    List<DelphiLintInputFile> largePartition =
+        partitions.get(0).stream().anyMatch(file -> file.relativePath().equals("Large.pas"))
+            ? partitions.get(0)
+            : partitions.get(1);
+    // The large file outweighs all of the units, so they are all placed in the other partition
+    assertEquals(1, largePartition.size());
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AnalysisProgressMonitorTest {
+  private static final Path BASE_DIR =
+      Path.of("src/test/resources/au/com/integradev/delphilint/analysis/charsetDetection");
+
+  @Test
+  void testPhaseChangesAreReported() {
+    List<AnalysisProgress> reports = new ArrayList<>();
+    var monitor = new AnalysisProgressMonitor(reports::add);
+
+    monitor.startPhase(AnalysisPhase.CONFIGURING);
+    monitor.startPhase(AnalysisPhase.ANALYZING);
+    monitor.startPhase(AnalysisPhase.TRACKING);
+    monitor.finish();
+
+    assertEquals(3, reports.size());
+    assertEquals(AnalysisPhase.CONFIGURING, reports.get(0).getPhase());
+    assertEquals(AnalysisPhase.ANALYZING, reports.get(1).getPhase());
+    assertEquals(AnalysisPhase.TRACKING, reports.get(2).getPhase());
+  }
+
+  @Test
+  void testFilesAreCountedOnFirstRead() throws IOException {
+    List<AnalysisProgress> reports = new ArrayList<>();
+    var monitor = new AnalysisProgressMonitor(reports::add);
+    var file =
+        new DelphiLintInputFile(
+            BASE_DIR, Path.of("Utf8File.pas"), StandardCharsets.UTF_8, monitor::fileRead);
+
+    monitor.setTotalFiles(3);
+    monitor.startPhase(AnalysisPhase.ANALYZING);
+    file.contents();
+    file.contents();
+    monitor.startPhase(AnalysisPhase.TRACKING);
+
+    AnalysisProgress last = reports.get(reports.size() - 1);
+    assertEquals(1, last.getFilesParsed());
+    assertEquals(2, last.getFilesRemaining());
+  }
+
+  @Test
+  void testCancel() {
+    var monitor = new AnalysisProgressMonitor();
+    assertFalse(monitor.isCanceled());
+    monitor.cancel();
+    assertTrue(monitor.isCanceled());
+  }
+}
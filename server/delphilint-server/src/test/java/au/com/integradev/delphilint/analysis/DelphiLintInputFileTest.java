@@ -20,6 +20,7 @@ package au.com.integradev.delphilint.analysis;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -108,4 +109,17 @@ class DelphiLintInputFileTest {
     var file = new DelphiLintInputFile(Path.of("/a/b/c"), Path.of("d/e/f"), StandardCharsets.UTF_8);
     assertNull(file.<Integer>getClientObject());
   }
+
+  @Test
+  void testIsSourceFile() {
+    assertTrue(
+        new DelphiLintInputFile(Path.of("/a"), Path.of("b/Unit.pas"), StandardCharsets.UTF_8)
+            .isSourceFile());
+    assertTrue(
+        new DelphiLintInputFile(Path.of("/a"), Path.of("b/Project.DPR"), StandardCharsets.UTF_8)
+            .isSourceFile());
+    assertFalse(
+        new DelphiLintInputFile(Path.of("/a"), Path.of("b/Project.dproj"), StandardCharsets.UTF_8)
+            .isSourceFile());
+  }
 }
@@ -0,0 +1,95 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.analysis.api.ClientInputFile;
+import org.sonarsource.sonarlint.core.analysis.api.ClientModuleFileEvent;
+import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileEvent;
+
+class DelphiLintModuleFileSystemTest {
+  @TempDir Path baseDir;
+
+  private DelphiLintInputFile createFile(String name, String contents) throws IOException {
+    Files.writeString(baseDir.resolve(name), contents);
+    return new DelphiLintInputFile(baseDir, Path.of(name), StandardCharsets.UTF_8);
+  }
+
+  private static List<ModuleFileEvent.Type> types(List<ClientModuleFileEvent> events) {
+    return events.stream().map(ClientModuleFileEvent::type).collect(Collectors.toList());
+  }
+
+  @Test
+  void testNewFilesAreCreated() throws IOException {
+    var fileSystem = new DelphiLintModuleFileSystem(baseDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA;");
+
+    assertEquals(List.of(ModuleFileEvent.Type.CREATED), types(fileSystem.update(List.of(unitA))));
+    assertEquals(
+        List.of("UnitA.pas"),
+        fileSystem.files().map(ClientInputFile::relativePath).collect(Collectors.toList()));
+    assertTrue(fileSystem.update(List.of(unitA)).isEmpty());
+  }
+
+  @Test
+  void testFilesAreKeptBetweenUpdates() throws IOException {
+    var fileSystem = new DelphiLintModuleFileSystem(baseDir);
+    fileSystem.update(List.of(createFile("UnitA.pas", "unit UnitA;")));
+    fileSystem.update(List.of(createFile("UnitB.pas", "unit UnitB;")));
+
+    assertEquals(2, fileSystem.files(".pas", InputFile.Type.MAIN).count());
+    assertEquals(0, fileSystem.files(".pas", InputFile.Type.TEST).count());
+  }
+
+  @Test
+  void testChangedFilesAreModified() throws IOException {
+    var fileSystem = new DelphiLintModuleFileSystem(baseDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA;");
+    fileSystem.update(List.of(unitA));
+
+    createFile("UnitA.pas", "unit UnitA; // changed");
+    Files.setLastModifiedTime(
+        baseDir.resolve("UnitA.pas"), FileTime.from(Instant.now().plusSeconds(10)));
+
+    assertEquals(List.of(ModuleFileEvent.Type.MODIFIED), types(fileSystem.update(List.of())));
+  }
+
+  @Test
+  void testMissingFilesAreDeleted() throws IOException {
+    var fileSystem = new DelphiLintModuleFileSystem(baseDir);
+    fileSystem.update(List.of(createFile("UnitA.pas", "unit UnitA;")));
+
+    Files.delete(baseDir.resolve("UnitA.pas"));
+
+    assertEquals(List.of(ModuleFileEvent.Type.DELETED), types(fileSystem.update(List.of())));
+    assertEquals(0, fileSystem.files().count());
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DelphiSearchPathTest {
+  @TempDir Path baseDir;
+  @TempDir Path bdsDir;
+
+  @Test
+  void testSearchPathPropertyIsResolvedAgainstBaseDir() throws IOException {
+    Path lib = Files.createDirectories(baseDir.resolve("lib"));
+    Path other = Files.createDirectories(baseDir.resolve("other"));
+
+    List<Path> searchPath =
+        DelphiSearchPath.of(
+            baseDir, Map.of("sonar.delphi.search.path", "lib, other,missing"), List.of(), "");
+
+    assertEquals(List.of(lib, other), searchPath);
+  }
+
+  @Test
+  void testProjectFileUnitSearchPathIsIncluded() throws IOException {
+    Path lib = Files.createDirectories(baseDir.resolve("lib"));
+    Path imports = Files.createDirectories(bdsDir.resolve("Imports"));
+    Files.writeString(
+        baseDir.resolve("Project.dproj"),
+        "<Project><PropertyGroup>"
+            + "<DCC_UnitSearchPath>lib;$(BDS)\\Imports;$(Platform)\\$(Config);"
+            + "$(DCC_UnitSearchPath)</DCC_UnitSearchPath>"
+            + "</PropertyGroup></Project>");
+    var projectFile =
+        new DelphiLintInputFile(baseDir, Path.of("Project.dproj"), StandardCharsets.UTF_8);
+
+    List<Path> searchPath =
+        DelphiSearchPath.of(baseDir, Map.of(), List.of(projectFile), bdsDir.toString());
+
+    assertEquals(List.of(lib, imports), searchPath);
+  }
+}
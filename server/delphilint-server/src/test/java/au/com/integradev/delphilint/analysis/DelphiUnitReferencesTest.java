@@ -0,0 +1,139 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import au.com.integradev.delphilint.analysis.DelphiUnitReferences.UnitReference;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class DelphiUnitReferencesTest {
+  private static List<String> names(List<UnitReference> units) {
+    return units.stream().map(UnitReference::getName).collect(Collectors.toList());
+  }
+
+  @Test
+  void testUsesClausesAreSplitBySection() {
+    var references =
+        DelphiUnitReferences.scan(
+            "unit Foo;\n"
+                + "interface\n"
+                + "uses System.SysUtils, Bar;\n"
+                + "type IFoo = interface end;\n"
+                + "implementation\n"
+                + "uses Baz;\n"
+                + "end.");
+
+    assertEquals(List.of("System.SysUtils", "Bar"), names(references.getInterfaceUnits()));
+    assertEquals(List.of("Baz"), names(references.getImplementationUnits()));
+  }
+
+  @Test
+  void testInterfaceTextExcludesImplementation() {
+    var references =
+        DelphiUnitReferences.scan(
+            "unit Foo;\ninterface\nconst A = 1;\nimplementation\nconst B = 2;\nend.");
+
+    assertTrue(references.getInterfaceText().contains("const A = 1;"));
+    assertFalse(references.getInterfaceText().contains("const B = 2;"));
+  }
+
+  @Test
+  void testCommentsAndStringsAreIgnored() {
+    var references =
+        DelphiUnitReferences.scan(
+            "unit Foo;\n"
+                + "interface\n"
+                + "uses\n"
+                + "  { uses Comment1; }\n"
+                + "  Bar, // Comment2\n"
+                + "  (* Comment3, *) Baz;\n"
+                + "const S = 'uses Str;';\n"
+                + "implementation\n"
+                + "end.");
+
+    assertEquals(List.of("Bar", "Baz"), names(references.getInterfaceUnits()));
+    assertTrue(references.getImplementationUnits().isEmpty());
+  }
+
+  @Test
+  void testInClausesAreRecorded() {
+    var references =
+        DelphiUnitReferences.scan(
+            "program Foo;\nuses\n  Bar in 'src\\Bar.pas',\n  Baz;\nbegin\nend.");
+
+    List<UnitReference> units = references.getImplementationUnits();
+    assertEquals(List.of("Bar", "Baz"), names(units));
+    assertEquals("src\\Bar.pas", units.get(0).getPath());
+    assertNull(units.get(1).getPath());
+    assertEquals("", references.getInterfaceText());
+  }
+
+  @Test
+  void testIncludeDirectivesAreRecorded() {
+    var references =
+        DelphiUnitReferences.scan(
+            "unit Foo;\n"
+                + "{$I Defines.inc}\n"
+                + "interface\n"
+                + "{$INCLUDE 'Types.inc'}\n"
+                + "{$IFDEF DEBUG}{$I+}{$ENDIF}\n"
+                + "implementation\n"
+                + "{$i Impl.inc}\n"
+                + "end.");
+
+    assertEquals(List.of("Types.inc"), references.getInterfaceIncludes());
+    assertEquals(List.of("Defines.inc", "Impl.inc"), references.getImplementationIncludes());
+  }
+
+  @Test
+  void testContainsMethodsInUnitsAreNotClauses() {
+    var references =
+        DelphiUnitReferences.scan(
+            "unit Foo;\n"
+                + "interface\n"
+                + "uses Bar;\n"
+                + "type TFoo = class\n"
+                + "  function Contains(const Value: Integer): Boolean;\n"
+                + "end;\n"
+                + "implementation\n"
+                + "function TFoo.Contains(const Value: Integer): Boolean;\n"
+                + "begin\n"
+                + "  Result := Contains(Key);\n"
+                + "end;\n"
+                + "end.");
+
+    assertEquals(List.of("Bar"), names(references.getInterfaceUnits()));
+    assertTrue(references.getImplementationUnits().isEmpty());
+  }
+
+  @Test
+  void testContainsClausesAreOnlyRecordedInPackages() {
+    String text = "package Foo;\nrequires rtl;\ncontains\n  Bar in 'Bar.pas',\n  Baz;\nend.";
+
+    assertEquals(
+        List.of("Bar", "Baz"),
+        names(DelphiUnitReferences.scan(text, true).getImplementationUnits()));
+    assertTrue(DelphiUnitReferences.scan(text, false).getImplementationUnits().isEmpty());
+  }
+}
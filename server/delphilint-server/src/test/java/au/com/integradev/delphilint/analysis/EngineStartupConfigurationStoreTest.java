@@ -0,0 +1,74 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EngineStartupConfigurationStoreTest {
+  @TempDir Path settingsDir;
+
+  private EngineStartupConfiguration createConfig() throws IOException {
+    Path plugin = Files.createFile(settingsDir.resolve("sonar-delphi-plugin.jar"));
+    return new EngineStartupConfiguration(
+        "C:\\Embarcadero\\Studio\\22.0", "VER350", Set.of(plugin));
+  }
+
+  @Test
+  void testSavedConfigurationIsLoaded() throws IOException {
+    var store = new EngineStartupConfigurationStore(settingsDir.resolve("engine.json"));
+    var config = createConfig();
+
+    store.save(config);
+
+    assertEquals(
+        Optional.of(config),
+        new EngineStartupConfigurationStore(settingsDir.resolve("engine.json")).load());
+  }
+
+  @Test
+  void testMissingConfigurationIsEmpty() {
+    var store = new EngineStartupConfigurationStore(settingsDir.resolve("engine.json"));
+    assertTrue(store.load().isEmpty());
+  }
+
+  @Test
+  void testCorruptConfigurationIsEmpty() throws IOException {
+    Files.writeString(settingsDir.resolve("engine.json"), "{\"bdsPath\":");
+    var store = new EngineStartupConfigurationStore(settingsDir.resolve("engine.json"));
+    assertTrue(store.load().isEmpty());
+  }
+
+  @Test
+  void testConfigurationWithDeletedPluginIsEmpty() throws IOException {
+    var store = new EngineStartupConfigurationStore(settingsDir.resolve("engine.json"));
+    store.save(createConfig());
+
+    Files.delete(settingsDir.resolve("sonar-delphi-plugin.jar"));
+
+    assertTrue(store.load().isEmpty());
+  }
+}
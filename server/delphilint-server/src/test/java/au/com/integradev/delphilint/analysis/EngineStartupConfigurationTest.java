@@ -0,0 +1,62 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.nio.file.Path;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class EngineStartupConfigurationTest {
+  private static final Set<Path> PLUGINS = Set.of(Path.of("sonar-delphi-plugin-1.12.1.jar"));
+
+  @Test
+  void testConfigurationsWithSameValuesAreEqual() {
+    var config = new EngineStartupConfiguration("C:\\BDS\\23.0", "VER360", PLUGINS);
+    var same =
+        new EngineStartupConfiguration(
+            "C:\\BDS\\23.0", "VER360", Set.of(Path.of("sonar-delphi-plugin-1.12.1.jar")));
+
+    assertEquals(config, same);
+    assertEquals(config.hashCode(), same.hashCode());
+  }
+
+  @Test
+  void testInstallationPathIsPartOfEquality() {
+    assertNotEquals(
+        new EngineStartupConfiguration("C:\\BDS\\23.0", "VER360", PLUGINS),
+        new EngineStartupConfiguration("C:\\BDS\\22.0", "VER360", PLUGINS));
+  }
+
+  @Test
+  void testCompilerVersionIsPartOfEquality() {
+    assertNotEquals(
+        new EngineStartupConfiguration("C:\\BDS\\23.0", "VER360", PLUGINS),
+        new EngineStartupConfiguration("C:\\BDS\\23.0", "VER350", PLUGINS));
+  }
+
+  @Test
+  void testPluginPathsArePartOfEquality() {
+    assertNotEquals(
+        new EngineStartupConfiguration("C:\\BDS\\23.0", "VER360", PLUGINS),
+        new EngineStartupConfiguration(
+            "C:\\BDS\\23.0", "VER360", Set.of(Path.of("sonar-delphi-plugin-1.13.0.jar"))));
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.analysis.api.Issue;
+
+class FileBatchingIssueListenerTest {
+  private static final Path BASE_DIR = Path.of("base").toAbsolutePath();
+
+  private static Issue buildIssue(String file) {
+    return new Issue(
+        "rk1",
+        "issue",
+        Collections.emptyMap(),
+        null,
+        file == null
+            ? null
+            : new DelphiLintInputFile(BASE_DIR, Path.of(file), StandardCharsets.UTF_8),
+        Collections.emptyList(),
+        Collections.emptyList(),
+        Optional.empty());
+  }
+
+  private static String fileOf(Issue issue) {
+    return issue.getInputFile() == null ? "" : issue.getInputFile().relativePath();
+  }
+
+  @Test
+  void testIssuesForAFileArePassedOnTogether() {
+    List<Issue> received = new ArrayList<>();
+    var listener = new FileBatchingIssueListener(received::add, true);
+
+    listener.accept(buildIssue("UnitA.pas"));
+    listener.accept(buildIssue("UnitA.pas"));
+    assertTrue(received.isEmpty());
+
+    listener.accept(buildIssue("UnitB.pas"));
+    assertEquals(2, received.size());
+
+    listener.flush();
+    assertEquals(3, received.size());
+  }
+
+  @Test
+  void testSharedIssuesArePassedOnOnlyByTheirOwner() {
+    List<Issue> owned = new ArrayList<>();
+    List<Issue> notOwned = new ArrayList<>();
+    var owner = new FileBatchingIssueListener(owned::add, true);
+    var other = new FileBatchingIssueListener(notOwned::add, false);
+
+    for (var listener : List.of(owner, other)) {
+      listener.accept(buildIssue("UnitA.pas"));
+      listener.accept(buildIssue("Project.dproj"));
+      listener.accept(buildIssue(null));
+      listener.flush();
+    }
+
+    assertEquals(3, owned.size());
+    assertEquals(1, notOwned.size());
+    assertEquals("UnitA.pas", fileOf(notOwned.get(0)));
+  }
+
+  @Test
+  void testParallelWorkersAreMergedFileByFileWithoutDuplicates() throws Exception {
+    int workers = 4;
+    int filesPerWorker = 50;
+    int issuesPerFile = 5;
+    List<Issue> received = new ArrayList<>();
+    // The workers share one listener, which they synchronize on
+    Consumer<Issue> issueListener = received::add;
+    ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int worker = 0; worker < workers; worker++) {
+        int workerIndex = worker;
+        var listener = new FileBatchingIssueListener(issueListener, worker == 0);
+        futures.add(
+            executor.submit(
+                () -> {
+                  // Every worker raises the same project level issue, as it analyzes the project
+                  listener.accept(buildIssue(null));
+                  for (int file = 0; file < filesPerWorker; file++) {
+                    for (int i = 0; i < issuesPerFile; i++) {
+                      listener.accept(buildIssue("Unit" + workerIndex + "_" + file + ".pas"));
+                    }
+                  }
+                  listener.flush();
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(workers * filesPerWorker * issuesPerFile + 1, received.size());
+
+    // Each file's issues are contiguous, so no file is seen again after another file
+    Set<String> finishedFiles = new HashSet<>();
+    String currentFile = null;
+    for (Issue issue : received) {
+      String file = fileOf(issue);
+      if (!file.equals(currentFile)) {
+        assertTrue(finishedFiles.add(file), file + " was interleaved with another file");
+        currentFile = file;
+      }
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.analysis.api.ClientInputFileEdit;
+import org.sonarsource.sonarlint.core.analysis.api.Issue;
+import org.sonarsource.sonarlint.core.analysis.api.QuickFix;
+import org.sonarsource.sonarlint.core.analysis.api.TextEdit;
+import org.sonarsource.sonarlint.core.commons.TextRange;
+
+class IncrementalAnalysisTest {
+  private static final String CONFIGURATION_HASH = "configuration";
+
+  @TempDir Path baseDir;
+  @TempDir Path cacheDir;
+  @TempDir Path libDir;
+
+  private DelphiLintInputFile createFile(String name, String contents) throws IOException {
+    Files.writeString(baseDir.resolve(name), contents);
+    return new DelphiLintInputFile(baseDir, Path.of(name), StandardCharsets.UTF_8);
+  }
+
+  private static Issue buildIssue(DelphiLintInputFile inputFile) {
+    var range = new TextRange(1, 0, 1, 4);
+    return new Issue(
+        "rk1",
+        "issue",
+        Collections.emptyMap(),
+        range,
+        inputFile,
+        Collections.emptyList(),
+        List.of(
+            new QuickFix(
+                List.of(new ClientInputFileEdit(inputFile, List.of(new TextEdit(range, "fix")))),
+                "quick fix")),
+        Optional.empty());
+  }
+
+  private static void analyze(IncrementalAnalysis analysis) {
+    Consumer<Issue> issueListener = analysis.recordingTo(issue -> {});
+    analysis.getFilesToAnalyze().forEach(file -> issueListener.accept(buildIssue(file)));
+    analysis.store();
+  }
+
+  @Test
+  void testUnchangedFilesAreServedFromCache() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA;");
+    var unitB = createFile("UnitB.pas", "unit UnitB;");
+
+    var first = new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA, unitB));
+    assertTrue(first.isEngineRequired());
+    assertEquals(2, first.getFilesToAnalyze().size());
+    analyze(first);
+
+    var second = new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA, unitB));
+    assertFalse(second.isEngineRequired());
+    assertEquals(2, second.getCachedFileCount());
+    assertEquals(2, second.getCachedIssues().size());
+  }
+
+  @Test
+  void testChangedFilesAreAnalyzed() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA;");
+    var unitB = createFile("UnitB.pas", "unit UnitB;");
+    analyze(new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA, unitB)));
+
+    createFile("UnitB.pas", "unit UnitB; // changed");
+
+    var analysis =
+        new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA, unitB));
+    assertTrue(analysis.isEngineRequired());
+    assertEquals(List.of(unitB), analysis.getFilesToAnalyze());
+    assertEquals(1, analysis.getCachedFileCount());
+  }
+
+  @Test
+  void testChangedConfigurationInvalidatesCache() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA;");
+    analyze(new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA)));
+
+    var analysis = new IncrementalAnalysis(cache, "other configuration", baseDir, Set.of(unitA));
+    assertTrue(analysis.isEngineRequired());
+    assertEquals(0, analysis.getCachedFileCount());
+  }
+
+  @Test
+  void testProjectFilesAreAlwaysAnalyzedAndInvalidateCache() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA;");
+    var project = createFile("Project.dproj", "<Project/>");
+    analyze(new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA, project)));
+
+    var unchanged =
+        new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA, project));
+    assertFalse(unchanged.isEngineRequired());
+    assertEquals(List.of(project), unchanged.getFilesToAnalyze());
+
+    createFile("Project.dproj", "<Project><Changed/></Project>");
+
+    var changed =
+        new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA, project));
+    assertTrue(changed.isEngineRequired());
+    assertEquals(0, changed.getCachedFileCount());
+  }
+
+  @Test
+  void testInterfaceChangesInvalidateDependentsTransitively() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA; interface uses UnitB; implementation end.");
+    createFile("UnitB.pas", "unit UnitB; interface uses UnitC; implementation end.");
+    createFile("UnitC.pas", "unit UnitC; interface const X = 1; implementation end.");
+    analyze(new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA)));
+
+    createFile("UnitC.pas", "unit UnitC; interface const X = 2; implementation end.");
+
+    var analysis = new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA));
+    assertEquals(List.of(unitA), analysis.getFilesToAnalyze());
+  }
+
+  @Test
+  void testImplementationChangesDoNotInvalidateDependents() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA; interface implementation uses UnitB; end.");
+    createFile("UnitB.pas", "unit UnitB; interface implementation const X = 1; end.");
+    analyze(new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA)));
+
+    createFile("UnitB.pas", "unit UnitB; interface implementation const X = 2; end.");
+
+    var analysis = new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA));
+    assertFalse(analysis.isEngineRequired());
+  }
+
+  @Test
+  void testIncludeFileChangesInvalidateCache() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA =
+        createFile("UnitA.pas", "unit UnitA; {$I Defines.inc} interface implementation end.");
+    Files.createDirectory(baseDir.resolve("inc"));
+    createFile("inc/Defines.inc", "{$DEFINE FOO}");
+    analyze(new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA)));
+
+    createFile("inc/Defines.inc", "{$DEFINE BAR}");
+
+    var analysis = new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA));
+    assertEquals(List.of(unitA), analysis.getFilesToAnalyze());
+  }
+
+  @Test
+  void testCachedIssuesAreRecreated() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA;");
+    analyze(new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA)));
+
+    var analysis = new IncrementalAnalysis(cache, CONFIGURATION_HASH, baseDir, Set.of(unitA));
+    assertEquals(1, analysis.getCachedIssues().size());
+
+    var expected = new DelphiIssue(buildIssue(unitA), null);
+    var actual = new DelphiIssue(analysis.getCachedIssues().get(0), null);
+    assertEquals(expected.getRuleKey(), actual.getRuleKey());
+    assertEquals(expected.getMessage(), actual.getMessage());
+    assertEquals(expected.getFile(), actual.getFile());
+    assertEquals(expected.getTextRange().getEndOffset(), actual.getTextRange().getEndOffset());
+    assertEquals(1, actual.getQuickFixes().size());
+    assertEquals("quick fix", actual.getQuickFixes().get(0).message());
+    assertEquals("fix", actual.getQuickFixes().get(0).textEdits().get(0).replacement());
+  }
+
+  @Test
+  void testCorruptEntriesAreIgnored() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    cache.put("key", List.of());
+    assertEquals(Optional.of(List.of()), cache.get("key"));
+
+    Files.writeString(cacheDir.resolve("key.json"), "{not json");
+    assertEquals(Optional.empty(), cache.get("key"));
+    assertEquals(Optional.empty(), cache.get("missing"));
+  }
+
+  private IncrementalAnalysis analysisWithSearchPath(
+      AnalysisCache cache, DelphiLintInputFile inputFile, SourceFileIndex standardLibrary) {
+    var sourceFiles = new SourceFileIndex(baseDir);
+    sourceFiles.refresh();
+    return new IncrementalAnalysis(
+        cache,
+        CONFIGURATION_HASH,
+        Set.of(inputFile),
+        new DependencyHasher(baseDir, sourceFiles, List.of(libDir), standardLibrary));
+  }
+
+  private SourceFileIndex createStandardLibrary() throws IOException {
+    Path standardLibraryDir = Files.createDirectories(libDir.resolve("stdlib"));
+    Files.writeString(standardLibraryDir.resolve("System.SysUtils.pas"), "unit System.SysUtils;");
+    var standardLibrary = new SourceFileIndex(standardLibraryDir);
+    standardLibrary.refresh();
+    return standardLibrary;
+  }
+
+  @Test
+  void testUnitsOnSearchPathInvalidateDependents() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA; interface uses LibUnit; implementation end.");
+    Files.writeString(libDir.resolve("LibUnit.pas"), "unit LibUnit; interface const X = 1; end.");
+    var standardLibrary = createStandardLibrary();
+    analyze(analysisWithSearchPath(cache, unitA, standardLibrary));
+
+    assertFalse(analysisWithSearchPath(cache, unitA, standardLibrary).isEngineRequired());
+
+    Files.writeString(libDir.resolve("LibUnit.pas"), "unit LibUnit; interface const X = 2; end.");
+
+    var analysis = analysisWithSearchPath(cache, unitA, standardLibrary);
+    assertEquals(List.of(unitA), analysis.getFilesToAnalyze());
+  }
+
+  @Test
+  void testStandardLibraryUnitsDoNotPreventCaching() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA; interface uses SysUtils; implementation end.");
+    var standardLibrary = createStandardLibrary();
+    analyze(analysisWithSearchPath(cache, unitA, standardLibrary));
+
+    assertFalse(analysisWithSearchPath(cache, unitA, standardLibrary).isEngineRequired());
+  }
+
+  @Test
+  void testFilesWithUnresolvedDependenciesAreNotCached() throws IOException {
+    var cache = new AnalysisCache(cacheDir);
+    var unitA = createFile("UnitA.pas", "unit UnitA; interface uses Missing; implementation end.");
+    var standardLibrary = createStandardLibrary();
+    analyze(analysisWithSearchPath(cache, unitA, standardLibrary));
+
+    var analysis = analysisWithSearchPath(cache, unitA, standardLibrary);
+    assertTrue(analysis.isEngineRequired());
+    assertEquals(List.of(unitA), analysis.getFilesToAnalyze());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceFileIndexTest {
+  @TempDir Path root;
+
+  private Path createFile(String name) throws IOException {
+    Path file = root.resolve(name);
+    Files.createDirectories(file.getParent());
+    return Files.writeString(file, "");
+  }
+
+  @Test
+  void testFilesAreFoundByNameInAnyDirectory() throws IOException {
+    Path unit = createFile("src/UnitA.pas");
+    Path include = createFile("inc/Defines.inc");
+    createFile("src/Project.dproj");
+
+    var index = new SourceFileIndex(root);
+    index.refresh();
+
+    assertEquals(Set.of(unit), index.find("unita.pas"));
+    assertEquals(Set.of(include), index.find("Defines.inc"));
+    assertTrue(index.find("Project.dproj").isEmpty());
+  }
+
+  @Test
+  void testHiddenAndHistoryDirectoriesAreSkipped() throws IOException {
+    createFile(".git/UnitA.pas");
+    createFile("src/__history/UnitA.pas");
+
+    var index = new SourceFileIndex(root);
+    index.refresh();
+
+    assertTrue(index.find("UnitA.pas").isEmpty());
+  }
+
+  @Test
+  void testRefreshPicksUpCreatedAndDeletedFiles() throws IOException {
+    Path unitA = createFile("src/UnitA.pas");
+    var index = new SourceFileIndex(root);
+    index.refresh();
+
+    Files.delete(unitA);
+    Path unitB = createFile("src/nested/UnitB.pas");
+    // Directory modification times may be too coarse to tell the changes apart from the listing
+    Files.setLastModifiedTime(
+        root.resolve("src"), FileTime.fromMillis(System.currentTimeMillis() + 10000));
+    index.refresh();
+
+    assertTrue(index.find("UnitA.pas").isEmpty());
+    assertEquals(Set.of(unitB), index.find("UnitB.pas"));
+  }
+
+  @Test
+  void testUnitsAreFoundWithOrWithoutNamespace() throws IOException {
+    createFile("rtl/System.SysUtils.pas");
+
+    var index = new SourceFileIndex(root);
+    index.refresh();
+
+    assertTrue(index.containsUnit("System.SysUtils"));
+    assertTrue(index.containsUnit("SysUtils"));
+    assertFalse(index.containsUnit("System"));
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import au.com.integradev.delphilint.analysis.DelphiLintInputFile;
+import au.com.integradev.delphilint.analysis.TextRange;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.analysis.api.Issue;
+
+class IssuePostProcessorTest {
+  private static final Path BASE_DIR =
+      Path.of("src/test/resources/au/com/integradev/delphilint/remote");
+  private static final Path FILE_PATH =
+      Path.of("src/test/resources/au/com/integradev/delphilint/remote/Utf8File.pas");
+
+  private static Issue buildIssue(String ruleKey, TextRange range) {
+    return new Issue(
+        ruleKey,
+        "issue",
+        Collections.emptyMap(),
+        new org.sonarsource.sonarlint.core.commons.TextRange(
+            range.getStartLine(), range.getStartOffset(), range.getEndLine(), range.getEndOffset()),
+        new DelphiLintInputFile(BASE_DIR, Path.of("Utf8File.pas"), StandardCharsets.UTF_8),
+        Collections.emptyList(),
+        Collections.emptyList(),
+        Optional.empty());
+  }
+
+  @Test
+  void testHostDataIsRetrievedOnceAcrossBatches() throws SonarHostException {
+    var resolvedRange = new TextRange(6, 3, 6, 12);
+    Set<RemoteIssue> resolvedIssues =
+        Set.of(
+            new RemoteIssue.Builder()
+                .withRuleKey("rk1")
+                .withMessage("issue")
+                .withRange(resolvedRange)
+                .withStatus(IssueStatus.RESOLVED)
+                .withHash(SonarHasher.hashFileRange(FILE_PATH, resolvedRange))
+                .build());
+
+    SonarHost host = mock(SonarHost.class);
+    when(host.getIssues(any(), any()))
+        .thenReturn(new RemoteIssues(resolvedIssues, Collections.emptySet()));
+
+    var postProcessor =
+        new IssuePostProcessor(Set.of("Utf8File.pas"), Collections.emptySet(), host);
+
+    assertEquals(
+        1, postProcessor.process(Set.of(buildIssue("rk2", new TextRange(9, 0, 20, 10)))).size());
+    assertTrue(postProcessor.process(Set.of(buildIssue("rk1", resolvedRange))).isEmpty());
+
+    verify(host, times(1)).getRuleNamesByRuleKey();
+    verify(host, times(1)).getIssues(any(), any());
+  }
+
+  @Test
+  void testIssueMatchingResolvedAndUnresolvedIssuesIsDiscarded() throws SonarHostException {
+    var range = new TextRange(6, 3, 6, 12);
+    String hash = SonarHasher.hashFileRange(FILE_PATH, range);
+    RemoteIssue resolved =
+        new RemoteIssue.Builder()
+            .withRuleKey("rk1")
+            .withMessage("issue")
+            .withRange(range)
+            .withStatus(IssueStatus.RESOLVED)
+            .withHash(hash)
+            .build();
+    RemoteIssue unresolved =
+        new RemoteIssue.Builder()
+            .withRuleKey("rk1")
+            .withMessage("issue")
+            .withRange(range)
+            .withStatus(IssueStatus.OPEN)
+            .withHash(hash)
+            .build();
+
+    SonarHost host = mock(SonarHost.class);
+    when(host.getIssues(any(), any()))
+        .thenReturn(new RemoteIssues(Set.of(resolved), Set.of(unresolved)));
+
+    var postProcessor =
+        new IssuePostProcessor(Set.of("Utf8File.pas"), Collections.emptySet(), host);
+
+    assertTrue(postProcessor.process(Set.of(buildIssue("rk1", range))).isEmpty());
+  }
+}
@@ -20,6 +20,7 @@ package au.com.integradev.delphilint.remote;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -76,7 +77,7 @@ class SonarServerUtilsTest {
   void testIssuesAreConverted() throws SonarHostException {
     Set<Issue> rawIssues = Set.of(buildIssue("rk1", "issue 1", new TextRange(6, 3, 6, 12)));
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
 
     List<DelphiIssue> issues =
         new ArrayList<>(
@@ -96,7 +97,7 @@ class SonarServerUtilsTest {
   void testLocalIssuesHaveNoMetadata() throws SonarHostException {
     Set<Issue> rawIssues = Set.of(buildIssue("rk1", "issue 1", new TextRange(6, 3, 6, 9)));
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
 
     List<DelphiIssue> issues =
         new ArrayList<>(
@@ -124,7 +125,7 @@ class SonarServerUtilsTest {
                 .withServerMetadata("user1", "creation date 1")
                 .build());
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getUnresolvedIssues(any(), any())).thenReturn(unresolvedIssues);
 
     Set<Issue> rawIssues = Set.of(buildIssue("rk1", "issue 1", textRange));
@@ -155,7 +156,7 @@ class SonarServerUtilsTest {
                 .withServerMetadata("user1", "creation date 1")
                 .build());
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getUnresolvedIssues(any(), any())).thenReturn(unresolvedIssues);
 
     Set<Issue> rawIssues = Set.of(buildIssue("rk1", "issue 1", new TextRange(6, 3, 6, 12)));
@@ -185,7 +186,7 @@ class SonarServerUtilsTest {
                 .withHash(SonarHasher.hashFileRange(FILE_PATH, textRange))
                 .build());
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getUnresolvedIssues(any(), any())).thenReturn(unresolvedIssues);
 
     Set<Issue> rawIssues = Set.of(buildIssue("rk1", "issue 1", new TextRange(6, 3, 6, 12)));
@@ -211,7 +212,7 @@ class SonarServerUtilsTest {
                 .withHash(SonarHasher.hashFileRange(FILE_PATH, textRange))
                 .build());
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getResolvedIssues(any(), any())).thenReturn(resolvedIssues);
 
     Set<Issue> rawIssues =
@@ -250,7 +251,7 @@ class SonarServerUtilsTest {
                 .withHash("abc")
                 .build());
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getResolvedIssues(any(), any())).thenReturn(resolvedIssues);
 
     Set<Issue> rawIssues =
@@ -278,7 +279,7 @@ class SonarServerUtilsTest {
                 .withHash("abc")
                 .build());
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getResolvedIssues(any(), any())).thenReturn(resolvedIssues);
 
     Set<Issue> rawIssues =
@@ -307,7 +308,7 @@ class SonarServerUtilsTest {
                 .withHash(SonarHasher.hashFileLine(FILE_PATH, 6))
                 .build());
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getResolvedIssues(any(), any())).thenReturn(resolvedIssues);
 
     Set<Issue> rawIssues = Set.of(buildIssue("rk1", "issue 1", new TextRange(6, 3, 6, 9)));
@@ -333,7 +334,7 @@ class SonarServerUtilsTest {
                 .withHash(SonarHasher.hashFileLine(FILE_PATH, 6))
                 .build());
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getResolvedIssues(any(), any())).thenReturn(resolvedIssues);
 
     Set<Issue> rawIssues = Set.of(buildIssue("rk1", "local issue 1", new TextRange(6, 3, 6, 9)));
@@ -347,7 +348,7 @@ class SonarServerUtilsTest {
 
   @Test
   void testIssuesWithNoMessageUseRuleName() throws SonarHostException {
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getRuleNamesByRuleKey()).thenReturn(Map.of("rk1", "Rule key 1"));
 
     Set<Issue> rawIssues =
@@ -366,7 +367,7 @@ class SonarServerUtilsTest {
 
   @Test
   void testIssuesWithMessageUseMessage() throws SonarHostException {
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getRuleNamesByRuleKey()).thenReturn(Map.of("rk1", "Rule key 1"));
 
     Set<Issue> rawIssues = Set.of(buildIssue("rk1", "Issue message 1", new TextRange(6, 3, 6, 9)));
@@ -385,7 +386,7 @@ class SonarServerUtilsTest {
     Set<String> testFilePaths = Set.of("b", "c");
     Set<String> mainFilePaths = Set.of("a");
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getTestFilePaths()).thenReturn(testFilePaths);
 
     SonarServerUtils.postProcessIssues(allFilePaths, null, Collections.emptySet(), host);
@@ -401,7 +402,7 @@ class SonarServerUtilsTest {
     Set<String> testFilePaths = Set.of("b", "c");
     Set<String> mainFilePaths = Set.of("a");
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     SonarServerUtils.postProcessIssues(allFilePaths, testFilePaths, Collections.emptySet(), host);
 
     verify(host, never()).getTestFilePaths();
@@ -416,7 +417,7 @@ class SonarServerUtilsTest {
     Set<String> mainFilePaths = Set.of("a");
     Set<String> includedTestFilePaths = Set.of("b", "c");
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getTestFilePaths()).thenReturn(testFilePaths);
 
     SonarServerUtils.postProcessIssues(allFilePaths, null, Collections.emptySet(), host);
@@ -433,7 +434,7 @@ class SonarServerUtilsTest {
     Set<String> mainFilePaths = Set.of("a");
     Set<String> includedTestFilePaths = Set.of("b", "c");
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     SonarServerUtils.postProcessIssues(allFilePaths, testFilePaths, Collections.emptySet(), host);
 
     verify(host, never()).getTestFilePaths();
@@ -453,7 +454,7 @@ class SonarServerUtilsTest {
     Set<String> serverMainFilePaths = Set.of("b");
     Set<String> serverIncludedTestFilePaths = Set.of("a", "c");
 
-    SonarHost host = mock(SonarHost.class);
+    SonarHost host = mock(SonarHost.class, CALLS_REAL_METHODS);
     when(host.getResolvedIssues(localMainFilePaths, localIncludedTestFilePaths))
         .thenThrow(new SonarHostBadRequestException());
     when(host.getTestFilePaths()).thenReturn(serverTestFilePaths);
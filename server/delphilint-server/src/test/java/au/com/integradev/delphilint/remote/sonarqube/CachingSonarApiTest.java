@@ -0,0 +1,194 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import au.com.integradev.delphilint.remote.SonarHostException;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+class CachingSonarApiTest {
+  private static final String PROFILE_URL = "/api/qualityprofiles/search?language=delph";
+  private static final String ISSUES_URL = "/api/issues/search?componentKeys=a";
+
+  @Test
+  void testMetadataIsRetrievedOncePerTimeToLive() throws SonarHostException {
+    var clock = new MutableClock();
+    var cache = new SonarMetadataCache(Duration.ofMinutes(5), clock);
+    var host = new RecordingSonarApi("{\"version\":1}", null);
+    var api = new CachingSonarApi(host, "token", cache);
+
+    assertEquals(1, api.getJson(PROFILE_URL).get("version").asInt());
+    clock.advance(Duration.ofMinutes(4));
+    assertEquals(1, api.getJson(PROFILE_URL).get("version").asInt());
+
+    assertEquals(List.of(PROFILE_URL), host.requests);
+  }
+
+  @Test
+  void testExpiredMetadataIsRevalidatedWithEntityTag() throws SonarHostException {
+    var clock = new MutableClock();
+    var cache = new SonarMetadataCache(Duration.ofMinutes(5), clock);
+    var host = new RecordingSonarApi("{\"version\":1}", "\"v1\"");
+    var api = new CachingSonarApi(host, "token", cache);
+
+    JsonNode first = api.getJson(PROFILE_URL);
+    clock.advance(Duration.ofMinutes(6));
+    host.notModified = true;
+    JsonNode second = api.getJson(PROFILE_URL);
+
+    assertEquals(first, second);
+    assertEquals(List.of(PROFILE_URL, PROFILE_URL), host.requests);
+    assertEquals(List.of("\"v1\""), host.entityTags);
+  }
+
+  @Test
+  void testExpiredMetadataWithoutEntityTagIsRetrievedAgain() throws SonarHostException {
+    var clock = new MutableClock();
+    var cache = new SonarMetadataCache(Duration.ofMinutes(5), clock);
+    var host = new RecordingSonarApi("{\"version\":1}", null);
+    var api = new CachingSonarApi(host, "token", cache);
+
+    api.getJson(PROFILE_URL);
+    clock.advance(Duration.ofMinutes(6));
+    host.body = "{\"version\":2}";
+
+    assertEquals(2, api.getJson(PROFILE_URL).get("version").asInt());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void testMetadataIsNotSharedBetweenTokens() throws SonarHostException {
+    var cache = new SonarMetadataCache(Duration.ofMinutes(5), new MutableClock());
+    var host = new RecordingSonarApi("{}", null);
+
+    new CachingSonarApi(host, "token1", cache).getJson(PROFILE_URL);
+    new CachingSonarApi(host, "token2", cache).getJson(PROFILE_URL);
+
+    assertEquals(2, host.requests.size());
+  }
+
+  @Test
+  void testIssuesAreNotCached() throws SonarHostException {
+    var cache = new SonarMetadataCache(Duration.ofMinutes(5), new MutableClock());
+    var host = new RecordingSonarApi("{}", null);
+    var api = new CachingSonarApi(host, "token", cache);
+
+    api.getJson(ISSUES_URL);
+    api.getJson(ISSUES_URL);
+
+    assertEquals(List.of(ISSUES_URL, ISSUES_URL), host.requests);
+    assertEquals(0, cache.size());
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant instant = Instant.EPOCH;
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+  private static class RecordingSonarApi implements SonarApi {
+    private final List<String> requests = new ArrayList<>();
+    private final List<String> entityTags = new ArrayList<>();
+    private final String entityTag;
+    private String body;
+    private boolean notModified;
+
+    RecordingSonarApi(String body, @Nullable String entityTag) {
+      this.body = body;
+      this.entityTag = entityTag;
+    }
+
+    @Override
+    public String getHostUrl() {
+      return "https://sonar.example.com";
+    }
+
+    @Override
+    public JsonNode getJson(String url) throws SonarHostException {
+      requests.add(url);
+      return null;
+    }
+
+    @Override
+    public JsonNode getJson(String url, Map<String, String> params) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Path getFile(String url) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Path getFile(String url, Map<String, String> params) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getText(String url) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getText(String url, Map<String, String> params) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ConditionalResponse getTextIfModified(String url, @Nullable String entityTag) {
+      requests.add(url);
+      if (entityTag != null) {
+        entityTags.add(entityTag);
+      }
+
+      if (notModified && entityTag != null) {
+        return ConditionalResponse.notModified();
+      }
+      return ConditionalResponse.modified(body, this.entityTag);
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import au.com.integradev.delphilint.remote.SonarHostException;
+import au.com.integradev.delphilint.remote.SonarHostForbiddenException;
+import au.com.integradev.delphilint.remote.UncheckedSonarHostException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class ConnectedListTest {
+  private static final String URL = "/api/issues/search?resolved=true";
+
+  private static List<String> collect(ConnectedList<String> list) {
+    List<String> elements = new ArrayList<>();
+    list.forEach(elements::add);
+    return elements;
+  }
+
+  @Test
+  void testPagesAreRetrievedOneAfterAnother() {
+    var api = new PagedSonarApi(5, 2, 1);
+    var list = new ConnectedList<>(api, URL, "issues", String.class);
+
+    assertEquals(List.of("1", "2", "3", "4", "5"), collect(list));
+    assertEquals(List.of(URL, URL + "&p=2", URL + "&p=3"), api.requests);
+    assertTrue(api.asyncRequests.isEmpty());
+  }
+
+  @Test
+  void testRemainingPagesArePrefetchedUpToConcurrencyLimit() {
+    var api = new PagedSonarApi(9, 2, 2);
+    api.completeAsync = false;
+    var list = new ConnectedList<>(api, URL, "issues", String.class);
+
+    var iterator = list.iterator();
+    assertEquals(List.of(URL + "&p=2", URL + "&p=3"), new ArrayList<>(api.asyncRequests.keySet()));
+
+    assertEquals("1", iterator.next());
+    assertEquals("2", iterator.next());
+    api.completeAll();
+
+    List<String> remaining = new ArrayList<>();
+    while (iterator.hasNext()) {
+      remaining.add(iterator.next());
+      api.completeAll();
+    }
+
+    assertEquals(List.of("3", "4", "5", "6", "7", "8", "9"), remaining);
+    assertEquals(4, api.asyncRequests.size());
+    assertTrue(api.maxInFlight <= 2);
+  }
+
+  @Test
+  void testAllPagesAreRetrievedAsynchronouslyInOrder() {
+    var api = new PagedSonarApi(9, 2, 2);
+    var list = new ConnectedList<>(api, URL, "issues", String.class);
+
+    assertEquals(List.of("1", "2", "3", "4", "5", "6", "7", "8", "9"), list.getAllAsync().join());
+    assertEquals(
+        Set.of(URL, URL + "&p=2", URL + "&p=3", URL + "&p=4", URL + "&p=5"),
+        api.asyncRequests.keySet());
+    assertTrue(api.maxInFlight <= 2);
+  }
+
+  @Test
+  void testSinglePageIsNotPaged() {
+    var api = new PagedSonarApi(2, 2, 4);
+    var list = new ConnectedList<>(api, URL, "issues", String.class);
+
+    assertEquals(List.of("1", "2"), collect(list));
+    assertEquals(List.of(URL), api.requests);
+  }
+
+  @Test
+  void testFailedPageIsRethrown() {
+    var api = new PagedSonarApi(6, 2, 2);
+    api.failedPage = 3;
+    var list = new ConnectedList<>(api, URL, "issues", String.class);
+
+    var exception = assertThrows(UncheckedSonarHostException.class, () -> collect(list));
+    assertTrue(exception.getCause() instanceof SonarHostForbiddenException);
+  }
+
+  private static class PagedSonarApi implements SonarApi {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> requests = new ArrayList<>();
+    private final Map<String, CompletableFuture<JsonNode>> asyncRequests = new LinkedHashMap<>();
+    private final int total;
+    private final int pageSize;
+    private final int maxConcurrentRequests;
+    private boolean completeAsync = true;
+    private int failedPage = -1;
+    private int maxInFlight;
+
+    PagedSonarApi(int total, int pageSize, int maxConcurrentRequests) {
+      this.total = total;
+      this.pageSize = pageSize;
+      this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    private JsonNode getPage(String url) throws SonarHostException {
+      int page = url.contains("&p=") ? Integer.parseInt(url.substring(url.indexOf("&p=") + 3)) : 1;
+      if (page == failedPage) {
+        throw new SonarHostForbiddenException();
+      }
+
+      var root = mapper.createObjectNode();
+      root.putObject("paging").put("pageIndex", page).put("pageSize", pageSize).put("total", total);
+      var issues = root.putArray("issues");
+      for (int i = (page - 1) * pageSize + 1; i <= Math.min(page * pageSize, total); i++) {
+        issues.add(String.valueOf(i));
+      }
+      return root;
+    }
+
+    void completeAll() {
+      for (var entry : asyncRequests.entrySet()) {
+        if (!entry.getValue().isDone()) {
+          try {
+            entry.getValue().complete(getPage(entry.getKey()));
+          } catch (SonarHostException e) {
+            entry.getValue().completeExceptionally(new UncheckedSonarHostException(e));
+          }
+        }
+      }
+    }
+
+    @Override
+    public String getHostUrl() {
+      return "https://sonar.example.com";
+    }
+
+    @Override
+    public JsonNode getJson(String url) throws SonarHostException {
+      requests.add(url);
+      return getPage(url);
+    }
+
+    @Override
+    public JsonNode getJson(String url, Map<String, String> params) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletableFuture<JsonNode> getJsonAsync(String url) {
+      var future = new CompletableFuture<JsonNode>();
+      asyncRequests.put(url, future);
+      maxInFlight =
+          Math.max(
+              maxInFlight, (int) asyncRequests.values().stream().filter(f -> !f.isDone()).count());
+      if (completeAsync) {
+        completeAll();
+      }
+      return future;
+    }
+
+    @Override
+    public int getMaxConcurrentRequests() {
+      return maxConcurrentRequests;
+    }
+
+    @Override
+    public Path getFile(String url) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Path getFile(String url, Map<String, String> params) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getText(String url) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getText(String url, Map<String, String> params) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
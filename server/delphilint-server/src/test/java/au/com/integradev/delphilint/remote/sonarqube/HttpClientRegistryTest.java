@@ -0,0 +1,75 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class HttpClientRegistryTest {
+  @Test
+  void testClientIsSharedBetweenUrlsOnSameHost() {
+    var registry = new HttpClientRegistry();
+    assertSame(
+        registry.getClient("https://sonar.example.com"),
+        registry.getClient("HTTPS://Sonar.Example.com/sonarqube"));
+  }
+
+  @Test
+  void testClientIsNotSharedBetweenHosts() {
+    var registry = new HttpClientRegistry();
+    assertNotSame(
+        registry.getClient("https://sonar.example.com"),
+        registry.getClient("https://sonar.example.com:9000"));
+    assertNotSame(
+        registry.getClient("https://sonar.example.com"),
+        registry.getClient("http://sonar.example.com"));
+  }
+
+  @Test
+  void testClientIsConfigured() {
+    var registry = new HttpClientRegistry(Duration.ofSeconds(3), Duration.ofSeconds(7), 8);
+    HttpClient client = registry.getClient("https://sonar.example.com");
+
+    assertEquals(Optional.of(Duration.ofSeconds(3)), client.connectTimeout());
+    assertEquals(HttpClient.Version.HTTP_2, client.version());
+    assertEquals(Duration.ofSeconds(7), registry.getRequestTimeout());
+    assertEquals(8, registry.getMaxConcurrentRequests());
+  }
+
+  @Test
+  void testRequestLimiterIsSharedBetweenUrlsOnSameHost() {
+    var registry = new HttpClientRegistry();
+    assertSame(
+        registry.getRequestLimiter("https://sonar.example.com"),
+        registry.getRequestLimiter("https://sonar.example.com/sonarqube"));
+    assertNotSame(
+        registry.getRequestLimiter("https://sonar.example.com"),
+        registry.getRequestLimiter("https://other.example.com"));
+  }
+
+  @Test
+  void testUnparseableUrlIsUsedAsKey() {
+    assertEquals("not a url", HttpClientRegistry.getClientKey("not a url"));
+  }
+}
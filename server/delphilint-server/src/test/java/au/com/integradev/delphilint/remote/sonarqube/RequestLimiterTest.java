@@ -0,0 +1,100 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.sonarqube;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+
+class RequestLimiterTest {
+  @Test
+  void testRequestsOverTheLimitAreQueuedUntilOthersComplete() {
+    var limiter = new RequestLimiter(2);
+    List<CompletableFuture<Integer>> sent = new ArrayList<>();
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+    for (int i = 0; i < 5; i++) {
+      results.add(
+          limiter.submit(
+              () -> {
+                var response = new CompletableFuture<Integer>();
+                sent.add(response);
+                return response;
+              }));
+    }
+
+    assertEquals(2, sent.size());
+    assertEquals(2, limiter.getRequestsInFlight());
+
+    sent.get(0).complete(0);
+    assertTrue(results.get(0).isDone());
+    assertEquals(3, sent.size());
+
+    for (int i = 1; i < 5; i++) {
+      sent.get(i).complete(i);
+    }
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, results.get(i).join());
+    }
+    assertEquals(0, limiter.getRequestsInFlight());
+  }
+
+  @Test
+  void testFailedRequestsReleaseTheirSlot() {
+    var limiter = new RequestLimiter(1);
+
+    CompletableFuture<Integer> failed =
+        limiter.submit(() -> CompletableFuture.failedFuture(new IllegalStateException()));
+    CompletableFuture<Integer> thrown =
+        limiter.submit(
+            () -> {
+              throw new IllegalStateException();
+            });
+    CompletableFuture<Integer> succeeded =
+        limiter.submit(() -> CompletableFuture.completedFuture(1));
+
+    assertThrows(CompletionException.class, failed::join);
+    assertThrows(CompletionException.class, thrown::join);
+    assertEquals(1, succeeded.join());
+    assertEquals(0, limiter.getRequestsInFlight());
+  }
+
+  @Test
+  void testRequestsCanBeSubmittedFromCompletionCallbacks() {
+    var limiter = new RequestLimiter(1);
+    var first = new CompletableFuture<Integer>();
+
+    CompletableFuture<Integer> chained =
+        limiter
+            .submit(() -> first)
+            .thenCompose(
+                value -> limiter.submit(() -> CompletableFuture.completedFuture(value + 1)));
+
+    assertFalse(chained.isDone());
+    first.complete(1);
+    assertEquals(2, chained.join());
+  }
+}
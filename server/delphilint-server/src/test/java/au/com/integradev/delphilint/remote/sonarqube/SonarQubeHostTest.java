@@ -37,6 +37,8 @@ import au.com.integradev.delphilint.remote.RuleSeverity;
 import au.com.integradev.delphilint.remote.RuleType;
 import au.com.integradev.delphilint.remote.SoftwareQuality;
 import au.com.integradev.delphilint.remote.SonarHostException;
+import au.com.integradev.delphilint.remote.SonarHostForbiddenException;
+import au.com.integradev.delphilint.remote.UncheckedSonarHostException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
@@ -48,6 +50,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.NotImplementedException;
 import org.junit.jupiter.api.Test;
@@ -218,6 +221,50 @@ class SonarQubeHostTest {
     assertNull(issue.getCleanCode());
   }
 
+  @Test
+  void testForbiddenHotspotsAreSkipped() throws SonarHostException {
+    var api =
+        new ResourceBackedSonarApi(
+            new Version("10.1"),
+            Map.of(
+                "/api/issues/search?componentKeys=MyProject%3AUnitA.pas%2C&resolved=true",
+                "issuesSingularOk.json")) {
+          @Override
+          public CompletableFuture<JsonNode> getJsonAsync(String url) {
+            if (url.startsWith("/api/hotspots/search")) {
+              return CompletableFuture.failedFuture(
+                  new UncheckedSonarHostException(new SonarHostForbiddenException()));
+            }
+            return super.getJsonAsync(url);
+          }
+        };
+
+    var host = buildSonarHost(api, "MyProject");
+    var issues = host.getResolvedIssues(Set.of("UnitA.pas"), Collections.emptySet());
+
+    assertEquals(1, issues.size());
+    assertEquals(IssueLikeType.ISSUE, issues.iterator().next().getLikeType());
+  }
+
+  @Test
+  void testIssueErrorsAreRethrown() {
+    var api =
+        new ResourceBackedSonarApi(new Version("10.1"), Collections.emptyMap()) {
+          @Override
+          public CompletableFuture<JsonNode> getJsonAsync(String url) {
+            return CompletableFuture.failedFuture(
+                new UncheckedSonarHostException(new SonarHostForbiddenException()));
+          }
+        };
+
+    var host = buildSonarHost(api, "MyProject");
+    Set<String> files = Set.of("UnitA.pas");
+    Set<String> testFiles = Collections.emptySet();
+
+    assertThrows(
+        SonarHostForbiddenException.class, () -> host.getUnresolvedIssues(files, testFiles));
+  }
+
   @Test
   void testParsesIssueWithCleanCode() throws SonarHostException {
     var api =
@@ -395,6 +442,43 @@ class SonarQubeHostTest {
         rule.getCleanCode().getImpactedQualities().get(SoftwareQuality.SECURITY));
   }
 
+  @Test
+  void testGetsResolvedAndUnresolvedIssuesInSinglePass() throws SonarHostException {
+    var api =
+        new ResourceBackedSonarApi(
+            LATEST_VERSION,
+            Map.of(
+                "/api/hotspots/search?files=UnitA.pas%2C&project=MyProject",
+                "unresolvedHotspotsOk.json",
+                "/api/issues/search?components=MyProject%3AUnitA.pas%2C",
+                "allIssuesOk.json"));
+
+    var host = buildSonarHost(api, "MyProject");
+    var issues = host.getIssues(Set.of("UnitA.pas"), Collections.emptySet());
+
+    assertEquals(
+        5,
+        issues.getResolved().stream()
+            .filter(issue -> issue.getLikeType() == IssueLikeType.ISSUE)
+            .count());
+    assertEquals(
+        2,
+        issues.getResolved().stream()
+            .filter(issue -> issue.getLikeType() == IssueLikeType.SECURITY_HOTSPOT)
+            .count());
+    assertTrue(issues.getResolved().stream().allMatch(issue -> issue.getResolution() != null));
+    assertEquals(
+        5,
+        issues.getUnresolved().stream()
+            .filter(issue -> issue.getLikeType() == IssueLikeType.ISSUE)
+            .count());
+    assertEquals(
+        3,
+        issues.getUnresolved().stream()
+            .filter(issue -> issue.getLikeType() == IssueLikeType.SECURITY_HOTSPOT)
+            .count());
+  }
+
   @Test
   void testGetsNoResolvedIssuesWithNoProjectKey() throws SonarHostException {
     var api = new ResourceBackedSonarApi(LATEST_VERSION, Collections.emptyMap());
@@ -0,0 +1,47 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.remote.standalone;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.plugin.commons.LoadedPlugins;
+
+class PluginRulesTest {
+  @Test
+  void testRulesAreExtractedOnceForAllHosts() {
+    LoadedPlugins loadedPlugins = mock(LoadedPlugins.class);
+    when(loadedPlugins.getPluginInstancesByKeys()).thenReturn(Collections.emptyMap());
+    var pluginRules = new PluginRules(loadedPlugins);
+
+    var defaultHost = new DefaultStandaloneSonarHost(pluginRules);
+    var configurableHost = new ConfigurableStandaloneSonarHost(pluginRules, Collections.emptySet());
+    verify(loadedPlugins, times(0)).getPluginInstancesByKeys();
+
+    assertTrue(defaultHost.getRules().isEmpty());
+    assertTrue(configurableHost.getActiveRules().isEmpty());
+    assertSame(defaultHost.getRules(), configurableHost.getRules());
+    verify(loadedPlugins, times(1)).getPluginInstancesByKeys();
+  }
+}
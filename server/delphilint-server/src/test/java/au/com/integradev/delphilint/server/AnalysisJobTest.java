@@ -0,0 +1,191 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import au.com.integradev.delphilint.analysis.AnalysisOrchestrator;
+import au.com.integradev.delphilint.analysis.AnalysisProgressMonitor;
+import au.com.integradev.delphilint.analysis.DelphiIssue;
+import au.com.integradev.delphilint.analysis.DelphiLintInputFile;
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import au.com.integradev.delphilint.server.message.RequestAnalyze;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.analysis.api.Issue;
+
+class AnalysisJobTest {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Path BASE_DIR = Path.of("base").toAbsolutePath();
+  private static final EngineHandle ENGINE = engine(1);
+
+  private static EngineHandle engine(int version) {
+    return new EngineHandle(
+        version,
+        new EngineStartupConfiguration("", "VER350", Set.of()),
+        mock(AnalysisOrchestrator.class));
+  }
+
+  private static RequestAnalyze buildRequest(String baseDir, String... files) throws IOException {
+    var request = MAPPER.createObjectNode();
+    request.put("baseDir", baseDir);
+    request.put("projectPropertiesPath", "");
+    var inputFiles = request.putArray("inputFiles");
+    for (String file : files) {
+      inputFiles.add(file);
+    }
+    return MAPPER.treeToValue(request, RequestAnalyze.class);
+  }
+
+  private static DelphiIssue buildIssue(String file) {
+    return new DelphiIssue(
+        new Issue(
+            "rk1",
+            "issue",
+            Collections.emptyMap(),
+            null,
+            new DelphiLintInputFile(BASE_DIR, Path.of(file), StandardCharsets.UTF_8),
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Optional.empty()),
+        null);
+  }
+
+  private static int countIssues(LintMessage message) {
+    JsonNode data = MAPPER.valueToTree(message.getData());
+    return data.get("issues").size();
+  }
+
+  @Test
+  void testRequestsForDifferentBaseDirsAreNotMerged() throws IOException {
+    var job =
+        new AnalysisJob(
+            buildRequest(BASE_DIR.toString(), "a.pas"),
+            ENGINE,
+            new AnalysisProgressMonitor(),
+            m -> {});
+
+    assertTrue(job.canMerge(ENGINE, buildRequest(BASE_DIR.toString(), "b.pas")));
+    assertFalse(job.canMerge(ENGINE, buildRequest(BASE_DIR.resolve("other").toString(), "a.pas")));
+  }
+
+  @Test
+  void testRequestsForDifferentEnginesAreNotMerged() throws IOException {
+    var job =
+        new AnalysisJob(
+            buildRequest(BASE_DIR.toString(), "a.pas"),
+            ENGINE,
+            new AnalysisProgressMonitor(),
+            m -> {});
+
+    assertFalse(job.canMerge(engine(2), buildRequest(BASE_DIR.toString(), "a.pas")));
+  }
+
+  @Test
+  void testResultsAreFannedOutByRequestedFile() throws IOException {
+    List<LintMessage> first = new ArrayList<>();
+    List<LintMessage> second = new ArrayList<>();
+
+    var job =
+        new AnalysisJob(
+            buildRequest(BASE_DIR.toString(), "a.pas"),
+            ENGINE,
+            new AnalysisProgressMonitor(),
+            first::add);
+    job.addRequester(
+        buildRequest(BASE_DIR.toString(), BASE_DIR.resolve("a.pas").toString(), "b.pas"),
+        new AnalysisProgressMonitor(),
+        second::add);
+
+    assertEquals(2, job.getInputFiles().size());
+
+    job.sendResult(Set.of(buildIssue("a.pas"), buildIssue("b.pas")), Collections.emptyList());
+
+    assertEquals(1, first.size());
+    assertEquals(MessageCategory.ANALYZE_RESULT, first.get(0).getCategory());
+    assertEquals(1, countIssues(first.get(0)));
+    assertEquals(1, second.size());
+    assertEquals(2, countIssues(second.get(0)));
+  }
+
+  @Test
+  void testCancelledRequesterIsOnlySentCancellation() throws IOException {
+    List<LintMessage> cancelled = new ArrayList<>();
+    List<LintMessage> active = new ArrayList<>();
+    var cancelledMonitor = new AnalysisProgressMonitor();
+
+    var job =
+        new AnalysisJob(
+            buildRequest(BASE_DIR.toString(), "a.pas"), ENGINE, cancelledMonitor, cancelled::add);
+    job.addRequester(
+        buildRequest(BASE_DIR.toString(), "a.pas"), new AnalysisProgressMonitor(), active::add);
+
+    cancelledMonitor.cancel();
+    assertFalse(job.getProgressMonitor().isCanceled());
+
+    job.sendResult(Set.of(buildIssue("a.pas")), Collections.emptyList());
+
+    assertEquals(1, cancelled.size());
+    assertEquals(MessageCategory.ANALYZE_CANCELLED, cancelled.get(0).getCategory());
+    assertEquals(1, active.size());
+    assertEquals(MessageCategory.ANALYZE_RESULT, active.get(0).getCategory());
+  }
+
+  @Test
+  void testPollingForCancellationSendsNothing() throws IOException {
+    List<LintMessage> first = new ArrayList<>();
+    List<LintMessage> second = new ArrayList<>();
+    var firstMonitor = new AnalysisProgressMonitor();
+    var secondMonitor = new AnalysisProgressMonitor();
+
+    var job =
+        new AnalysisJob(
+            buildRequest(BASE_DIR.toString(), "a.pas"), ENGINE, firstMonitor, first::add);
+    job.addRequester(buildRequest(BASE_DIR.toString(), "a.pas"), secondMonitor, second::add);
+
+    firstMonitor.cancel();
+    secondMonitor.cancel();
+    assertTrue(job.getProgressMonitor().isCanceled());
+    assertTrue(first.isEmpty());
+    assertTrue(second.isEmpty());
+
+    job.sendCancelled();
+    job.sendCancelled();
+    job.sendResult(Set.of(buildIssue("a.pas")), Collections.emptyList());
+
+    assertEquals(List.of(MessageCategory.ANALYZE_CANCELLED), categories(first));
+    assertEquals(List.of(MessageCategory.ANALYZE_CANCELLED), categories(second));
+  }
+
+  private static List<MessageCategory> categories(List<LintMessage> messages) {
+    return messages.stream().map(LintMessage::getCategory).collect(Collectors.toList());
+  }
+}
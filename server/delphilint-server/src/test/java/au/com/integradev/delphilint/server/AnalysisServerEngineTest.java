@@ -0,0 +1,236 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import au.com.integradev.delphilint.analysis.AnalysisOrchestrator;
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import au.com.integradev.delphilint.analysis.EngineStartupConfigurationStore;
+import au.com.integradev.delphilint.remote.sonarqube.HttpClientRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnalysisServerEngineTest {
+  private final List<EngineHandle> startedEngines = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicBoolean blockNextStart = new AtomicBoolean();
+  private final CountDownLatch blockedStartReached = new CountDownLatch(1);
+  private final CountDownLatch blockedStartReleased = new CountDownLatch(1);
+  @TempDir private Path pluginsPath;
+  private AnalysisServer server;
+
+  private static EngineStartupConfiguration config(String compilerVersion) {
+    return new EngineStartupConfiguration("", compilerVersion, Set.of());
+  }
+
+  private static EngineHandle acquired(EngineBinding binding) {
+    EngineHandle engine = binding.acquire();
+    engine.release();
+    return engine;
+  }
+
+  private AnalysisServer createServer(EngineStartupConfigurationStore engineConfigStore) {
+    return new AnalysisServer(
+        pluginsPath,
+        mock(MemoryPolicy.class),
+        null,
+        1,
+        engineConfigStore,
+        2,
+        new HttpClientRegistry(),
+        null) {
+      @Override
+      EngineHandle startEngine(EngineStartupConfiguration engineConfig) {
+        if (blockNextStart.getAndSet(false)) {
+          blockedStartReached.countDown();
+          try {
+            assertTrue(blockedStartReleased.await(10, TimeUnit.SECONDS));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+
+        var engine =
+            new EngineHandle(
+                startedEngines.size() + 1, engineConfig, mock(AnalysisOrchestrator.class));
+        startedEngines.add(engine);
+        return engine;
+      }
+    };
+  }
+
+  private EngineStartupConfiguration pluginConfig(String compilerVersion) throws IOException {
+    Path plugin = pluginsPath.resolve("sonar-delphi-plugin.jar");
+    if (!Files.exists(plugin)) {
+      Files.createFile(plugin);
+    }
+    return new EngineStartupConfiguration("", compilerVersion, Set.of(plugin));
+  }
+
+  private Thread startBlockedWarmUp(Path storePath, EngineStartupConfiguration lastConfig)
+      throws InterruptedException {
+    var engineConfigStore = new EngineStartupConfigurationStore(storePath);
+    engineConfigStore.save(lastConfig);
+    server = createServer(engineConfigStore);
+
+    blockNextStart.set(true);
+    var warmUp = new Thread(server::warmUp);
+    warmUp.start();
+    assertTrue(blockedStartReached.await(10, TimeUnit.SECONDS));
+    return warmUp;
+  }
+
+  @BeforeEach
+  void setUp() {
+    server = createServer(null);
+  }
+
+  @Test
+  void testSessionsWithDifferentConfigurationsUseTheirOwnEngines() {
+    var first = new EngineBinding();
+    var second = new EngineBinding();
+
+    server.bindEngine(first, config("VER350"));
+    server.bindEngine(second, config("VER360"));
+
+    assertEquals(2, startedEngines.size());
+    assertSame(startedEngines.get(0), acquired(first));
+    assertSame(startedEngines.get(1), acquired(second));
+    verify(startedEngines.get(0).getOrchestrator(), never()).close();
+  }
+
+  @Test
+  void testSessionsWithTheSameConfigurationShareThePooledEngine() {
+    var first = new EngineBinding();
+    var second = new EngineBinding();
+
+    server.bindEngine(first, config("VER350"));
+    server.bindEngine(second, config("VER360"));
+    server.bindEngine(second, config("VER350"));
+
+    assertEquals(2, startedEngines.size());
+    assertSame(acquired(first), acquired(second));
+  }
+
+  @Test
+  void testEvictedEngineStaysOpenWhileSessionIsBound() {
+    var first = new EngineBinding();
+    var second = new EngineBinding();
+
+    server.bindEngine(first, config("VER350"));
+    server.bindEngine(second, config("VER360"));
+    server.bindEngine(second, config("VER370"));
+
+    EngineHandle evicted = startedEngines.get(0);
+    assertNotSame(evicted, acquired(second));
+    assertTrue(evicted.acquire());
+    evicted.release();
+    verify(evicted.getOrchestrator(), never()).close();
+
+    first.close();
+    verify(evicted.getOrchestrator()).close();
+  }
+
+  @Test
+  void testReinitializingWithSameConfigurationKeepsEngine() {
+    var binding = new EngineBinding();
+
+    server.bindEngine(binding, config("VER350"));
+    server.bindEngine(binding, config("VER350"));
+
+    assertEquals(1, startedEngines.size());
+    assertSame(startedEngines.get(0), acquired(binding));
+  }
+
+  @Test
+  void testReinitializingWithDifferentInstallationStartsNewEngine() {
+    var binding = new EngineBinding();
+    Set<Path> plugins = Set.of(Path.of("sonar-delphi-plugin.jar"));
+
+    server.bindEngine(binding, new EngineStartupConfiguration("C:\\BDS\\22.0", "VER350", plugins));
+    server.bindEngine(binding, new EngineStartupConfiguration("C:\\BDS\\23.0", "VER350", plugins));
+
+    assertEquals(2, startedEngines.size());
+    assertSame(startedEngines.get(1), acquired(binding));
+    assertEquals("C:\\BDS\\23.0", acquired(binding).getConfig().getBdsPath());
+  }
+
+  @Test
+  void testInitializingWithWarmUpConfigurationAdoptsWarmEngine(@TempDir Path storeDir)
+      throws IOException, InterruptedException {
+    EngineStartupConfiguration warmUpConfig = pluginConfig("VER350");
+    Thread warmUp = startBlockedWarmUp(storeDir.resolve("engine.json"), warmUpConfig);
+
+    var binding = new EngineBinding();
+    var initialize = new Thread(() -> server.bindEngine(binding, warmUpConfig));
+    initialize.start();
+    while (initialize.getState() != Thread.State.WAITING) {
+      assertTrue(initialize.isAlive());
+      Thread.sleep(10);
+    }
+
+    blockedStartReleased.countDown();
+    warmUp.join(10_000);
+    initialize.join(10_000);
+
+    assertEquals(1, startedEngines.size());
+    assertSame(startedEngines.get(0), acquired(binding));
+    verify(startedEngines.get(0).getOrchestrator(), never()).close();
+  }
+
+  @Test
+  void testInitializingWithOtherConfigurationDiscardsWarmEngine(@TempDir Path storeDir)
+      throws IOException, InterruptedException {
+    Thread warmUp = startBlockedWarmUp(storeDir.resolve("engine.json"), pluginConfig("VER350"));
+
+    // The warm-up must not hold up an initialization that cannot use its engine
+    var binding = new EngineBinding();
+    server.bindEngine(binding, pluginConfig("VER360"));
+    assertEquals(1, startedEngines.size());
+
+    blockedStartReleased.countDown();
+    warmUp.join(10_000);
+
+    assertEquals(2, startedEngines.size());
+    EngineHandle warmEngine = startedEngines.get(1);
+    assertEquals("VER350", warmEngine.getConfig().getCompilerVersion());
+    verify(warmEngine.getOrchestrator()).close();
+    assertSame(startedEngines.get(0), acquired(binding));
+
+    var other = new EngineBinding();
+    server.bindEngine(other, pluginConfig("VER350"));
+    assertEquals(3, startedEngines.size());
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.commons.log.SonarLintLogger;
+
+class AnalysisServerMemoryTest {
+  private static final int ANALYSES = 40;
+  private static final int MESSAGES_PER_ANALYSIS = 10000;
+  private static final long MAX_HEAP_GROWTH_BYTES = 16L * 1024 * 1024;
+
+  private static void simulateAnalysis() throws InterruptedException {
+    var thread =
+        new Thread(
+            () -> {
+              var logOutput = new SonarDelphiLogOutput();
+              SonarLintLogger.setTarget(logOutput);
+              for (int i = 0; i < MESSAGES_PER_ANALYSIS; i++) {
+                SonarLintLogger.get().info("Analysis message " + i + " with some padding text");
+              }
+              SonarLintLogger.setTarget(null);
+
+              // Messages logged outside an analysis (e.g. during initialization) must not be
+              // retained
+              for (int i = 0; i < MESSAGES_PER_ANALYSIS; i++) {
+                SonarLintLogger.get().info("Other message " + i + " with some padding text");
+              }
+            });
+    thread.start();
+    thread.join();
+  }
+
+  private static long usedHeapAfterCollection() {
+    var memoryBean = ManagementFactory.getMemoryMXBean();
+    memoryBean.gc();
+    memoryBean.gc();
+    return memoryBean.getHeapMemoryUsage().getUsed();
+  }
+
+  @Test
+  void testHeapUsageStaysFlatAcrossRepeatedAnalyses(@TempDir Path pluginsPath) throws Exception {
+    new AnalysisServer(pluginsPath, new MemoryPolicy(Duration.ZERO));
+
+    for (int i = 0; i < 5; i++) {
+      simulateAnalysis();
+    }
+    long baseline = usedHeapAfterCollection();
+
+    for (int i = 0; i < ANALYSES; i++) {
+      simulateAnalysis();
+    }
+    long growth = usedHeapAfterCollection() - baseline;
+
+    assertTrue(
+        growth < MAX_HEAP_GROWTH_BYTES,
+        "Heap grew by " + growth / 1024 + " KiB over " + ANALYSES + " analyses");
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import au.com.integradev.delphilint.analysis.AnalysisOrchestrator;
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class EngineBindingTest {
+  private static EngineStartupConfiguration config(String compilerVersion) {
+    return new EngineStartupConfiguration("", compilerVersion, Set.of());
+  }
+
+  private static EngineHandle engine(int version, String compilerVersion) {
+    return new EngineHandle(version, config(compilerVersion), mock(AnalysisOrchestrator.class));
+  }
+
+  @Test
+  void testUnboundSessionHasNoEngine() {
+    var binding = new EngineBinding();
+
+    assertNull(binding.acquire());
+    assertFalse(binding.isBoundTo(config("VER350")));
+  }
+
+  @Test
+  void testRebindingReleasesPreviousEngine() {
+    var binding = new EngineBinding();
+    var engine1 = engine(1, "VER350");
+    var engine2 = engine(2, "VER360");
+
+    binding.bind(engine1);
+    assertTrue(binding.isBoundTo(config("VER350")));
+    binding.bind(engine2);
+
+    assertTrue(binding.isBoundTo(config("VER360")));
+    assertSame(engine2, binding.acquire());
+    verify(engine1.getOrchestrator()).close();
+    verify(engine2.getOrchestrator(), never()).close();
+  }
+
+  @Test
+  void testBoundEngineOutlivesOperationsUntilClosed() {
+    var binding = new EngineBinding();
+    var engine1 = engine(1, "VER350");
+
+    binding.bind(engine1);
+    binding.acquire().release();
+    verify(engine1.getOrchestrator(), never()).close();
+
+    binding.close();
+    verify(engine1.getOrchestrator()).close();
+    assertNull(binding.acquire());
+  }
+
+  @Test
+  void testEngineBoundAfterCloseIsReleased() {
+    var binding = new EngineBinding();
+    var engine1 = engine(1, "VER350");
+
+    binding.close();
+    binding.bind(engine1);
+
+    verify(engine1.getOrchestrator()).close();
+    assertNull(binding.acquire());
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import au.com.integradev.delphilint.analysis.AnalysisOrchestrator;
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class EngineHandleTest {
+  private final AnalysisOrchestrator orchestrator = mock(AnalysisOrchestrator.class);
+  private final EngineHandle handle =
+      new EngineHandle(1, new EngineStartupConfiguration("", "VER350", Set.of()), orchestrator);
+
+  @Test
+  void testClosesWhenOwnerReleases() {
+    handle.release();
+
+    verify(orchestrator).close();
+    assertFalse(handle.acquire());
+  }
+
+  @Test
+  void testInFlightUserKeepsEngineOpen() {
+    assertTrue(handle.acquire());
+
+    handle.release();
+    verify(orchestrator, never()).close();
+
+    handle.release();
+    verify(orchestrator).close();
+  }
+
+  @Test
+  void testReleasingClosedEngineThrows() {
+    handle.release();
+    assertThrows(IllegalStateException.class, handle::release);
+  }
+}
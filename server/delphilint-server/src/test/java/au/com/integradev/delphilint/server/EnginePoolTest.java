@@ -0,0 +1,105 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import au.com.integradev.delphilint.analysis.AnalysisOrchestrator;
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class EnginePoolTest {
+  private static EngineStartupConfiguration config(String compilerVersion) {
+    return new EngineStartupConfiguration("", compilerVersion, Set.of());
+  }
+
+  private static EngineHandle engine(int version, String compilerVersion) {
+    return new EngineHandle(version, config(compilerVersion), mock(AnalysisOrchestrator.class));
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsedEngine() {
+    var pool = new EnginePool(2, () -> false);
+    var engine1 = engine(1, "VER350");
+    var engine2 = engine(2, "VER360");
+    var engine3 = engine(3, "VER370");
+
+    pool.add(engine1);
+    pool.add(engine2);
+    assertSame(engine1, pool.acquire(config("VER350")));
+    engine1.release();
+    pool.add(engine3);
+
+    assertEquals(2, pool.size());
+    assertTrue(pool.contains(config("VER350")));
+    assertFalse(pool.contains(config("VER360")));
+    verify(engine2.getOrchestrator()).close();
+    verify(engine1.getOrchestrator(), never()).close();
+  }
+
+  @Test
+  void testKeepsOnlyNewEngineWhenHeapIsConstrained() {
+    var pool = new EnginePool(2, () -> true);
+    var engine1 = engine(1, "VER350");
+    var engine2 = engine(2, "VER360");
+
+    pool.add(engine1);
+    pool.add(engine2);
+
+    assertEquals(1, pool.size());
+    assertTrue(pool.contains(config("VER360")));
+    verify(engine1.getOrchestrator()).close();
+  }
+
+  @Test
+  void testAcquiredEngineOutlivesEviction() {
+    var pool = new EnginePool(1, () -> false);
+    var engine1 = engine(1, "VER350");
+
+    pool.add(engine1);
+    assertSame(engine1, pool.acquire(config("VER350")));
+    assertNull(pool.acquire(config("VER360")));
+    pool.add(engine(2, "VER360"));
+
+    verify(engine1.getOrchestrator(), never()).close();
+    engine1.release();
+    verify(engine1.getOrchestrator()).close();
+  }
+
+  @Test
+  void testEvictedEngineInUseIsNotClosed() {
+    var pool = new EnginePool(1, () -> false);
+    var engine1 = engine(1, "VER350");
+
+    pool.add(engine1);
+    engine1.acquire();
+    pool.add(engine(2, "VER360"));
+
+    verify(engine1.getOrchestrator(), never()).close();
+    engine1.release();
+    verify(engine1.getOrchestrator()).close();
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import au.com.integradev.delphilint.analysis.AnalysisOrchestrator;
+import au.com.integradev.delphilint.analysis.AnalysisProgressMonitor;
+import au.com.integradev.delphilint.analysis.EngineStartupConfiguration;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TlvConnectionTest {
+  private static TlvConnection createConnection(
+      AnalysisServer server, boolean nio, boolean multiClient) throws IOException {
+    if (nio) {
+      return new NioTlvConnection(server, 0, multiClient);
+    } else {
+      return new BlockingTlvConnection(server, 0, multiClient);
+    }
+  }
+
+  private static Thread startConnection(TlvConnection connection) {
+    var serverThread =
+        new Thread(
+            () -> {
+              try {
+                connection.run();
+              } catch (IOException e) {
+                // Multi-client connections are never terminated by these tests
+              }
+            });
+    serverThread.setDaemon(true);
+    serverThread.start();
+    return serverThread;
+  }
+
+  private static byte[] buildMessage(MessageCategory category, int id, String data)
+      throws IOException {
+    byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
+    var bytes = new ByteArrayOutputStream();
+    var out = new DataOutputStream(bytes);
+    out.writeByte(category.getCode());
+    out.writeInt(id);
+    out.writeInt(dataBytes.length);
+    out.write(dataBytes);
+    return bytes.toByteArray();
+  }
+
+  private static void writeMessage(OutputStream out, MessageCategory category, int id, String data)
+      throws IOException {
+    out.write(buildMessage(category, id, data));
+    out.flush();
+  }
+
+  private static int readMessageId(DataInputStream in, MessageCategory expectedCategory)
+      throws IOException {
+    assertEquals(expectedCategory, MessageCategory.fromCode(in.readUnsignedByte()));
+    int id = in.readInt();
+    in.readNBytes(in.readInt());
+    return id;
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testPingIsAnsweredDuringLongRunningAnalysis(boolean nio) throws Exception {
+    var analysisStarted = new CountDownLatch(1);
+    var analysisReleased = new CountDownLatch(1);
+
+    AnalysisServer server = mock(AnalysisServer.class);
+    doAnswer(
+            invocation -> {
+              analysisStarted.countDown();
+              assertTrue(analysisReleased.await(10, TimeUnit.SECONDS));
+              Consumer<LintMessage> sendMessage = invocation.getArgument(3);
+              sendMessage.accept(LintMessage.analyzeError("done"));
+              return null;
+            })
+        .when(server)
+        .analyze(any(), any(), any(), any());
+
+    var connection = createConnection(server, nio, false);
+    var serverThread = startConnection(connection);
+
+    try (var socket = new Socket("localhost", connection.getPort())) {
+      var out = socket.getOutputStream();
+      var in = new DataInputStream(socket.getInputStream());
+
+      writeMessage(out, MessageCategory.ANALYZE, 1, "{}");
+      assertTrue(analysisStarted.await(10, TimeUnit.SECONDS));
+
+      writeMessage(out, MessageCategory.PING, 2, "\"ping\"");
+      assertEquals(2, readMessageId(in, MessageCategory.PONG));
+
+      analysisReleased.countDown();
+      assertEquals(1, readMessageId(in, MessageCategory.ANALYZE_ERROR));
+
+      writeMessage(out, MessageCategory.QUIT, 3, "");
+      serverThread.join(10000);
+      assertFalse(serverThread.isAlive());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testCancelIsPassedToInFlightAnalysis(boolean nio) throws Exception {
+    AnalysisServer server = mock(AnalysisServer.class);
+    doAnswer(
+            invocation -> {
+              AnalysisProgressMonitor progressMonitor = invocation.getArgument(2);
+              long deadline = System.currentTimeMillis() + 10000;
+              while (!progressMonitor.isCanceled() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+              }
+              Consumer<LintMessage> sendMessage = invocation.getArgument(3);
+              if (progressMonitor.isCanceled()) {
+                sendMessage.accept(LintMessage.analyzeCancelled());
+              } else {
+                sendMessage.accept(LintMessage.analyzeError("not cancelled"));
+              }
+              return null;
+            })
+        .when(server)
+        .analyze(any(), any(), any(), any());
+
+    var connection = createConnection(server, nio, true);
+    startConnection(connection);
+
+    try (var socket = new Socket("localhost", connection.getPort())) {
+      var out = socket.getOutputStream();
+      var in = new DataInputStream(socket.getInputStream());
+
+      writeMessage(out, MessageCategory.ANALYZE, 4, "{}");
+      writeMessage(out, MessageCategory.CANCEL, 4, "");
+      assertEquals(4, readMessageId(in, MessageCategory.ANALYZE_CANCELLED));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testMultiClientSessionsAreServedIndependently(boolean nio) throws Exception {
+    AnalysisServer server = mock(AnalysisServer.class);
+    var connection = createConnection(server, nio, true);
+    startConnection(connection);
+
+    try (var firstSocket = new Socket("localhost", connection.getPort());
+        var secondSocket = new Socket("localhost", connection.getPort())) {
+      var secondIn = new DataInputStream(secondSocket.getInputStream());
+
+      writeMessage(firstSocket.getOutputStream(), MessageCategory.QUIT, 1, "");
+      assertEquals(-1, firstSocket.getInputStream().read());
+
+      writeMessage(secondSocket.getOutputStream(), MessageCategory.PING, 1, "\"ping\"");
+      assertEquals(1, readMessageId(secondIn, MessageCategory.PONG));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testFramesSplitAcrossWritesAreDecoded(boolean nio) throws Exception {
+    AnalysisServer server = mock(AnalysisServer.class);
+    var connection = createConnection(server, nio, true);
+    startConnection(connection);
+
+    try (var socket = new Socket("localhost", connection.getPort())) {
+      socket.setTcpNoDelay(true);
+      var out = socket.getOutputStream();
+      var in = new DataInputStream(socket.getInputStream());
+
+      byte[] first = buildMessage(MessageCategory.PING, 7, "\"first\"");
+      byte[] second = buildMessage(MessageCategory.PING, 8, "\"second\"");
+
+      for (byte b : first) {
+        out.write(b);
+        out.flush();
+        Thread.sleep(1);
+      }
+      assertEquals(7, readMessageId(in, MessageCategory.PONG));
+
+      byte[] both = new byte[first.length + second.length];
+      System.arraycopy(first, 0, both, 0, first.length);
+      System.arraycopy(second, 0, both, first.length, second.length);
+      out.write(both);
+      out.flush();
+
+      int firstId = readMessageId(in, MessageCategory.PONG);
+      int secondId = readMessageId(in, MessageCategory.PONG);
+      assertEquals(15, firstId + secondId);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testSessionWithInvalidFrameLengthIsEnded(boolean nio) throws Exception {
+    AnalysisServer server = mock(AnalysisServer.class);
+    var connection = createConnection(server, nio, true);
+    startConnection(connection);
+
+    try (var negativeSocket = new Socket("localhost", connection.getPort());
+        var oversizedSocket = new Socket("localhost", connection.getPort());
+        var validSocket = new Socket("localhost", connection.getPort())) {
+      for (var socket : new Socket[] {negativeSocket, oversizedSocket}) {
+        var out = new DataOutputStream(socket.getOutputStream());
+        out.writeByte(MessageCategory.PING.getCode());
+        out.writeInt(1);
+        out.writeInt(socket == negativeSocket ? -1 : TlvSession.MAX_DATA_LENGTH + 1);
+        out.flush();
+        assertEquals(-1, socket.getInputStream().read());
+      }
+
+      writeMessage(validSocket.getOutputStream(), MessageCategory.PING, 1, "\"ping\"");
+      assertEquals(
+          1,
+          readMessageId(new DataInputStream(validSocket.getInputStream()), MessageCategory.PONG));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testResetConnectionReleasesEngineBinding(boolean nio) throws Exception {
+    var engine =
+        new EngineHandle(
+            1,
+            new EngineStartupConfiguration("", "VER350", Set.of()),
+            mock(AnalysisOrchestrator.class));
+    AnalysisServer server = mock(AnalysisServer.class);
+    doAnswer(
+            invocation -> {
+              EngineBinding engineBinding = invocation.getArgument(1);
+              engine.acquire();
+              engineBinding.bind(engine);
+              Consumer<LintMessage> sendMessage = invocation.getArgument(2);
+              sendMessage.accept(LintMessage.initialized());
+              return null;
+            })
+        .when(server)
+        .initialize(any(), any(), any());
+
+    var connection = createConnection(server, nio, true);
+    startConnection(connection);
+
+    try (var socket = new Socket("localhost", connection.getPort())) {
+      var out = socket.getOutputStream();
+      var in = new DataInputStream(socket.getInputStream());
+
+      writeMessage(out, MessageCategory.INITIALIZE, 1, "{}");
+      assertEquals(1, readMessageId(in, MessageCategory.INITIALIZED));
+      // Only the session's reference remains, as if the engine had been evicted from the pool
+      engine.release();
+
+      // Reset the connection partway through a frame, as a killed client would
+      out.write(MessageCategory.PING.getCode());
+      out.write(new byte[] {0, 0});
+      out.flush();
+      socket.setSoLinger(true, 0);
+    }
+
+    verify(engine.getOrchestrator(), timeout(10000)).close();
+    assertFalse(engine.acquire());
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class TlvFrameBufferTest {
+  @Test
+  void testHeaderIsBackfilled() {
+    var pool = new TlvFrameBuffer.Pool(1);
+    TlvFrameBuffer buffer = pool.acquire();
+    byte[] data = "\"pong\"".getBytes(StandardCharsets.UTF_8);
+    buffer.writeBytes(data);
+    buffer.finish(MessageCategory.PONG, 42);
+
+    var frame = buffer.getFrame();
+    assertEquals(TlvSession.HEADER_LENGTH + data.length, frame.remaining());
+    assertEquals(MessageCategory.PONG.getCode(), frame.get(0));
+    assertEquals(42, frame.getInt(1));
+    assertEquals(data.length, frame.getInt(5));
+    assertEquals('"', frame.get(TlvSession.HEADER_LENGTH));
+  }
+
+  @Test
+  void testUnfinishedFrameThrows() {
+    TlvFrameBuffer buffer = new TlvFrameBuffer.Pool(1).acquire();
+    assertThrows(IllegalStateException.class, buffer::getFrame);
+  }
+
+  @Test
+  void testReleasedBufferIsReusedEmpty() {
+    var pool = new TlvFrameBuffer.Pool(1);
+    TlvFrameBuffer buffer = pool.acquire();
+    buffer.writeBytes(new byte[100]);
+    buffer.release();
+
+    TlvFrameBuffer reused = pool.acquire();
+    assertSame(buffer, reused);
+    assertEquals(TlvSession.HEADER_LENGTH, reused.size());
+  }
+
+  @Test
+  void testLargeBufferIsNotRetained() {
+    var pool = new TlvFrameBuffer.Pool(1);
+    TlvFrameBuffer buffer = pool.acquire();
+    buffer.writeBytes(new byte[2 * 1024 * 1024]);
+    buffer.release();
+
+    assertNotSame(buffer, pool.acquire());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * DelphiLint Server
+ * Copyright (C) 2024 Integrated Application Development
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package au.com.integradev.delphilint.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TlvSessionTest {
+  private final BlockingQueue<byte[]> sentFrames = new LinkedBlockingQueue<>();
+  private final AnalysisServer server = mock(AnalysisServer.class);
+  private TlvSession session;
+
+  @BeforeEach
+  void setUp() {
+    session =
+        new TlvSession(
+            1,
+            server,
+            frame -> {
+              try {
+                ByteBuffer buffer = frame.getFrame();
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                sentFrames.add(bytes);
+              } finally {
+                frame.release();
+              }
+            });
+  }
+
+  @AfterEach
+  void tearDown() {
+    session.close();
+  }
+
+  private byte[] nextFrame() throws InterruptedException {
+    byte[] frame = sentFrames.poll(10, TimeUnit.SECONDS);
+    assertNotNull(frame);
+    return frame;
+  }
+
+  private static byte[] frameData(byte[] frame) {
+    byte[] data = new byte[frame.length - TlvSession.HEADER_LENGTH];
+    System.arraycopy(frame, TlvSession.HEADER_LENGTH, data, 0, data.length);
+    return data;
+  }
+
+  private byte[] nextFrameData() throws InterruptedException {
+    return frameData(nextFrame());
+  }
+
+  private void initializeResponds(LintMessage response) {
+    doAnswer(
+            invocation -> {
+              Consumer<LintMessage> sendMessage = invocation.getArgument(2);
+              sendMessage.accept(response);
+              return null;
+            })
+        .when(server)
+        .initialize(any(), any(), any());
+  }
+
+  private void initializeWithSmile() {
+    session.handleFrame(
+        MessageCategory.INITIALIZE.getCode(),
+        1,
+        "{\"payloadEncoding\":\"SMILE\"}".getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testResponsesAreJsonByDefault() throws Exception {
+    session.handleFrame(
+        MessageCategory.PING.getCode(), 1, "\"ping\"".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("\"ping\"", new String(nextFrameData(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testSmileIsNegotiatedDuringInitialize() throws Exception {
+    var smileMapper = new ObjectMapper(new SmileFactory());
+    initializeResponds(LintMessage.initialized());
+
+    initializeWithSmile();
+    byte[] initialized = nextFrame();
+    assertEquals(MessageCategory.INITIALIZED.getCode(), initialized[0]);
+    assertEquals("null", new String(frameData(initialized), StandardCharsets.UTF_8));
+
+    session.handleFrame(MessageCategory.PING.getCode(), 2, smileMapper.writeValueAsBytes("ping"));
+
+    byte[] data = nextFrameData();
+    assertEquals(':', data[0]);
+    assertEquals(')', data[1]);
+    assertEquals("ping", smileMapper.readValue(data, String.class));
+  }
+
+  @Test
+  void testFailedInitializeKeepsJson() throws Exception {
+    initializeResponds(LintMessage.initializeError("No plugins"));
+
+    initializeWithSmile();
+    byte[] initializeError = nextFrame();
+    assertEquals(MessageCategory.INITIALIZE_ERROR.getCode(), initializeError[0]);
+    assertEquals("\"No plugins\"", new String(frameData(initializeError), StandardCharsets.UTF_8));
+
+    session.handleFrame(
+        MessageCategory.PING.getCode(), 2, "\"ping\"".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("\"ping\"", new String(nextFrameData(), StandardCharsets.UTF_8));
+  }
+}